@@ -4,28 +4,58 @@ import android.Manifest;
 import android.app.Fragment;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.graphics.Typeface;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.preference.PreferenceManager;
 import android.support.design.widget.FloatingActionButton;
 import android.support.design.widget.Snackbar;
+import android.support.v4.content.ContextCompat;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.StrikethroughSpan;
+import android.text.style.StyleSpan;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.EditText;
 import android.widget.TextView;
+import com.microsoft.android.fischersfritze.archive.Attempt;
+import com.microsoft.android.fischersfritze.game.GameSession;
+import com.microsoft.android.fischersfritze.game.Hypothesis;
+import com.microsoft.android.fischersfritze.game.RoundResult;
+import com.microsoft.android.fischersfritze.game.ScoringPipeline;
+import com.microsoft.android.fischersfritze.history.ScoreRecord;
+import com.microsoft.android.fischersfritze.metrics.Metrics;
+import com.microsoft.android.fischersfritze.oxford.EditScript;
 import com.microsoft.android.fischersfritze.oxford.Helper;
+import com.microsoft.android.fischersfritze.oxford.TwisterScheduler;
+import com.microsoft.android.fischersfritze.oxford.WordAlignment;
+import com.microsoft.android.fischersfritze.recorder.ClipRecorder;
+import com.microsoft.android.fischersfritze.speech.ClientKey;
+import com.microsoft.android.fischersfritze.speech.OxfordRecognizer;
+import com.microsoft.android.fischersfritze.speech.SpeechClientManager;
+import com.microsoft.android.fischersfritze.ui.ResultLog;
+import com.microsoft.android.fischersfritze.ui.ResultLogFlusher;
 import com.microsoft.projectoxford.speechrecognition.*;
 import com.microsoft.bing.speech.SpeechClientStatus;
 import pub.devrel.easypermissions.EasyPermissions;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.Executor;
 
-public class GameFragment extends Fragment implements ISpeechRecognitionServerEvents, EasyPermissions.PermissionCallbacks {
+public class GameFragment extends Fragment implements GameSession.Listener, EasyPermissions.PermissionCallbacks {
 
     private static final String LOG_TAG = "GameFragment";
+    public static final String TIMER_DISPLAYED = "round.displayed";
     private static final String[] PERMISSIONS = {Manifest.permission.RECORD_AUDIO, Manifest.permission.WRITE_EXTERNAL_STORAGE, Manifest.permission.READ_EXTERNAL_STORAGE};
     private static final int PERMISSIONS_REQ = 1;
+    private static final int RESULT_LOG_CAPACITY = 256;
+    private static final int RESULT_LOG_VISIBLE_LINES = 50;
 
     //ui
     private TextView tonguetwisterText;
@@ -33,9 +63,8 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
     private TextView scoreText;
     private FloatingActionButton recordButton = null;
     private FloatingActionButton newButton = null;
-
-    //recording
-    private boolean isRecording;
+    private final ResultLog resultLog = new ResultLog(RESULT_LOG_CAPACITY);
+    private ResultLogFlusher resultLogFlusher;
 
     //prefs
     private SharedPreferences sharedPreferences;
@@ -49,25 +78,44 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
                     if(key.equals(getString(R.string.pref_display_name_key))) {
                         setDisplayName(prefs.getString(getString(R.string.pref_display_name_key), getString(R.string.pref_display_name_default)));
                         writeLineToResult(getString(R.string.pref_display_name_key) + " changed to " + prefs.getString(getString(R.string.pref_display_name_key), getString(R.string.pref_display_name_default)));
+                        // nothing recognition relevant, the client stays as it is
+                        return;
                     } else if (key.equals(getString(R.string.pref_rec_duration_key))) {
                         setRecordingDuration(prefs.getString(getString(R.string.pref_rec_duration_key), getString(R.string.pref_rec_duration_default)));
                         writeLineToResult(getString(R.string.pref_rec_duration_key) + " changed to " + prefs.getString(getString(R.string.pref_rec_duration_key), getString(R.string.pref_rec_duration_default)));
                     } else if (key.equals(getString(R.string.pref_language_key))) {
                         setLanguage(prefs.getString(getString(R.string.pref_language_key), getString(R.string.pref_language_default)));
                         writeLineToResult(getString(R.string.pref_language_key) + " changed to " + prefs.getString(getString(R.string.pref_language_key), getString(R.string.pref_language_default)));
+                    } else if (key.equals(getString(R.string.pref_local_vad_key))) {
+                        setLocalVad(prefs.getBoolean(getString(R.string.pref_local_vad_key), false));
+                        writeLineToResult(getString(R.string.pref_local_vad_key) + " changed to " + prefs.getBoolean(getString(R.string.pref_local_vad_key), false));
+                        // the microphone is captured locally, same client key
+                        return;
+                    } else if (key.equals(getString(R.string.pref_twister_order_key))) {
+                        setTwisterOrder(prefs.getString(getString(R.string.pref_twister_order_key), getString(R.string.pref_twister_order_default)));
+                        writeLineToResult(getString(R.string.pref_twister_order_key) + " changed to " + prefs.getString(getString(R.string.pref_twister_order_key), getString(R.string.pref_twister_order_default)));
+                        // only the next round is affected
+                        return;
+                    } else {
+                        return;
                     }
 
-                    shutdownMicrophoneClient();
-                    initializeMicrophoneClient();
+                    // debounced, a burst of edits only switches the client once
+                    clientManager.requestConfigure(getClientKey());
                 }
             };
 
     //oxford
-    private MicrophoneRecognitionClient micClient = null;
-    private FinalResponseStatus isReceivedResponse = FinalResponseStatus.NotReceived;
+    private OxfordRecognizer recognizer;
+    private SpeechClientManager clientManager;
+
+    //game
+    private GameSession session;
+    private ScoringPipeline scoringPipeline;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    //scoring
-    private String currentTongueTwister;
+    //storage, shared by every instance of the fragment
+    private Storage storage;
 
     public GameFragment() {
         // Required empty public constructor
@@ -86,6 +134,30 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+
+        recognizer = new OxfordRecognizer(getActivity());
+        clientManager = recognizer.getClientManager();
+        // the session builds its first profile right away, in the player's language
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(getActivity());
+        language = prefs.getString(getString(R.string.pref_language_key), getString(R.string.pref_language_default));
+        session = new GameSession(recognizer, language);
+        session.setListener(this);
+
+        scoringPipeline = new ScoringPipeline(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mainHandler.post(command);
+            }
+        });
+        scoringPipeline.setFormatter(new ScoringPipeline.Formatter() {
+            @Override
+            public void format(RoundResult result) {
+                formatResult(result);
+            }
+        });
+        session.setScoringPipeline(scoringPipeline);
+
+        storage = Storage.get(getActivity());
     }
 
     @Override
@@ -99,6 +171,8 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
         newButton = (FloatingActionButton) view.findViewById(R.id.FAB_new);
         tonguetwisterText = (TextView) view.findViewById(R.id.textView_tonguetwister);
         resultText = (EditText) view.findViewById(R.id.editText_result);
+        resultLogFlusher = new ResultLogFlusher(resultLog, resultText, RESULT_LOG_VISIBLE_LINES);
+        resultLogFlusher.invalidate();
         scoreText = (TextView) view.findViewById(R.id.textView_score);
         setUpFloatingActionButtons();
 
@@ -107,6 +181,8 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
         setDisplayName(sharedPreferences.getString(getString(R.string.pref_display_name_key), getString(R.string.pref_display_name_default)));
         setRecordingDuration(sharedPreferences.getString(getString(R.string.pref_rec_duration_key), getString(R.string.pref_rec_duration_default)));
         setLanguage(sharedPreferences.getString(getString(R.string.pref_language_key), getString(R.string.pref_language_default)));
+        setLocalVad(sharedPreferences.getBoolean(getString(R.string.pref_local_vad_key), false));
+        setTwisterOrder(sharedPreferences.getString(getString(R.string.pref_twister_order_key), getString(R.string.pref_twister_order_default)));
 
         setUpTongueTwister();
 
@@ -132,8 +208,9 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
 
         if (EasyPermissions.hasPermissions(getContext(), PERMISSIONS))
         {
-            shutdownMicrophoneClient();
-            writeLineToResult("--- client uninitialized ---");
+            // the client stays warm for the next onResume
+            clientManager.pause();
+            writeLineToResult("--- client paused ---");
             writeLineToResult();
         }
     }
@@ -141,10 +218,21 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
     @Override
     public void onDestroyView() {
         sharedPreferences.unregisterOnSharedPreferenceChangeListener(sharedPrefslistener);
+        resultLogFlusher.stop();
 
         super.onDestroyView();
     }
 
+    @Override
+    public void onDestroy() {
+        clientManager.release();
+        scoringPipeline.shutdown();
+        // the stores stay open for the next instance
+        storage.sync();
+
+        super.onDestroy();
+    }
+
     @Override
     public void onDetach() {
         super.onDetach();
@@ -154,11 +242,9 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
     private void setNotRecording() {
         recordButton.setImageResource(android.R.drawable.ic_btn_speak_now);
         Snackbar.make(getView(), "Not Recording", Snackbar.LENGTH_LONG).show();
-        isRecording = false;
     }
 
     private void setRecording() {
-        isRecording = true;
         recordButton.setImageResource(android.R.drawable.ic_menu_close_clear_cancel);
         Snackbar.make(getView(), "Recording...", Snackbar.LENGTH_LONG).show();
     }
@@ -168,12 +254,10 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
             @Override
             public void onClick(View view) {
                 if (EasyPermissions.hasPermissions(getContext(), PERMISSIONS)) {
-                    if(!isRecording) {
-                        setRecording();
-                        startRecording();
+                    if(!session.isRecording()) {
+                        session.startRecording();
                     } else {
-                        setNotRecording();
-                        //stopRecording();
+                        session.stopRecording();
                     }
                 }
             }
@@ -181,7 +265,7 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
         newButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                if(!isRecording) {
+                if(!session.isRecording()) {
                     clearAll();
                     setUpTongueTwister();
                 }
@@ -189,30 +273,79 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
         });
     }
 
+    // safe from any thread, the view picks up new lines at most once per frame
     private void writeLineToResult() {
-        resultText.append("");
+        writeLineToResult("");
     }
 
     private void writeLineToResult(String s) {
-        resultText.append(s + "\n");
+        resultLog.append(s);
+        resultLogFlusher.requestFlush();
     }
 
     private void setUpTongueTwister() {
-        currentTongueTwister = Helper.getRandomTongueTwister(getLanguage());
-        tonguetwisterText.setText(currentTongueTwister);
+        if (!Helper.hasCorpus()) {
+            tonguetwisterText.setText(R.string.corpus_error_text);
+            return;
+        }
+        tonguetwisterText.setText(session.newRound());
+        Log.d(LOG_TAG, "reference profile cache: " + Helper.getReferenceProfileCache());
     }
 
-    private void calculateResult(String result) {
-        int distance = Helper.levenshteinDistance(currentTongueTwister, result);
-        scoreText.setText(String.format(getString(R.string.score_text), 100 - distance));
+    private void calculateResult(int score) {
+        scoreText.setText(String.format(getString(R.string.score_text), score));
+    }
 
+    /**
+     * Shows the twister as the player said it: wrong words in red, left out words struck
+     * through, added words in grey italics.
+     */
+    private void showDiff(WordAlignment alignment) {
+        int error = ContextCompat.getColor(getActivity(), R.color.colorDiffError);
+        int extra = ContextCompat.getColor(getActivity(), R.color.colorDiffExtra);
 
+        SpannableStringBuilder diff = new SpannableStringBuilder();
+        for (EditScript.Span span : alignment.getScript().getSpans()) {
+            switch (span.getOp()) {
+                case Match:
+                    for (int i = span.getReferenceStart(); i < span.getReferenceEnd(); i++) {
+                        appendWord(diff, alignment.getReferenceWord(i));
+                    }
+                    break;
+                case Substitute:
+                    for (int i = span.getReferenceStart(); i < span.getReferenceEnd(); i++) {
+                        appendWord(diff, alignment.getReferenceWord(i), new ForegroundColorSpan(error));
+                    }
+                    break;
+                case Delete:
+                    for (int i = span.getReferenceStart(); i < span.getReferenceEnd(); i++) {
+                        appendWord(diff, alignment.getReferenceWord(i), new ForegroundColorSpan(error), new StrikethroughSpan());
+                    }
+                    break;
+                case Insert:
+                    for (int i = span.getHypothesisStart(); i < span.getHypothesisEnd(); i++) {
+                        appendWord(diff, alignment.getHypothesisWord(i), new ForegroundColorSpan(extra), new StyleSpan(Typeface.ITALIC));
+                    }
+                    break;
+            }
+        }
+        tonguetwisterText.setText(diff);
+    }
+
+    private static void appendWord(SpannableStringBuilder sb, String word, Object... spans) {
+        if (sb.length() > 0) sb.append(' ');
+        int start = sb.length();
+        sb.append(word);
+        for (Object span : spans) {
+            sb.setSpan(span, start, sb.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
     }
 
     private void clearAll() {
-        currentTongueTwister = "";
+        session.clear();
         tonguetwisterText.setText("");
-        resultText.setText("");
+        resultLog.clear();
+        resultLogFlusher.invalidate();
         scoreText.setText("");
     }
 
@@ -232,6 +365,20 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
     private void setRecordingDuration(String magicNumber) {
         if(magicNumber.equals("1")) recDuration = SpeechRecognitionMode.LongDictation;
         else recDuration = SpeechRecognitionMode.ShortPhrase;
+        session.setLongDictation(recDuration == SpeechRecognitionMode.LongDictation);
+    }
+
+    private void setLocalVad(boolean localVad) {
+        // ends the recognition as soon as the player stops talking
+        recognizer.setLocalVad(localVad);
+    }
+
+    private void setTwisterOrder(String order) {
+        try {
+            session.setTwisterOrder(TwisterScheduler.Mode.valueOf(order));
+        } catch (IllegalArgumentException e) {
+            session.setTwisterOrder(TwisterScheduler.Mode.Shuffle);
+        }
     }
 
     private String getLanguage() {
@@ -239,6 +386,7 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
     }
     private void setLanguage(String language) {
         this.language = language;
+        session.setLanguage(language);
     }
 
     //permissions
@@ -267,7 +415,6 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
     }
 
    //oxford
-    private enum FinalResponseStatus { NotReceived, OK, Timeout }
     private String getPrimaryKey() {
         return getString(R.string.primaryKey);
     }
@@ -275,117 +422,95 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
         return getString(R.string.secondaryKey);
     }
 
+    private ClientKey getClientKey() {
+        return new ClientKey(this.getRecordingDuration(), this.getLanguage(), this.getPrimaryKey(), this.getSecondaryKey());
+    }
+
     private void initializeMicrophoneClient() {
         try {
-            if (this.micClient == null) {
-                this.micClient = SpeechRecognitionServiceFactory.createMicrophoneClient(
-                        getActivity(),
-                        this.getRecordingDuration(),
-                        this.getLanguage(),
-                        this,
-                        this.getPrimaryKey(),
-                        this.getSecondaryKey());
-            }
+            clientManager.configure(getClientKey());
         } catch (Exception e) {
             writeLineToResult("mic initialization exception: " + e.getMessage());
         }
     }
 
-    private void shutdownMicrophoneClient() {
-        if (this.micClient != null) {
-            this.micClient.endMicAndRecognition();
-            try {
-                this.micClient.finalize();
-            } catch (Throwable throwable) {
-                throwable.printStackTrace();
-            }
-            this.micClient = null;
-        }
-    }
-
-    private void startRecording() {
-        if(micClient != null) {
-            this.micClient.startMicAndRecognition();
-        }
-
-    }
-
-    private void stopRecording() {
-        if (this.micClient != null) {
-            this.micClient.endMicAndRecognition();
-        }
+    //game
+    @Override
+    public void onStateChanged(GameSession.State state) {
+        if (state == GameSession.State.Recording) setRecording();
+        else setNotRecording();
     }
 
     @Override
-    public void onPartialResponseReceived(String response) {
+    public void onLiveScore(String partial, int distance) {
         this.writeLineToResult("--- Partial result received by onPartialResponseReceived() ---");
-        this.writeLineToResult(response);
+        this.writeLineToResult(partial);
         this.writeLineToResult();
+
+        scoreText.setText(String.format(getString(R.string.live_score_text), 100 - distance));
     }
 
     @Override
-    public void onFinalResponseReceived(RecognitionResult response) {
-        boolean isFinalDictationMessage = this.getRecordingDuration() == SpeechRecognitionMode.LongDictation &&
-                (response.RecognitionStatus == RecognitionStatus.EndOfDictation ||
-                        response.RecognitionStatus == RecognitionStatus.DictationEndSilenceTimeout);
-
-        if (this.micClient != null && ((this.getRecordingDuration() == SpeechRecognitionMode.ShortPhrase) || isFinalDictationMessage)) {
-            // we got the final result, so it we can end the mic reco.  No need to do this
-            // for dataReco, since we already called endAudio() on it as soon as we were done
-            // sending all the data.
-            stopRecording();
-        }
-
-        if (isFinalDictationMessage) {
-            setNotRecording();
-            this.isReceivedResponse = FinalResponseStatus.OK;
-        }
-
-        if (!isFinalDictationMessage) {
-            String bestMatch = "";
-            int bestMatchScore = 100;
-
-            this.writeLineToResult("********* Final n-BEST Results *********");
-            if (response.Results.length > 0) {
+    public void onRoundScored(RoundResult result) {
+        // the log lines were written on the scoring worker
+        calculateResult(result.getScore());
+        showDiff(result.getAlignment());
+        // start of the round until the score is on screen
+        Metrics.getDefault().timer(TIMER_DISPLAYED).record(result.getLatencyNanos() + System.nanoTime() - result.getScoredAtNanos());
 
-                for (int i = 0; i < response.Results.length; i++) {
-                    int calculatedScore = Helper.levenshteinDistance(currentTongueTwister, response.Results[i].DisplayText);
-
-                    this.writeLineToResult("[" + i + "]" + " Confidence=" + response.Results[i].Confidence +
-                            " Text=\"" + response.Results[i].DisplayText + "\"");
-                    this.writeLineToResult("Calculated score: " + calculatedScore);
-
-                    if(calculatedScore <= bestMatchScore) {
-                        bestMatch = response.Results[i].DisplayText;
-                        bestMatchScore = calculatedScore;
-                    }
+        archiveAttempt(result);
+        recordScore(result);
+    }
 
-                    this.writeLineToResult();
-                }
+    @Override
+    public void onScoringFailed(String twister, RuntimeException error) {
+        Log.e(LOG_TAG, "scoring \"" + twister + "\" failed", error);
+        scoreText.setText(R.string.scoring_failed_text);
+        this.writeLineToResult("--- Scoring failed ---");
+        this.writeLineToResult("Error text: " + error);
+        this.writeLineToResult();
+    }
 
-                calculateResult(response.Results[0].DisplayText);
-                this.writeLineToResult("-------- Scoring --------");
-                this.writeLineToResult("expected string: " + currentTongueTwister);
-                this.writeLineToResult("best match: " + bestMatch);
-                this.writeLineToResult("best score: " + bestMatchScore);
-            }
+    private void recordScore(RoundResult result) {
+        storage.record(new ScoreRecord(getDisplayName(), result.getLanguage(),
+                result.getTwisterId(),
+                result.getScore(), System.currentTimeMillis()));
+    }
 
+    // scoring worker, the result log takes lines from any thread
+    private void formatResult(RoundResult result) {
+        this.writeLineToResult("********* Final n-BEST Results *********");
+        for (int i = 0; i < result.size(); i++) {
+            Hypothesis hypothesis = result.getHypothesis(i);
+            this.writeLineToResult("[" + i + "]" + " Confidence=" + hypothesis.getConfidence() +
+                    " Text=\"" + hypothesis.getText() + "\"");
+            this.writeLineToResult("Calculated score: " + (result.isExactDistance(i) ? "" : "at least ") + result.getDistance(i));
+            this.writeLineToResult("Word errors: " + result.getWordScore(i));
+            this.writeLineToResult("Phonetic distance: " + result.getPhoneticDistance(i));
             this.writeLineToResult();
         }
-    }
-
-
 
-    @Override
-    public void onIntentReceived(String payload) {
-        this.writeLineToResult("--- Intent received by onIntentReceived() ---");
-        this.writeLineToResult(payload);
+        this.writeLineToResult("-------- Scoring --------");
+        this.writeLineToResult("expected string: " + result.getTwister());
+        this.writeLineToResult("best match: " + result.getBestMatch().getText());
+        this.writeLineToResult("best score: " + result.getBestDistance());
+        this.writeLineToResult("phonetic score: " + result.getPhoneticScore());
+        this.writeLineToResult("word diff: " + result.getAlignment());
         this.writeLineToResult();
     }
 
+    private void archiveAttempt(RoundResult result) {
+        ClipRecorder clips = recognizer.getClipRecorder();
+        ByteBuffer audio = recognizer.isLocalVad() && clips.getFormat() != null ? clips.copyClip() : null;
+        int sampleRate = audio == null ? 0 : clips.getFormat().getSampleRate();
+        storage.archive(new Attempt(System.currentTimeMillis(), result.getLanguage(),
+                result.getTwisterId(),
+                result.getHypothesis(0).getText(), result.getScore(),
+                Attempt.ENCODING_IMA_ADPCM, sampleRate, audio));
+    }
+
     @Override
     public void onError(int errorCode, String response) {
-        setNotRecording();
         this.writeLineToResult("--- Error received by onError() ---");
         this.writeLineToResult("Error code: " + SpeechClientStatus.fromInt(errorCode) + " " + errorCode);
         this.writeLineToResult("Error text: " + response);
@@ -401,9 +526,5 @@ public class GameFragment extends Fragment implements ISpeechRecognitionServerEv
         }
 
         writeLineToResult();
-        if (!recording) {
-            this.micClient.endMicAndRecognition();
-            setNotRecording();
-        }
     }
 }
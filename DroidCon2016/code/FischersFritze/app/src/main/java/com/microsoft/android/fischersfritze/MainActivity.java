@@ -1,16 +1,29 @@
 package com.microsoft.android.fischersfritze;
 
 import android.app.Fragment;
+import android.content.res.AssetFileDescriptor;
 import android.support.v13.app.FragmentPagerAdapter;
 import android.support.v4.view.ViewPager;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import com.microsoft.android.fischersfritze.history.Leaderboards;
+import com.microsoft.android.fischersfritze.oxford.Helper;
+import com.microsoft.android.fischersfritze.oxford.TwisterCorpus;
 import com.microsoft.android.fischersfritze.recorder.Recorder;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+
 public class MainActivity extends AppCompatActivity{
 
 
     private static final String LOG_TAG = "MainActivity";
+    private static final String CORPUS_ASSET = "twisters.ttc";
+
+    // outlives the activity, the game feeds it and the overview shows it
+    private static final Leaderboards leaderboards = new Leaderboards();
 
     private SectionsPagerAdapter sectionsPagerAdapter;
     private ViewPager viewPager;
@@ -21,9 +34,17 @@ public class MainActivity extends AppCompatActivity{
 
     @Override
     public void onCreate(Bundle icicle) {
-        super.onCreate(icicle);
+        // without twisters no fragment can work, so none is restored either
+        boolean loaded = loadTongueTwisters();
+        super.onCreate(loaded ? icicle : null);
         setContentView(R.layout.activity_main);
 
+        if (!loaded) {
+            findViewById(R.id.container).setVisibility(View.GONE);
+            findViewById(R.id.textView_corpus_error).setVisibility(View.VISIBLE);
+            return;
+        }
+
         sectionsPagerAdapter = new SectionsPagerAdapter(getFragmentManager());
         viewPager = (ViewPager) findViewById(R.id.container);
         viewPager.setAdapter(sectionsPagerAdapter);
@@ -42,6 +63,30 @@ public class MainActivity extends AppCompatActivity{
         super.onPause();
     }
 
+    public static Leaderboards getLeaderboards() {
+        return leaderboards;
+    }
+
+    private boolean loadTongueTwisters() {
+        // mapped once per process, a recreated activity reuses it
+        if (Helper.hasCorpus()) return true;
+
+        try {
+            // the asset is stored uncompressed, so it can be mapped right out of the APK
+            AssetFileDescriptor afd = getAssets().openFd(CORPUS_ASSET);
+            FileInputStream in = afd.createInputStream();
+            try {
+                Helper.setCorpus(TwisterCorpus.map(in.getChannel(), afd.getStartOffset(), afd.getLength()));
+            } finally {
+                in.close();
+            }
+            return true;
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "loading " + CORPUS_ASSET + " failed", e);
+            return false;
+        }
+    }
+
 
     /**
      * A {@link FragmentPagerAdapter} that returns a fragment corresponding to
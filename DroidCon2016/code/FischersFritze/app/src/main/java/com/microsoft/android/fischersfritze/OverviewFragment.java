@@ -6,6 +6,13 @@ import android.app.Fragment;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.TextView;
+import com.microsoft.android.fischersfritze.history.Leaderboards;
+import com.microsoft.android.fischersfritze.history.ScoreRecord;
+import com.microsoft.android.fischersfritze.metrics.Metrics;
+import com.microsoft.android.fischersfritze.oxford.Helper;
+
+import java.util.List;
 
 
 /**
@@ -13,7 +20,10 @@ import android.view.ViewGroup;
  * Use the {@link OverviewFragment#newInstance} factory method to
  * create an instance of this fragment.
  */
-public class OverviewFragment extends Fragment {
+public class OverviewFragment extends Fragment implements Leaderboards.Listener {
+
+    private TextView leaderboardText;
+    private TextView metricsText;
 
     public OverviewFragment() {
         // Required empty public constructor
@@ -33,7 +43,79 @@ public class OverviewFragment extends Fragment {
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
         // Inflate the layout for this fragment
-        return inflater.inflate(R.layout.fragment_overview, container, false);
+        View view = inflater.inflate(R.layout.fragment_overview, container, false);
+        leaderboardText = (TextView) view.findViewById(R.id.textView_leaderboard);
+        metricsText = (TextView) view.findViewById(R.id.textView_metrics);
+        return view;
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        Leaderboards leaderboards = MainActivity.getLeaderboards();
+        leaderboards.setListener(this);
+        render(leaderboards.getSnapshot());
+        metricsText.setText(Metrics.getDefault().dump());
+    }
+
+    @Override
+    public void onPause() {
+        MainActivity.getLeaderboards().setListener(null);
+        super.onPause();
+    }
+
+    @Override
+    public void onDestroyView() {
+        leaderboardText = null;
+        metricsText = null;
+        super.onDestroyView();
+    }
+
+    // called on the storage thread or the UI thread
+    @Override
+    public void onSnapshot(final Leaderboards.Snapshot snapshot) {
+        TextView view = leaderboardText;
+        if (view == null) return;
+        view.post(new Runnable() {
+            @Override
+            public void run() {
+                render(snapshot);
+            }
+        });
+    }
+
+    private void render(Leaderboards.Snapshot snapshot) {
+        if (leaderboardText == null) return;
+
+        List<String> languages = snapshot.getLanguages();
+        if (languages.isEmpty()) {
+            leaderboardText.setText(snapshot.isLoaded() ? R.string.leaderboard_empty : R.string.leaderboard_loading);
+            return;
+        }
+
+        // twister ids only, when the corpus did not load or no longer has the twister
+        boolean hasCorpus = Helper.hasCorpus();
+        StringBuilder sb = new StringBuilder();
+        for (String language : languages) {
+            sb.append(getString(R.string.leaderboard_language, language)).append('\n');
+            appendRanking(sb, snapshot.getLanguage(language));
+            sb.append('\n');
+
+            for (int twisterId : snapshot.getTwisterIds(language)) {
+                String twister = hasCorpus ? Helper.getTongueTwister(language, twisterId) : null;
+                sb.append(twister != null ? twister : "#" + twisterId).append('\n');
+                appendRanking(sb, snapshot.getTwister(language, twisterId));
+                sb.append('\n');
+            }
+        }
+        leaderboardText.setText(sb.toString());
+    }
+
+    private void appendRanking(StringBuilder sb, List<ScoreRecord> ranking) {
+        for (int i = 0; i < ranking.size(); i++) {
+            ScoreRecord record = ranking.get(i);
+            sb.append(getString(R.string.leaderboard_entry, i + 1, record.getPlayer(), record.getScore())).append('\n');
+        }
     }
 
 }
@@ -0,0 +1,143 @@
+package com.microsoft.android.fischersfritze;
+
+import android.content.Context;
+import android.util.Log;
+import com.microsoft.android.fischersfritze.archive.Attempt;
+import com.microsoft.android.fischersfritze.archive.AttemptArchive;
+import com.microsoft.android.fischersfritze.history.Leaderboards;
+import com.microsoft.android.fischersfritze.history.ScoreHistory;
+import com.microsoft.android.fischersfritze.history.ScoreRecord;
+import com.microsoft.android.fischersfritze.metrics.Metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The attempt archive and the score history, opened once per process on one storage
+ * thread. Like the leaderboards they outlive the activity: a fragment recreated on rotation
+ * gets the stores that are already open instead of opening the same directories again while
+ * the old fragment is still closing them.
+ *
+ * The stores are never closed, {@link #sync()} makes everything written so far durable.
+ */
+public final class Storage {
+    private static final String LOG_TAG = "Storage";
+    private static final String METRICS_FILE = "metrics.txt";
+
+    private static Storage instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final File filesDir;
+    // storage thread only
+    private AttemptArchive attemptArchive;
+    // storage thread only, writes on its own thread
+    private ScoreHistory scoreHistory;
+
+    private Storage(File filesDir) {
+        this.filesDir = filesDir;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                open();
+            }
+        });
+    }
+
+    public static synchronized Storage get(Context context) {
+        if (instance == null) instance = new Storage(context.getApplicationContext().getFilesDir());
+        return instance;
+    }
+
+    /**
+     * Archives an attempt in the background.
+     */
+    public void archive(final Attempt attempt) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (attemptArchive == null) return;
+                try {
+                    attemptArchive.append(attempt);
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "archiving " + attempt + " failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds a score to the leaderboards, and to the history in the background once it is open.
+     * The leaderboards keep it if they are still loading.
+     */
+    public void record(final ScoreRecord record) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (scoreHistory == null) return;
+                scoreHistory.record(record);
+            }
+        });
+        MainActivity.getLeaderboards().offer(record);
+    }
+
+    /**
+     * Syncs the archive and the history and exports the metrics, in the background.
+     */
+    public void sync() {
+        final File metricsFile = new File(filesDir, METRICS_FILE);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (attemptArchive != null) {
+                    try {
+                        attemptArchive.sync();
+                    } catch (IOException e) {
+                        Log.e(LOG_TAG, "syncing the attempt archive failed", e);
+                    }
+                }
+                if (scoreHistory != null) {
+                    try {
+                        scoreHistory.flush();
+                    } catch (IOException e) {
+                        Log.e(LOG_TAG, "syncing the score history failed", e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                try {
+                    Writer out = new OutputStreamWriter(new FileOutputStream(metricsFile), "UTF-8");
+                    try {
+                        Metrics.getDefault().dump(out);
+                    } finally {
+                        out.close();
+                    }
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "exporting metrics failed", e);
+                }
+            }
+        });
+    }
+
+    // storage thread
+    private void open() {
+        try {
+            attemptArchive = AttemptArchive.open(new File(filesDir, "attempts"));
+            Log.d(LOG_TAG, attemptArchive.size() + " attempts archived");
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "attempt archive unavailable", e);
+        }
+        try {
+            ScoreHistory history = ScoreHistory.open(new File(filesDir, "history"));
+            Log.d(LOG_TAG, history.size() + " scores in history");
+            MainActivity.getLeaderboards().load(history);
+            scoreHistory = history;
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "score history unavailable", e);
+        }
+    }
+}
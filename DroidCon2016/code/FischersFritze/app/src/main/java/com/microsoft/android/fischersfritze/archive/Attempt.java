@@ -0,0 +1,78 @@
+package com.microsoft.android.fischersfritze.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One archived attempt at a twister: what was said, how it scored and the audio.
+ */
+public final class Attempt {
+    public static final int ENCODING_NONE = 0;
+    public static final int ENCODING_PCM_16 = 1;
+    public static final int ENCODING_IMA_ADPCM = 2;
+
+    private final long timestamp;
+    private final String language;
+    private final int twisterId;
+    private final String transcript;
+    private final int score;
+    private final int encoding;
+    private final int sampleRate;
+    private final ByteBuffer audio;
+
+    public Attempt(long timestamp, String language, int twisterId, String transcript, int score,
+                   int encoding, int sampleRate, ByteBuffer audio) {
+        if(language == null) throw new IllegalArgumentException("language MUST NOT be NULL");
+
+        this.timestamp = timestamp;
+        this.language = language;
+        this.twisterId = twisterId;
+        this.transcript = transcript == null ? "" : transcript;
+        this.score = score;
+        this.encoding = audio == null ? ENCODING_NONE : encoding;
+        this.sampleRate = sampleRate;
+        this.audio = audio == null ? ByteBuffer.allocate(0) : audio.asReadOnlyBuffer();
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    /**
+     * @return stable id of the twister, see {@code TwisterCorpus.idOf}, -1 if unknown
+     */
+    public int getTwisterId() {
+        return twisterId;
+    }
+
+    public String getTranscript() {
+        return transcript;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getEncoding() {
+        return encoding;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return the audio, read only; for an archived attempt a view of the mapped segment
+     */
+    public ByteBuffer getAudio() {
+        return audio.duplicate();
+    }
+
+    @Override
+    public String toString() {
+        return language + "/" + twisterId + " " + score + " \"" + transcript + "\" (" + audio.remaining() + " bytes audio)";
+    }
+}
@@ -0,0 +1,321 @@
+package com.microsoft.android.fischersfritze.archive;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only store of every attempt, instead of one recording file that each attempt
+ * overwrites.
+ *
+ * Attempts are appended to segment files of bounded size ({@code attempts-NNNNN.seg}); a
+ * compact index ({@code attempts.idx}) holds one fixed size entry per attempt with its
+ * segment, offset and length. The index is kept in memory, the segments are read through
+ * read-only mappings, so fetching attempt n is an array lookup plus a slice of a mapping,
+ * however large the archive grows.
+ *
+ * A record is written before its index entry. If the app dies in between, the record has
+ * no entry and is cut off the next time the archive is opened.
+ *
+ * Record layout, big endian:
+ * <pre>
+ * magic 'ATT1', record length, timestamp (long), twister id, score, encoding (byte),
+ * sample rate, language (short length + UTF-8), transcript (int length + UTF-8),
+ * audio (int length + bytes), CRC32 of everything before it
+ * </pre>
+ */
+public class AttemptArchive implements Closeable {
+    public static final int DEFAULT_SEGMENT_BYTES = 8 << 20;
+
+    static final int RECORD_MAGIC = 0x41545431; // 'ATT1'
+    static final int INDEX_ENTRY_BYTES = 32;
+    private static final String INDEX_FILE = "attempts.idx";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File directory;
+    private final int segmentBytes;
+
+    // the compact index: attempt n lives in segments[n] at offsets[n]
+    private int size;
+    private int[] segments = new int[64];
+    private int[] offsets = new int[64];
+    private int[] lengths = new int[64];
+    private long[] timestamps = new long[64];
+
+    private final FileChannel indexChannel;
+    private FileChannel segmentChannel;
+    private int currentSegment;
+    private int currentSegmentSize;
+
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(16 * 1024);
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    // read-only mappings by segment, remapped when the current segment has grown past one
+    private final List<MappedByteBuffer> mappings = new ArrayList<>();
+
+    private AttemptArchive(File directory, int segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.indexChannel = new RandomAccessFile(new File(directory, INDEX_FILE), "rw").getChannel();
+        recover();
+    }
+
+    public static AttemptArchive open(File directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public static AttemptArchive open(File directory, int segmentBytes) throws IOException {
+        if(directory == null) throw new IllegalArgumentException("directory MUST NOT be NULL");
+        if(segmentBytes <= 0) throw new IllegalArgumentException("segmentBytes MUST be positive");
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("cannot create " + directory);
+
+        return new AttemptArchive(directory, segmentBytes);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return when attempt {@code index} was made, straight from the in-memory index
+     */
+    public synchronized long getTimestamp(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    /**
+     * Appends an attempt. Not synced to disk, see {@link #sync()}.
+     *
+     * @return the attempt's index
+     */
+    public synchronized int append(Attempt attempt) throws IOException {
+        if(attempt == null) throw new IllegalArgumentException("attempt MUST NOT be NULL");
+
+        ByteBuffer record = encode(attempt);
+        int length = record.remaining();
+        if (currentSegmentSize > 0 && (long) currentSegmentSize + length > segmentBytes) {
+            openSegment(currentSegment + 1, 0);
+        }
+
+        int offset = currentSegmentSize;
+        writeFully(segmentChannel, record, offset);
+        currentSegmentSize += length;
+
+        indexEntry.clear();
+        indexEntry.putInt(currentSegment).putInt(offset).putInt(length);
+        indexEntry.putInt(attempt.getTwisterId()).putInt(attempt.getScore()).putInt(0);
+        indexEntry.putLong(attempt.getTimestamp());
+        indexEntry.flip();
+        writeFully(indexChannel, indexEntry, (long) size * INDEX_ENTRY_BYTES);
+
+        addEntry(currentSegment, offset, length, attempt.getTimestamp());
+        return size - 1;
+    }
+
+    /**
+     * @return attempt {@code index}; its audio is a view of the mapped segment, no copy
+     */
+    public synchronized Attempt get(int index) throws IOException {
+        checkIndex(index);
+
+        ByteBuffer record = mapping(segments[index], offsets[index] + lengths[index]).duplicate();
+        record.limit(offsets[index] + lengths[index]);
+        record.position(offsets[index]);
+        return decode(record);
+    }
+
+    /**
+     * Forces everything appended so far to the storage device.
+     */
+    public synchronized void sync() throws IOException {
+        segmentChannel.force(false);
+        indexChannel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mappings.clear();
+        try {
+            segmentChannel.close();
+        } finally {
+            indexChannel.close();
+        }
+    }
+
+    private ByteBuffer encode(Attempt attempt) {
+        byte[] language = attempt.getLanguage().getBytes(UTF_8);
+        byte[] transcript = attempt.getTranscript().getBytes(UTF_8);
+        ByteBuffer audio = attempt.getAudio();
+        int length = 4 + 4 + 8 + 4 + 4 + 1 + 4 + 2 + language.length + 4 + transcript.length + 4 + audio.remaining() + 4;
+
+        if (writeBuffer.capacity() < length) {
+            writeBuffer = ByteBuffer.allocate(Math.max(length, writeBuffer.capacity() * 2));
+        }
+        ByteBuffer record = writeBuffer;
+        record.clear();
+        record.putInt(RECORD_MAGIC).putInt(length);
+        record.putLong(attempt.getTimestamp());
+        record.putInt(attempt.getTwisterId()).putInt(attempt.getScore());
+        record.put((byte) attempt.getEncoding()).putInt(attempt.getSampleRate());
+        record.putShort((short) language.length).put(language);
+        record.putInt(transcript.length).put(transcript);
+        record.putInt(audio.remaining()).put(audio);
+
+        crc.reset();
+        crc.update(record.array(), record.arrayOffset(), record.position());
+        record.putInt((int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static Attempt decode(ByteBuffer record) throws IOException {
+        if (record.getInt() != RECORD_MAGIC) throw new IOException("corrupt attempt record");
+        record.getInt();
+        long timestamp = record.getLong();
+        int twisterId = record.getInt();
+        int score = record.getInt();
+        int encoding = record.get();
+        int sampleRate = record.getInt();
+        String language = readString(record, record.getShort());
+        String transcript = readString(record, record.getInt());
+
+        int audioLength = record.getInt();
+        ByteBuffer audio = record.slice();
+        audio.limit(audioLength);
+
+        return new Attempt(timestamp, language, twisterId, transcript, score, encoding, sampleRate, audio);
+    }
+
+    private static String readString(ByteBuffer record, int length) {
+        ByteBuffer text = record.slice();
+        text.limit(length);
+        record.position(record.position() + length);
+        return UTF_8.decode(text).toString();
+    }
+
+    private MappedByteBuffer mapping(int segment, int end) throws IOException {
+        while (mappings.size() <= segment) mappings.add(null);
+
+        MappedByteBuffer mapped = mappings.get(segment);
+        if (mapped == null || mapped.capacity() < end) {
+            RandomAccessFile file = new RandomAccessFile(segmentFile(segment), "r");
+            try {
+                // the mapping stays valid after the file is closed
+                mapped = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            } finally {
+                file.close();
+            }
+            mappings.set(segment, mapped);
+        }
+        return mapped;
+    }
+
+    // loads the index and cuts off whatever a crash left half written
+    private void recover() throws IOException {
+        long entries = indexChannel.size() / INDEX_ENTRY_BYTES;
+        ByteBuffer index = ByteBuffer.allocate((int) (entries * INDEX_ENTRY_BYTES));
+        while (index.hasRemaining() && indexChannel.read(index, index.position()) >= 0) {
+            // fill the index
+        }
+        index.flip();
+
+        long[] segmentLengths = new long[0];
+        while (index.remaining() >= INDEX_ENTRY_BYTES) {
+            int segment = index.getInt();
+            int offset = index.getInt();
+            int length = index.getInt();
+            index.position(index.position() + 12);
+            long timestamp = index.getLong();
+
+            if (segment >= segmentLengths.length) {
+                int from = segmentLengths.length;
+                segmentLengths = Arrays.copyOf(segmentLengths, segment + 1);
+                for (int s = from; s <= segment; s++) segmentLengths[s] = segmentFile(s).length();
+            }
+            if (segment < currentSegment || (long) offset + length > segmentLengths[segment]) break;
+
+            currentSegment = segment;
+            addEntry(segment, offset, length, timestamp);
+        }
+
+        // the length fits, but without a sync the tail may not have made it to disk
+        while (size > 0 && !isIntact(size - 1)) size--;
+
+        indexChannel.truncate((long) size * INDEX_ENTRY_BYTES);
+        int end = size == 0 ? 0 : offsets[size - 1] + lengths[size - 1];
+        openSegment(currentSegment, end);
+
+        // segments past the last indexed record only hold records that never got an entry
+        for (int s = currentSegment + 1; segmentFile(s).exists(); s++) {
+            if (!segmentFile(s).delete()) throw new IOException("cannot delete " + segmentFile(s));
+        }
+    }
+
+    private boolean isIntact(int index) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(lengths[index]);
+        RandomAccessFile file = new RandomAccessFile(segmentFile(segments[index]), "r");
+        try {
+            FileChannel channel = file.getChannel();
+            while (record.hasRemaining() && channel.read(record, offsets[index] + record.position()) >= 0) {
+                // fill the record
+            }
+        } finally {
+            file.close();
+        }
+
+        if (record.position() < 8 || record.getInt(0) != RECORD_MAGIC || record.getInt(4) != lengths[index]) return false;
+        crc.reset();
+        crc.update(record.array(), 0, lengths[index] - 4);
+        return record.getInt(lengths[index] - 4) == (int) crc.getValue();
+    }
+
+    private void openSegment(int segment, int size) throws IOException {
+        if (segmentChannel != null) segmentChannel.close();
+
+        segmentChannel = new RandomAccessFile(segmentFile(segment), "rw").getChannel();
+        segmentChannel.truncate(size);
+        currentSegment = segment;
+        currentSegmentSize = size;
+    }
+
+    private File segmentFile(int segment) {
+        return new File(directory, String.format(Locale.US, "attempts-%05d.seg", segment));
+    }
+
+    private void addEntry(int segment, int offset, int length, long timestamp) {
+        if (size == segments.length) {
+            int capacity = size * 2;
+            segments = Arrays.copyOf(segments, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+        segments[size] = segment;
+        offsets[size] = offset;
+        lengths[size] = length;
+        timestamps[size] = timestamp;
+        size++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("attempt " + index + " of " + size);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.microsoft.android.fischersfritze.game;
+
+import com.microsoft.android.fischersfritze.oxford.Helper;
+import com.microsoft.android.fischersfritze.oxford.IncrementalLevenshtein;
+import com.microsoft.android.fischersfritze.oxford.NormalizedText;
+import com.microsoft.android.fischersfritze.oxford.ReferenceProfile;
+import com.microsoft.android.fischersfritze.oxford.TwisterCorpus;
+import com.microsoft.android.fischersfritze.oxford.TwisterScheduler;
+
+import java.util.List;
+
+/**
+ * UI-free state of a game: the current twister, whether we are recording, and the scoring
+ * of whatever the {@link Recognizer} reports. GameFragment only renders what a session tells
+ * its {@link Listener}; the replay driver runs the very same code without a device.
+ *
+ * Not thread-safe: calls and recognizer events must come from one thread at a time.
+ * With a {@link ScoringPipeline} final results are scored on its worker and reach the
+ * listener on the pipeline's delivery executor; without one they are scored right away.
+ */
+public class GameSession implements Recognizer.Listener {
+
+    public enum State { Idle, Recording }
+
+    public static final String TIMER_SCORING = "round.scoring";
+    public static final String TIMER_SCORED = "round.scored";
+
+    public interface Listener {
+        void onStateChanged(State state);
+
+        void onLiveScore(String partial, int distance);
+
+        void onRoundScored(RoundResult result);
+
+        /**
+         * The final result of a round could not be scored; no {@link #onRoundScored} follows.
+         */
+        void onScoringFailed(String twister, RuntimeException error);
+
+        void onError(int errorCode, String text);
+
+        void onAudioEvent(boolean recording);
+    }
+
+    private final Recognizer recognizer;
+    private Listener listener;
+
+    private String language;
+    private boolean longDictation;
+    private TwisterScheduler.Mode twisterOrder = TwisterScheduler.Mode.Shuffle;
+
+    private State state = State.Idle;
+    private String twister = "";
+    private int twisterId = TwisterCorpus.NO_ID;
+    private ReferenceProfile profile;
+    private ScoringPipeline pipeline;
+    private IncrementalLevenshtein liveScorer;
+    // partials are normalized into this buffer before they are scored
+    private final NormalizedText partialText = new NormalizedText();
+    private long roundStartNanos;
+
+    public GameSession(Recognizer recognizer, String language) {
+        if(recognizer == null) throw new IllegalArgumentException("recognizer MUST NOT be NULL");
+
+        this.recognizer = recognizer;
+        this.language = language;
+        recognizer.setListener(this);
+        setTwister("");
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        if (language == null ? this.language == null : language.equals(this.language)) return;
+
+        this.language = language;
+        // the profile folds and tokenizes per language
+        setTwister(twister, twisterId);
+    }
+
+    public boolean isLongDictation() {
+        return longDictation;
+    }
+
+    public void setLongDictation(boolean longDictation) {
+        this.longDictation = longDictation;
+    }
+
+    public TwisterScheduler.Mode getTwisterOrder() {
+        return twisterOrder;
+    }
+
+    /**
+     * @param twisterOrder how {@link #newRound()} picks the next twister
+     */
+    public void setTwisterOrder(TwisterScheduler.Mode twisterOrder) {
+        if(twisterOrder == null) throw new IllegalArgumentException("twisterOrder MUST NOT be NULL");
+
+        this.twisterOrder = twisterOrder;
+    }
+
+    public void setScoringPipeline(ScoringPipeline pipeline) {
+        this.pipeline = pipeline;
+        if (pipeline == null) return;
+
+        pipeline.setListener(new ScoringPipeline.Listener() {
+            @Override
+            public void onScored(List<RoundResult> results) {
+                for (RoundResult result : results) {
+                    if (listener != null) listener.onRoundScored(result);
+                }
+            }
+
+            @Override
+            public void onFailed(ScoringJob job, RuntimeException error) {
+                if (listener != null) listener.onScoringFailed(job.getTwister(), error);
+            }
+        });
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isRecording() {
+        return state == State.Recording;
+    }
+
+    public String getTwister() {
+        return twister;
+    }
+
+    /**
+     * @return stable id of the twister in the corpus, {@link TwisterCorpus#NO_ID} if it was set
+     *         without one
+     */
+    public int getTwisterId() {
+        return twisterId;
+    }
+
+    /**
+     * Starts a new round with the next twister in the session's language.
+     */
+    public String newRound() {
+        int id = Helper.nextTongueTwisterId(language, twisterOrder);
+        setTwister(Helper.getTongueTwister(language, id), id);
+        return twister;
+    }
+
+    public void setTwister(String twister) {
+        setTwister(twister, TwisterCorpus.NO_ID);
+    }
+
+    /**
+     * Until a language is set the twister has no profile, and recognizer results are not scored.
+     *
+     * @param twisterId stable id of the twister in the corpus, stored with its scores
+     */
+    public void setTwister(String twister, int twisterId) {
+        if(twister == null) throw new IllegalArgumentException("twister MUST NOT be NULL");
+
+        this.twister = twister;
+        this.twisterId = twisterId;
+        if (language == null) {
+            this.profile = null;
+            this.liveScorer = null;
+            return;
+        }
+
+        // warms the profile cache, every attempt on this twister reuses the profile
+        this.profile = Helper.getReferenceProfile(language, twister);
+        this.liveScorer = new IncrementalLevenshtein(profile.getNormalized());
+    }
+
+    public void startRecording() {
+        if (state == State.Recording) return;
+
+        if (liveScorer != null) liveScorer.reset();
+        roundStartNanos = System.nanoTime();
+        setState(State.Recording);
+        recognizer.start();
+    }
+
+    public void stopRecording() {
+        recognizer.stop();
+        setState(State.Idle);
+    }
+
+    /**
+     * Forgets the current round, e.g. before the next twister is drawn.
+     */
+    public void clear() {
+        setTwister("");
+    }
+
+    @Override
+    public void onPartialResult(String text) {
+        if (profile == null) return;
+
+        // only the text after the prefix shared with the previous partial is scored
+        int distance = liveScorer.update(profile.getNormalizer().normalize(text, partialText));
+        if (listener != null) listener.onLiveScore(text, distance);
+    }
+
+    @Override
+    public void onFinalResult(Hypothesis[] nBest) {
+        if (!longDictation) {
+            recognizer.stop();
+        }
+        if (nBest.length == 0 || profile == null) {
+            return;
+        }
+
+        ScoringJob job = new ScoringJob(language, twister, twisterId, profile, nBest, roundStartNanos);
+        if (pipeline != null) {
+            pipeline.submit(job);
+            return;
+        }
+
+        RoundResult result;
+        try {
+            result = job.score();
+        } catch (RuntimeException e) {
+            if (listener != null) listener.onScoringFailed(twister, e);
+            return;
+        }
+        if (listener != null) listener.onRoundScored(result);
+    }
+
+    @Override
+    public void onEndOfDictation() {
+        recognizer.stop();
+        setState(State.Idle);
+    }
+
+    @Override
+    public void onError(int errorCode, String text) {
+        setState(State.Idle);
+        if (listener != null) listener.onError(errorCode, text);
+    }
+
+    @Override
+    public void onAudioEvent(boolean recording) {
+        if (listener != null) listener.onAudioEvent(recording);
+        if (!recording) {
+            stopRecording();
+        }
+    }
+
+    private void setState(State newState) {
+        if (state == newState) return;
+
+        state = newState;
+        if (listener != null) listener.onStateChanged(newState);
+    }
+}
@@ -0,0 +1,22 @@
+package com.microsoft.android.fischersfritze.game;
+
+/**
+ * One entry of a recognizer's n-best list.
+ */
+public final class Hypothesis {
+    private final String text;
+    private final String confidence;
+
+    public Hypothesis(String text, String confidence) {
+        this.text = text == null ? "" : text;
+        this.confidence = confidence;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getConfidence() {
+        return confidence;
+    }
+}
@@ -0,0 +1,30 @@
+package com.microsoft.android.fischersfritze.game;
+
+/**
+ * Speech recognizer as seen by a {@link GameSession}: the cloud service on a device,
+ * or a {@link ReplayRecognizer} feeding recorded events on a plain JVM.
+ */
+public interface Recognizer {
+
+    interface Listener {
+        void onPartialResult(String text);
+
+        /**
+         * An n-best list for the utterance so far. Short phrases end with it, long
+         * dictation may deliver several before {@link #onEndOfDictation()}.
+         */
+        void onFinalResult(Hypothesis[] nBest);
+
+        void onEndOfDictation();
+
+        void onError(int errorCode, String text);
+
+        void onAudioEvent(boolean recording);
+    }
+
+    void setListener(Listener listener);
+
+    void start();
+
+    void stop();
+}
@@ -0,0 +1,67 @@
+package com.microsoft.android.fischersfritze.game;
+
+/**
+ * One recorded recognizer event, see {@link ReplayRecognizer}.
+ */
+public final class ReplayEvent {
+
+    public enum Type { Partial, Final, EndOfDictation, Error, Audio }
+
+    private final Type type;
+    private final String text;
+    private final Hypothesis[] nBest;
+    private final int errorCode;
+    private final boolean recording;
+
+    private ReplayEvent(Type type, String text, Hypothesis[] nBest, int errorCode, boolean recording) {
+        this.type = type;
+        this.text = text;
+        this.nBest = nBest;
+        this.errorCode = errorCode;
+        this.recording = recording;
+    }
+
+    public static ReplayEvent partial(String text) {
+        return new ReplayEvent(Type.Partial, text, null, 0, false);
+    }
+
+    public static ReplayEvent finalResult(Hypothesis... nBest) {
+        return new ReplayEvent(Type.Final, null, nBest, 0, false);
+    }
+
+    public static ReplayEvent endOfDictation() {
+        return new ReplayEvent(Type.EndOfDictation, null, null, 0, false);
+    }
+
+    public static ReplayEvent error(int errorCode, String text) {
+        return new ReplayEvent(Type.Error, text, null, errorCode, false);
+    }
+
+    public static ReplayEvent audio(boolean recording) {
+        return new ReplayEvent(Type.Audio, null, null, 0, recording);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    void deliver(Recognizer.Listener listener) {
+        switch (type) {
+            case Partial:
+                listener.onPartialResult(text);
+                break;
+            case Final:
+                listener.onFinalResult(nBest);
+                break;
+            case EndOfDictation:
+                listener.onEndOfDictation();
+                break;
+            case Error:
+                listener.onError(errorCode, text);
+                break;
+            case Audio:
+                listener.onAudioEvent(recording);
+                break;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.microsoft.android.fischersfritze.game;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local recognizer that replays a recorded {@link ReplayScript} whenever it is started.
+ *
+ * With an interval of zero the whole script is delivered synchronously from
+ * {@link #start()}, which is what the load test uses to push thousands of rounds per
+ * second through a {@link GameSession}. With a positive interval the events are paced on
+ * the given executor, one event per interval, like a live recognizer would.
+ *
+ * {@link #stop()} behaves like ending the microphone on the real client: no more partial
+ * results, but the final result, audio and error events still to come are delivered.
+ */
+public class ReplayRecognizer implements Recognizer {
+    private final ScheduledExecutorService executor;
+    private final long intervalNanos;
+
+    private volatile ReplayScript script;
+    private volatile Listener listener;
+    private volatile boolean running;
+    private volatile boolean micOpen;
+    private ScheduledFuture<?> pacing;
+
+    public ReplayRecognizer(ReplayScript script) {
+        this(script, null, 0);
+    }
+
+    public ReplayRecognizer(ReplayScript script, ScheduledExecutorService executor, long intervalNanos) {
+        if(script == null) throw new IllegalArgumentException("script MUST NOT be NULL");
+        if(intervalNanos > 0 && executor == null) throw new IllegalArgumentException("executor MUST NOT be NULL for paced replay");
+
+        this.script = script;
+        this.executor = executor;
+        this.intervalNanos = intervalNanos;
+    }
+
+    public void setScript(ReplayScript script) {
+        if(script == null) throw new IllegalArgumentException("script MUST NOT be NULL");
+        this.script = script;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void start() {
+        final List<ReplayEvent> events;
+        synchronized (this) {
+            if (running) return;
+            running = true;
+            micOpen = true;
+            events = script.getEvents();
+        }
+
+        if (intervalNanos <= 0) {
+            for (ReplayEvent event : events) {
+                deliver(event);
+            }
+            finished();
+            return;
+        }
+
+        synchronized (this) {
+            pacing = executor.scheduleAtFixedRate(new Runnable() {
+                private int next;
+
+                @Override
+                public void run() {
+                    if (next >= events.size()) {
+                        finished();
+                        return;
+                    }
+                    ReplayEvent event = events.get(next++);
+                    // the last event may already trigger the next start()
+                    if (next == events.size()) finished();
+                    deliver(event);
+                }
+            }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        micOpen = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private synchronized void finished() {
+        running = false;
+        if (pacing != null) {
+            pacing.cancel(false);
+            pacing = null;
+        }
+    }
+
+    private void deliver(ReplayEvent event) {
+        if (!micOpen && event.getType() == ReplayEvent.Type.Partial) return;
+
+        Listener current = listener;
+        if (current != null) event.deliver(current);
+    }
+}
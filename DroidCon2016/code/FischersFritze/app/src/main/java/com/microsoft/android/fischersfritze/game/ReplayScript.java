@@ -0,0 +1,80 @@
+package com.microsoft.android.fischersfritze.game;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A recorded recognizer event stream, one event per line:
+ * <pre>
+ * A 1                      audio event, recording on (1) or off (0)
+ * P how can a clam         partial result
+ * F text|text|...          final n-best list
+ * D                        end of dictation
+ * E &lt;code&gt; &lt;text&gt;          error
+ * </pre>
+ * Blank lines and lines starting with '#' are skipped.
+ */
+public final class ReplayScript {
+    private final List<ReplayEvent> events;
+
+    public ReplayScript(List<ReplayEvent> events) {
+        this.events = Collections.unmodifiableList(new ArrayList<>(events));
+    }
+
+    public List<ReplayEvent> getEvents() {
+        return events;
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    public static ReplayScript parse(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        List<ReplayEvent> events = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) continue;
+
+            String payload = line.length() > 2 ? line.substring(2) : "";
+            switch (line.charAt(0)) {
+                case 'A':
+                    events.add(ReplayEvent.audio("1".equals(payload.trim())));
+                    break;
+                case 'P':
+                    events.add(ReplayEvent.partial(payload));
+                    break;
+                case 'F':
+                    String[] texts = payload.split("\\|", -1);
+                    Hypothesis[] nBest = new Hypothesis[texts.length];
+                    for (int i = 0; i < texts.length; i++) {
+                        nBest[i] = new Hypothesis(texts[i], null);
+                    }
+                    events.add(ReplayEvent.finalResult(nBest));
+                    break;
+                case 'D':
+                    events.add(ReplayEvent.endOfDictation());
+                    break;
+                case 'E':
+                    int space = payload.indexOf(' ');
+                    String code = space < 0 ? payload : payload.substring(0, space);
+                    String text = space < 0 ? "" : payload.substring(space + 1);
+                    try {
+                        events.add(ReplayEvent.error(Integer.parseInt(code.trim()), text));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("line " + lineNumber + ": bad error code " + code);
+                    }
+                    break;
+                default:
+                    throw new IOException("line " + lineNumber + ": unknown event " + line.charAt(0));
+            }
+        }
+        return new ReplayScript(events);
+    }
+}
@@ -0,0 +1,127 @@
+package com.microsoft.android.fischersfritze.game;
+
+import com.microsoft.android.fischersfritze.oxford.NBestScore;
+import com.microsoft.android.fischersfritze.oxford.WordAlignment;
+import com.microsoft.android.fischersfritze.oxford.WordScore;
+
+/**
+ * Scored n-best list of one attempt at a twister.
+ */
+public final class RoundResult {
+    private final String language;
+    private final String twister;
+    private final int twisterId;
+    private final Hypothesis[] nBest;
+    private final NBestScore distances;
+    private final WordScore[] wordScores;
+    private final int[] phoneticDistances;
+    private final WordAlignment alignment;
+    private final long latencyNanos;
+    private final long scoredAtNanos = System.nanoTime();
+
+    RoundResult(String language, String twister, int twisterId, Hypothesis[] nBest, NBestScore distances, WordScore[] wordScores,
+                int[] phoneticDistances, WordAlignment alignment, long latencyNanos) {
+        this.language = language;
+        this.twister = twister;
+        this.twisterId = twisterId;
+        this.nBest = nBest;
+        this.distances = distances;
+        this.wordScores = wordScores;
+        this.phoneticDistances = phoneticDistances;
+        this.alignment = alignment;
+        this.latencyNanos = latencyNanos;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public String getTwister() {
+        return twister;
+    }
+
+    /**
+     * @return stable id of the twister in the corpus, see
+     *         {@link com.microsoft.android.fischersfritze.oxford.TwisterCorpus#idOf(String)}
+     */
+    public int getTwisterId() {
+        return twisterId;
+    }
+
+    public int size() {
+        return nBest.length;
+    }
+
+    public Hypothesis getHypothesis(int index) {
+        return nBest[index];
+    }
+
+    public int getDistance(int index) {
+        return distances.getDistance(index);
+    }
+
+    /**
+     * @return whether {@link #getDistance(int)} is exact rather than a lower bound, see {@link NBestScore#isExact(int)}
+     */
+    public boolean isExactDistance(int index) {
+        return distances.isExact(index);
+    }
+
+    public WordScore getWordScore(int index) {
+        return wordScores[index];
+    }
+
+    /**
+     * @return edit distance between the phonetic codes, blind to spellings that sound alike
+     */
+    public int getPhoneticDistance(int index) {
+        return phoneticDistances[index];
+    }
+
+    /**
+     * @return word diff of the recognizer's top candidate against the twister
+     */
+    public WordAlignment getAlignment() {
+        return alignment;
+    }
+
+    public int getBestIndex() {
+        return distances.getBestIndex();
+    }
+
+    public Hypothesis getBestMatch() {
+        return nBest[distances.getBestIndex()];
+    }
+
+    public int getBestDistance() {
+        return distances.getBestDistance();
+    }
+
+    /**
+     * @return the player's score, taken from the recognizer's top candidate
+     */
+    public int getScore() {
+        return 100 - distances.getDistance(0);
+    }
+
+    /**
+     * @return the score on sound alone, from the recognizer's top candidate
+     */
+    public int getPhoneticScore() {
+        return 100 - phoneticDistances[0];
+    }
+
+    /**
+     * @return time from starting the recording until this result was scored
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @return when this result was scored, a {@link System#nanoTime()} value
+     */
+    public long getScoredAtNanos() {
+        return scoredAtNanos;
+    }
+}
@@ -0,0 +1,72 @@
+package com.microsoft.android.fischersfritze.game;
+
+import com.microsoft.android.fischersfritze.metrics.Metrics;
+import com.microsoft.android.fischersfritze.oxford.NBestScore;
+import com.microsoft.android.fischersfritze.oxford.NBestScorer;
+import com.microsoft.android.fischersfritze.oxford.ReferenceProfile;
+import com.microsoft.android.fischersfritze.oxford.WordAlignment;
+import com.microsoft.android.fischersfritze.oxford.WordScore;
+
+/**
+ * An n-best list waiting to be scored, with everything scoring needs. Immutable, so it can
+ * be handed from the recognizer's thread to a {@link ScoringPipeline} worker; the profile
+ * it scores against is immutable too.
+ */
+public final class ScoringJob {
+    private final String language;
+    private final String twister;
+    private final int twisterId;
+    private final ReferenceProfile profile;
+    private final Hypothesis[] nBest;
+    private final long roundStartNanos;
+    private final long createdNanos = System.nanoTime();
+
+    public ScoringJob(String language, String twister, int twisterId, ReferenceProfile profile, Hypothesis[] nBest,
+                      long roundStartNanos) {
+        if(profile == null) throw new IllegalArgumentException("profile MUST NOT be NULL");
+        if(nBest == null) throw new IllegalArgumentException("nBest MUST NOT be NULL");
+
+        this.language = language;
+        this.twister = twister;
+        this.twisterId = twisterId;
+        this.profile = profile;
+        this.nBest = nBest.clone();
+        this.roundStartNanos = roundStartNanos;
+    }
+
+    public String getTwister() {
+        return twister;
+    }
+
+    /**
+     * @return when the job was created, a {@link System#nanoTime()} value
+     */
+    public long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    public RoundResult score() {
+        long start = System.nanoTime();
+        String[] texts = new String[nBest.length];
+        for (int i = 0; i < nBest.length; i++) {
+            texts[i] = nBest[i].getText();
+        }
+
+        // the reference is preprocessed once and shared by all candidates
+        NBestScore distances = new NBestScorer(profile).score(texts);
+        WordScore[] wordScores = new WordScore[nBest.length];
+        int[] phoneticDistances = new int[nBest.length];
+        for (int i = 0; i < nBest.length; i++) {
+            wordScores[i] = profile.getWordScorer().score(texts[i]);
+            phoneticDistances[i] = profile.getPhoneticScorer().distance(texts[i]);
+        }
+        // the score is taken from the top candidate, so that is the one the player sees diffed
+        WordAlignment alignment = WordAlignment.align(profile, texts[0]);
+
+        long end = System.nanoTime();
+        Metrics metrics = Metrics.getDefault();
+        metrics.timer(GameSession.TIMER_SCORING).record(end - start);
+        metrics.timer(GameSession.TIMER_SCORED).record(end - roundStartNanos);
+        return new RoundResult(language, twister, twisterId, nBest, distances, wordScores, phoneticDistances, alignment, end - roundStartNanos);
+    }
+}
@@ -0,0 +1,215 @@
+package com.microsoft.android.fischersfritze.game;
+
+import com.microsoft.android.fischersfritze.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scores n-best lists on a worker thread of its own, so the recognizer's callback only
+ * enqueues a {@link ScoringJob} and returns.
+ *
+ * Jobs wait in a bounded queue. When results come in faster than they are scored, the
+ * oldest waiting job is dropped: a newer n-best list supersedes it, and the recognizer's
+ * thread never blocks. Scored results are first handed to the {@link Formatter} on the
+ * worker, then collected and delivered to the {@link Listener} through the delivery
+ * executor, as many as have piled up per call, so a burst costs the UI one task. A job
+ * whose scoring or formatting throws is reported to the listener on the delivery executor
+ * as well, so a round never goes unanswered.
+ *
+ * Queue depth, its high-water mark and drops are counted here and in
+ * {@link Metrics#getDefault()}, together with the time jobs spend waiting.
+ */
+public class ScoringPipeline {
+    public static final int DEFAULT_CAPACITY = 8;
+
+    public static final String TIMER_QUEUE_WAIT = "scoring.queueWait";
+    public static final String COUNTER_DROPPED = "scoring.dropped";
+    public static final String COUNTER_FAILED = "scoring.failed";
+    public static final String COUNTER_HIGH_WATER = "scoring.queue.highWater";
+
+    public interface Listener {
+        /**
+         * Called on the delivery executor with every result scored since the last call.
+         */
+        void onScored(List<RoundResult> results);
+
+        /**
+         * Called on the delivery executor for a job whose scoring or formatting threw.
+         */
+        void onFailed(ScoringJob job, RuntimeException error);
+    }
+
+    /**
+     * Runs on the worker for every result, before it is delivered. For slow work that
+     * needs no views, like building the text shown for a result.
+     */
+    public interface Formatter {
+        void format(RoundResult result);
+    }
+
+    private final BlockingQueue<ScoringJob> queue;
+    private final Executor delivery;
+    private final Thread worker;
+    private final Metrics metrics = Metrics.getDefault();
+
+    private final ConcurrentLinkedQueue<RoundResult> scored = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    private volatile Listener listener;
+    private volatile Formatter formatter;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong highWater = new AtomicLong();
+
+    private final Runnable deliver = new Runnable() {
+        @Override
+        public void run() {
+            // cleared before draining, so results scored from here on schedule another run
+            deliveryScheduled.set(false);
+
+            List<RoundResult> batch = new ArrayList<>();
+            RoundResult result;
+            while ((result = scored.poll()) != null) {
+                batch.add(result);
+            }
+            if (batch.isEmpty()) return;
+
+            delivered.addAndGet(batch.size());
+            Listener current = listener;
+            if (current != null) current.onScored(batch);
+        }
+    };
+
+    public ScoringPipeline(Executor delivery) {
+        this(DEFAULT_CAPACITY, delivery);
+    }
+
+    public ScoringPipeline(int capacity, Executor delivery) {
+        if(capacity <= 0) throw new IllegalArgumentException("capacity MUST be positive");
+        if(delivery == null) throw new IllegalArgumentException("delivery MUST NOT be NULL");
+
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.delivery = delivery;
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        }, "scoring");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setFormatter(Formatter formatter) {
+        this.formatter = formatter;
+    }
+
+    /**
+     * Enqueues a job, dropping the oldest waiting one if the queue is full. Never blocks.
+     */
+    public void submit(ScoringJob job) {
+        if(job == null) throw new IllegalArgumentException("job MUST NOT be NULL");
+
+        submitted.incrementAndGet();
+        while (!queue.offer(job)) {
+            if (queue.poll() != null) {
+                dropped.incrementAndGet();
+                metrics.increment(COUNTER_DROPPED);
+            }
+        }
+
+        int depth = queue.size();
+        raise(highWater, depth);
+        raise(metrics.counter(COUNTER_HIGH_WATER), depth);
+    }
+
+    /**
+     * Stops the worker; jobs still waiting are discarded.
+     */
+    public void shutdown() {
+        worker.interrupt();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getHighWaterMark() {
+        return highWater.get();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    private void fail(final ScoringJob job, final RuntimeException error) {
+        failed.incrementAndGet();
+        metrics.increment(COUNTER_FAILED);
+        delivery.execute(new Runnable() {
+            @Override
+            public void run() {
+                Listener current = listener;
+                if (current != null) current.onFailed(job, error);
+            }
+        });
+    }
+
+    private static void raise(AtomicLong mark, long value) {
+        long current = mark.get();
+        while (value > current && !mark.compareAndSet(current, value)) {
+            current = mark.get();
+        }
+    }
+
+    private void work() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ScoringJob job = queue.take();
+                metrics.recordSince(TIMER_QUEUE_WAIT, job.getCreatedNanos());
+
+                RoundResult result;
+                try {
+                    result = job.score();
+                    Formatter current = formatter;
+                    if (current != null) current.format(result);
+                } catch (RuntimeException e) {
+                    // a bad result must not take the worker down with it
+                    fail(job, e);
+                    continue;
+                }
+
+                scored.add(result);
+                if (deliveryScheduled.compareAndSet(false, true)) {
+                    delivery.execute(deliver);
+                }
+            }
+        } catch (InterruptedException e) {
+            // shut down
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.microsoft.android.fischersfritze.history;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Top {@code k} players per language and per twister, kept up to date score by score.
+ *
+ * Every board is a sorted set bounded to {@code k} entries plus a map from player to their
+ * entry, so a player shows up once with their best score and a new score costs O(log k):
+ * it replaces the player's entry, evicts the last one or is ignored. Feeding the same
+ * record twice changes nothing.
+ *
+ * Readers never see the boards themselves. After each change an immutable {@link Snapshot}
+ * is published. Its rankings live in {@link PersistentMap}s, so a new snapshot copies the
+ * boards that changed and a few trie nodes, and shares everything else with the previous one.
+ * {@link #getSnapshot()} is a volatile read and the UI never ranks anything.
+ */
+public class Leaderboards {
+    public static final int DEFAULT_SIZE = 10;
+
+    public interface Listener {
+        /**
+         * Called on the thread that changed the boards.
+         */
+        void onSnapshot(Snapshot snapshot);
+    }
+
+    // best first: higher score, then whoever got there first
+    static final Comparator<ScoreRecord> RANKING = new Comparator<ScoreRecord>() {
+        @Override
+        public int compare(ScoreRecord a, ScoreRecord b) {
+            if (a.getScore() != b.getScore()) return a.getScore() > b.getScore() ? -1 : 1;
+            if (a.getTimestamp() != b.getTimestamp()) return a.getTimestamp() < b.getTimestamp() ? -1 : 1;
+            return a.getPlayer().compareTo(b.getPlayer());
+        }
+    };
+
+    private final int size;
+    private final Map<String, Board> byLanguage = new HashMap<>();
+    private final Map<String, Board> byTwister = new HashMap<>();
+    // boards changed since the last snapshot
+    private final List<Board> dirtyLanguages = new ArrayList<>();
+    private final List<Board> dirtyTwisters = new ArrayList<>();
+    private volatile Snapshot snapshot = new Snapshot(PersistentMap.<String, List<ScoreRecord>>empty(),
+            PersistentMap.<String, List<ScoreRecord>>empty(), false);
+    private volatile Listener listener;
+
+    public Leaderboards() {
+        this(DEFAULT_SIZE);
+    }
+
+    public Leaderboards(int size) {
+        if(size <= 0) throw new IllegalArgumentException("size MUST be positive");
+
+        this.size = size;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Adds a new score and publishes a snapshot if any board changed.
+     */
+    public void offer(ScoreRecord record) {
+        if(record == null) throw new IllegalArgumentException("record MUST NOT be NULL");
+
+        Snapshot published;
+        synchronized (this) {
+            boolean changed = offerToBoards(record);
+            if (!changed) return;
+            published = publish(snapshot.isLoaded());
+        }
+        notifyListener(published);
+    }
+
+    /**
+     * Fills the boards from the whole history, one snapshot at the end. Scores offered in
+     * the meantime are kept.
+     */
+    public void load(ScoreHistory history) {
+        if(history == null) throw new IllegalArgumentException("history MUST NOT be NULL");
+
+        final List<ScoreRecord> records = new ArrayList<>();
+        history.scan(new ScoreHistory.Visitor() {
+            @Override
+            public void visit(ScoreRecord record) {
+                records.add(record);
+            }
+        });
+
+        Snapshot published;
+        synchronized (this) {
+            for (ScoreRecord record : records) {
+                offerToBoards(record);
+            }
+            published = publish(true);
+        }
+        notifyListener(published);
+    }
+
+    static String twisterKey(String language, int twisterId) {
+        return language + "/" + twisterId;
+    }
+
+    private boolean offerToBoards(ScoreRecord record) {
+        boolean language = offer(byLanguage, dirtyLanguages, record.getLanguage(), record);
+        boolean twister = offer(byTwister, dirtyTwisters, twisterKey(record.getLanguage(), record.getTwisterId()), record);
+        return language || twister;
+    }
+
+    private boolean offer(Map<String, Board> boards, List<Board> dirty, String key, ScoreRecord record) {
+        Board board = boards.get(key);
+        if (board == null) {
+            board = new Board(key, size);
+            boards.put(key, board);
+        }
+        if (!board.offer(record)) return false;
+
+        if (!board.dirty) {
+            board.dirty = true;
+            dirty.add(board);
+        }
+        return true;
+    }
+
+    // only the dirty boards are listed again, the rest is shared with the previous snapshot
+    private Snapshot publish(boolean loaded) {
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(rankings(previous.byLanguage, dirtyLanguages), rankings(previous.byTwister, dirtyTwisters), loaded);
+        return snapshot;
+    }
+
+    private static PersistentMap<String, List<ScoreRecord>> rankings(PersistentMap<String, List<ScoreRecord>> previous,
+                                                                     List<Board> dirty) {
+        PersistentMap<String, List<ScoreRecord>> rankings = previous;
+        for (Board board : dirty) {
+            rankings = rankings.put(board.key, Collections.unmodifiableList(new ArrayList<>(board.ranked)));
+            board.dirty = false;
+        }
+        dirty.clear();
+        return rankings;
+    }
+
+    private void notifyListener(Snapshot published) {
+        Listener listener = this.listener;
+        if (listener != null) listener.onSnapshot(published);
+    }
+
+    /**
+     * One bounded top-k board.
+     */
+    private static final class Board {
+        final String key;
+        final int size;
+        final TreeSet<ScoreRecord> ranked = new TreeSet<>(RANKING);
+        final Map<String, ScoreRecord> byPlayer = new HashMap<>();
+        boolean dirty;
+
+        Board(String key, int size) {
+            this.key = key;
+            this.size = size;
+        }
+
+        boolean offer(ScoreRecord record) {
+            ScoreRecord previous = byPlayer.get(record.getPlayer());
+            if (previous != null) {
+                if (RANKING.compare(record, previous) >= 0) return false;
+                ranked.remove(previous);
+            } else if (ranked.size() >= size) {
+                // a player who dropped off the board scored less than the last entry, so
+                // only scores beating the last entry matter
+                ScoreRecord last = ranked.last();
+                if (RANKING.compare(record, last) >= 0) return false;
+                ranked.pollLast();
+                byPlayer.remove(last.getPlayer());
+            }
+
+            ranked.add(record);
+            byPlayer.put(record.getPlayer(), record);
+            return true;
+        }
+    }
+
+    /**
+     * Immutable rankings, best first.
+     */
+    public static final class Snapshot {
+        private final PersistentMap<String, List<ScoreRecord>> byLanguage;
+        private final PersistentMap<String, List<ScoreRecord>> byTwister;
+        private final boolean loaded;
+
+        Snapshot(PersistentMap<String, List<ScoreRecord>> byLanguage, PersistentMap<String, List<ScoreRecord>> byTwister,
+                 boolean loaded) {
+            this.byLanguage = byLanguage;
+            this.byTwister = byTwister;
+            this.loaded = loaded;
+        }
+
+        /**
+         * @return whether the history has been read, before that only new scores are in
+         */
+        public boolean isLoaded() {
+            return loaded;
+        }
+
+        public List<String> getLanguages() {
+            List<String> languages = byLanguage.keys();
+            Collections.sort(languages);
+            return languages;
+        }
+
+        public List<ScoreRecord> getLanguage(String language) {
+            List<ScoreRecord> ranking = byLanguage.get(language);
+            return ranking != null ? ranking : Collections.<ScoreRecord>emptyList();
+        }
+
+        /**
+         * @return ids of the twisters with a board in {@code language}, ascending
+         */
+        public List<Integer> getTwisterIds(String language) {
+            List<Integer> ids = new ArrayList<>();
+            String prefix = language + "/";
+            for (String key : byTwister.keys()) {
+                if (key.startsWith(prefix)) ids.add(Integer.parseInt(key.substring(prefix.length())));
+            }
+            Collections.sort(ids);
+            return ids;
+        }
+
+        public List<ScoreRecord> getTwister(String language, int twisterId) {
+            List<ScoreRecord> ranking = byTwister.get(twisterKey(language, twisterId));
+            return ranking != null ? ranking : Collections.<ScoreRecord>emptyList();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.microsoft.android.fischersfritze.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable hash trie with sixteen slots per node. {@link #put(Object, Object)} copies only
+ * the nodes on the path to the changed entry, a handful of arrays however many entries there
+ * are, and shares the rest with the map it was made from. Keys with the very same hash
+ * share a slot in a short chain.
+ */
+final class PersistentMap<K, V> {
+    private static final int BITS = 4;
+    private static final int WIDTH = 1 << BITS;
+
+    private static final PersistentMap<Object, Object> EMPTY = new PersistentMap<>(new Object[WIDTH], 0);
+
+    // slots hold null, an Entry chain or a child Object[]
+    private final Object[] root;
+    private final int size;
+
+    private PersistentMap(Object[] root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        int hash = key.hashCode();
+        Object slot = root[hash & (WIDTH - 1)];
+        for (int shift = BITS; slot instanceof Object[]; shift += BITS) {
+            slot = ((Object[]) slot)[(hash >>> shift) & (WIDTH - 1)];
+        }
+        for (Entry entry = (Entry) slot; entry != null; entry = entry.next) {
+            if (entry.hash == hash && entry.key.equals(key)) return (V) entry.value;
+        }
+        return null;
+    }
+
+    PersistentMap<K, V> put(K key, V value) {
+        if(key == null) throw new IllegalArgumentException("key MUST NOT be NULL");
+
+        boolean[] added = new boolean[1];
+        Object[] root = put(this.root, 0, new Entry(key, value, key.hashCode(), null), added);
+        return new PersistentMap<>(root, added[0] ? size + 1 : size);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<K> keys() {
+        List<K> keys = new ArrayList<>(size);
+        collect(root, (List<Object>) keys);
+        return keys;
+    }
+
+    private static Object[] put(Object[] node, int shift, Entry entry, boolean[] added) {
+        Object[] copy = node.clone();
+        int index = (entry.hash >>> shift) & (WIDTH - 1);
+        Object slot = node[index];
+
+        if (slot == null) {
+            copy[index] = entry;
+            added[0] = true;
+        } else if (slot instanceof Object[]) {
+            copy[index] = put((Object[]) slot, shift + BITS, entry, added);
+        } else if (((Entry) slot).hash == entry.hash) {
+            copy[index] = replace((Entry) slot, entry, added);
+        } else {
+            // two different hashes part ways at some level below
+            Entry chain = (Entry) slot;
+            Object[] child = new Object[WIDTH];
+            child[(chain.hash >>> (shift + BITS)) & (WIDTH - 1)] = chain;
+            copy[index] = put(child, shift + BITS, entry, added);
+        }
+        return copy;
+    }
+
+    private static Entry replace(Entry chain, Entry entry, boolean[] added) {
+        Entry rest = null;
+        boolean found = false;
+        for (Entry e = chain; e != null; e = e.next) {
+            if (e.key.equals(entry.key)) found = true;
+            else rest = new Entry(e.key, e.value, e.hash, rest);
+        }
+        added[0] = !found;
+        return new Entry(entry.key, entry.value, entry.hash, rest);
+    }
+
+    private static void collect(Object[] node, List<Object> keys) {
+        for (Object slot : node) {
+            if (slot instanceof Object[]) {
+                collect((Object[]) slot, keys);
+            } else {
+                for (Entry entry = (Entry) slot; entry != null; entry = entry.next) keys.add(entry.key);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Object key;
+        final Object value;
+        final int hash;
+        final Entry next;
+
+        Entry(Object key, Object value, int hash, Entry next) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,642 @@
+package com.microsoft.android.fischersfritze.history;
+
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent history of every score, queryable by player and by twister.
+ *
+ * New records go to a write-ahead log ({@code scores.wal}) and an in-memory table. Once
+ * the table holds {@link #COMPACT_THRESHOLD} records it is compacted: the records are
+ * appended to a data file of fixed size entries and merged into two sorted indexes, one by
+ * (player, time) and one by (language, twister, time), then the log is reset. Players and
+ * languages are stored as ids into a small name dictionary. Queries binary search the
+ * memory mapped indexes and only read the records in range, plus the few still in the log.
+ *
+ * Every record carries a sequence number, and each index remembers the last one it holds,
+ * so replaying the log after a crash in the middle of a compaction never counts a record
+ * twice.
+ *
+ * All writes happen on the history's own thread; {@link #record(ScoreRecord)} returns at
+ * once, a record that cannot be stored is logged and reported by the next {@link #flush()}.
+ * Queries may be called from any thread but read files, so not from the UI thread.
+ */
+public class ScoreHistory implements Closeable {
+    public static final int COMPACT_THRESHOLD = 256;
+
+    public interface Visitor {
+        void visit(ScoreRecord record);
+    }
+
+    static final int INDEX_MAGIC = 0x53484931; // 'SHI1'
+    static final int INDEX_HEADER_BYTES = 16;
+    static final int INDEX_ENTRY_BYTES = 24;
+    static final int DATA_RECORD_BYTES = 32;
+    // four UTF-8 bytes each at most, two names still fit the log buffer
+    private static final int MAX_NAME_CHARS = 100;
+
+    private static final String LOG_TAG = "ScoreHistory";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String WAL_FILE = "scores.wal";
+    private static final String DATA_FILE = "scores.dat";
+    private static final String NAMES_FILE = "names.txt";
+    private static final String PLAYER_INDEX_FILE = "players.idx";
+    private static final String TWISTER_INDEX_FILE = "twisters.idx";
+
+    private final File directory;
+    private final int compactThreshold;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+
+    // guarded by this
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<Pending> memtable = new ArrayList<>();
+    private long nextSequence = 1;
+    private long dataRecords;
+    private ByteBuffer data;
+    private Index playerIndex;
+    private Index twisterIndex;
+
+    // writer thread only
+    private final FileChannel wal;
+    private final ByteBuffer walBuffer = ByteBuffer.allocate(1024);
+    private final CRC32 crc = new CRC32();
+    // first failed write since the last flush
+    private IOException writeError;
+
+    private ScoreHistory(File directory, int compactThreshold) throws IOException {
+        this.directory = directory;
+        this.compactThreshold = compactThreshold;
+
+        loadNames();
+        this.data = map(DATA_FILE);
+        this.dataRecords = data.capacity() / DATA_RECORD_BYTES;
+        this.playerIndex = Index.load(map(PLAYER_INDEX_FILE));
+        this.twisterIndex = Index.load(map(TWISTER_INDEX_FILE));
+        this.nextSequence = Math.max(playerIndex.sequence, twisterIndex.sequence) + 1;
+
+        this.wal = new RandomAccessFile(new File(directory, WAL_FILE), "rw").getChannel();
+        replayLog();
+    }
+
+    public static ScoreHistory open(File directory) throws IOException {
+        return open(directory, COMPACT_THRESHOLD);
+    }
+
+    static ScoreHistory open(File directory, int compactThreshold) throws IOException {
+        if(directory == null) throw new IllegalArgumentException("directory MUST NOT be NULL");
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("cannot create " + directory);
+
+        return new ScoreHistory(directory, compactThreshold);
+    }
+
+    /**
+     * Stores a record in the background. It is visible to queries once it has been logged.
+     */
+    public void record(ScoreRecord record) {
+        if(record == null) throw new IllegalArgumentException("record MUST NOT be NULL");
+
+        final ScoreRecord stored = new ScoreRecord(storedName(record.getPlayer()), storedName(record.getLanguage()),
+                record.getTwisterId(), record.getScore(), record.getTimestamp());
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    append(stored);
+                } catch (IOException e) {
+                    // the record is lost but the log stays consistent
+                    if (writeError == null) writeError = e;
+                    Log.e(LOG_TAG, "storing " + stored + " failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until every record handed to {@link #record(ScoreRecord)} so far is on disk.
+     *
+     * @throws IOException if a record since the last flush could not be stored
+     */
+    public void flush() throws IOException, InterruptedException {
+        try {
+            writer.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    wal.force(false);
+                    IOException error = writeError;
+                    writeError = null;
+                    if (error != null) throw error;
+                    return null;
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IOException("flush failed", e.getCause());
+        }
+    }
+
+    /**
+     * Merges the log into the indexes now instead of waiting for the threshold.
+     */
+    public void compact() throws IOException, InterruptedException {
+        try {
+            writer.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    compactNow();
+                    return null;
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IOException("compaction failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return the newest {@code count} records of {@code player}, newest first
+     */
+    public synchronized List<ScoreRecord> lastAttempts(String player, int count) {
+        List<ScoreRecord> result = new ArrayList<>();
+        Integer playerId = nameIds.get(player);
+        if (playerId != null) {
+            // the player's entries end right before the first entry of the next player
+            int end = playerIndex.lowerBound(playerId + 1, Integer.MIN_VALUE);
+            for (int i = end - 1; i >= 0 && result.size() < count && playerIndex.key1(i) == playerId; i--) {
+                result.add(readRecord(playerIndex.recordNo(i)));
+            }
+        }
+        for (Pending pending : memtable) {
+            if (pending.sequence > playerIndex.sequence && pending.record.getPlayer().equals(player)) {
+                result.add(pending.record);
+            }
+        }
+
+        Collections.sort(result, NEWEST_FIRST);
+        return result.size() > count ? new ArrayList<>(result.subList(0, count)) : result;
+    }
+
+    /**
+     * @return every record on the given twister, oldest first
+     */
+    public synchronized List<ScoreRecord> attemptsOn(String language, int twisterId) {
+        List<ScoreRecord> result = new ArrayList<>();
+        Integer languageId = nameIds.get(language);
+        if (languageId != null) {
+            for (int i = twisterIndex.lowerBound(languageId, twisterId);
+                 i < twisterIndex.count && twisterIndex.key1(i) == languageId && twisterIndex.key2(i) == twisterId; i++) {
+                result.add(readRecord(twisterIndex.recordNo(i)));
+            }
+        }
+        for (Pending pending : memtable) {
+            if (pending.sequence > twisterIndex.sequence && pending.record.getLanguage().equals(language)
+                    && pending.record.getTwisterId() == twisterId) {
+                result.add(pending.record);
+            }
+        }
+
+        Collections.sort(result, Collections.reverseOrder(NEWEST_FIRST));
+        return result;
+    }
+
+    /**
+     * Hands every record to {@code visitor}, in no particular order. Holds the history's lock
+     * meanwhile, so the visitor should be quick.
+     */
+    public synchronized void scan(Visitor visitor) {
+        if(visitor == null) throw new IllegalArgumentException("visitor MUST NOT be NULL");
+
+        for (int i = 0; i < playerIndex.count; i++) {
+            visitor.visit(readRecord(playerIndex.recordNo(i)));
+        }
+        for (Pending pending : memtable) {
+            if (pending.sequence > playerIndex.sequence) visitor.visit(pending.record);
+        }
+    }
+
+    /**
+     * @return number of records, logged and compacted
+     */
+    public synchronized int size() {
+        int pending = 0;
+        for (Pending p : memtable) {
+            if (p.sequence > playerIndex.sequence) pending++;
+        }
+        return playerIndex.count + pending;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wal.force(false);
+        wal.close();
+    }
+
+    // writer thread
+
+    private void append(ScoreRecord record) throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = nextSequence++;
+        }
+
+        writeRecord(sequence, record);
+
+        boolean compact;
+        synchronized (this) {
+            memtable.add(new Pending(sequence, record));
+            compact = memtable.size() >= compactThreshold;
+        }
+        if (compact) compactNow();
+    }
+
+    private void compactNow() throws IOException {
+        List<Pending> batch;
+        synchronized (this) {
+            if (memtable.isEmpty()) return;
+            batch = new ArrayList<>(memtable);
+        }
+        wal.force(false);
+
+        // names and records first; if we die before the indexes are swapped they are just unused
+        Map<String, Integer> newNames = new LinkedHashMap<>();
+        int nextId;
+        synchronized (this) {
+            nextId = names.size();
+            for (Pending pending : batch) {
+                for (String name : new String[]{pending.record.getPlayer(), pending.record.getLanguage()}) {
+                    if (!nameIds.containsKey(name) && !newNames.containsKey(name)) newNames.put(name, nextId++);
+                }
+            }
+        }
+        appendNames(newNames.keySet());
+
+        long firstRecord;
+        synchronized (this) {
+            firstRecord = dataRecords;
+        }
+        ByteBuffer records = ByteBuffer.allocate(batch.size() * DATA_RECORD_BYTES);
+        long[][] playerEntries = new long[batch.size()][];
+        long[][] twisterEntries = new long[batch.size()][];
+        long lastSequence = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            ScoreRecord record = pending.record;
+            int playerId = idOf(record.getPlayer(), newNames);
+            int languageId = idOf(record.getLanguage(), newNames);
+            long recordNo = firstRecord + i;
+
+            records.putLong(pending.sequence).putLong(record.getTimestamp());
+            records.putInt(playerId).putInt(languageId).putInt(record.getTwisterId()).putInt(record.getScore());
+            playerEntries[i] = new long[]{playerId, 0, record.getTimestamp(), recordNo, pending.sequence};
+            twisterEntries[i] = new long[]{languageId, record.getTwisterId(), record.getTimestamp(), recordNo, pending.sequence};
+            lastSequence = Math.max(lastSequence, pending.sequence);
+        }
+        records.flip();
+        FileChannel dataChannel = new RandomAccessFile(new File(directory, DATA_FILE), "rw").getChannel();
+        try {
+            dataChannel.truncate(firstRecord * DATA_RECORD_BYTES);
+            writeFully(dataChannel, records, firstRecord * DATA_RECORD_BYTES);
+            dataChannel.force(false);
+        } finally {
+            dataChannel.close();
+        }
+
+        Index players;
+        Index twisters;
+        synchronized (this) {
+            players = playerIndex;
+            twisters = twisterIndex;
+        }
+        writeIndex(PLAYER_INDEX_FILE, players, playerEntries, lastSequence);
+        writeIndex(TWISTER_INDEX_FILE, twisters, twisterEntries, lastSequence);
+
+        ByteBuffer mappedData = map(DATA_FILE);
+        Index mappedPlayers = Index.load(map(PLAYER_INDEX_FILE));
+        Index mappedTwisters = Index.load(map(TWISTER_INDEX_FILE));
+        synchronized (this) {
+            for (Map.Entry<String, Integer> name : newNames.entrySet()) {
+                names.add(name.getKey());
+                nameIds.put(name.getKey(), name.getValue());
+            }
+            data = mappedData;
+            dataRecords = firstRecord + batch.size();
+            playerIndex = mappedPlayers;
+            twisterIndex = mappedTwisters;
+            memtable.removeAll(batch);
+        }
+
+        // records that arrived meanwhile are still in the log, keep them
+        rewriteLog();
+    }
+
+    // merges the sorted old index with the new entries into a fresh file, swapped in by rename
+    private void writeIndex(String fileName, Index old, long[][] added, long sequence) throws IOException {
+        List<long[]> fresh = new ArrayList<>();
+        for (long[] entry : added) {
+            // a record this index already got before a crash
+            if (entry[4] > old.sequence) fresh.add(entry);
+        }
+        Collections.sort(fresh, ENTRY_ORDER);
+
+        int count = old.count + fresh.size();
+        ByteBuffer out = ByteBuffer.allocate(INDEX_HEADER_BYTES + count * INDEX_ENTRY_BYTES);
+        out.putInt(INDEX_MAGIC).putInt(count).putLong(Math.max(sequence, old.sequence));
+
+        int i = 0;
+        int j = 0;
+        while (i < old.count || j < fresh.size()) {
+            boolean takeOld = j >= fresh.size() || (i < old.count && compare(old, i, fresh.get(j)) <= 0);
+            if (takeOld) {
+                out.putInt(old.key1(i)).putInt(old.key2(i)).putLong(old.timestamp(i)).putInt(old.recordNo(i)).putInt(0);
+                i++;
+            } else {
+                long[] entry = fresh.get(j++);
+                out.putInt((int) entry[0]).putInt((int) entry[1]).putLong(entry[2]).putInt((int) entry[3]).putInt(0);
+            }
+        }
+        out.flip();
+
+        File target = new File(directory, fileName);
+        File temp = new File(directory, fileName + ".tmp");
+        FileChannel channel = new RandomAccessFile(temp, "rw").getChannel();
+        try {
+            channel.truncate(0);
+            writeFully(channel, out, 0);
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+        if (!temp.renameTo(target)) throw new IOException("cannot replace " + target);
+    }
+
+    private void rewriteLog() throws IOException {
+        List<Pending> rest;
+        synchronized (this) {
+            rest = new ArrayList<>(memtable);
+        }
+        wal.truncate(0);
+        // only the writer thread adds to the memtable, so nothing can slip in between
+        for (Pending pending : rest) {
+            writeRecord(pending.sequence, pending.record);
+        }
+        wal.force(false);
+    }
+
+    // length, sequence, timestamp, twister, score, player, language, CRC of all before it
+    private void writeRecord(long sequence, ScoreRecord record) throws IOException {
+        walBuffer.clear();
+        walBuffer.putInt(0);
+        walBuffer.putLong(sequence).putLong(record.getTimestamp());
+        walBuffer.putInt(record.getTwisterId()).putInt(record.getScore());
+        putString(walBuffer, record.getPlayer());
+        putString(walBuffer, record.getLanguage());
+        walBuffer.putInt(0, walBuffer.position() + 4);
+        crc.reset();
+        crc.update(walBuffer.array(), 0, walBuffer.position());
+        walBuffer.putInt((int) crc.getValue());
+        walBuffer.flip();
+        writeFully(wal, walBuffer, wal.size());
+    }
+
+    // startup
+
+    private void replayLog() throws IOException {
+        ByteBuffer log = ByteBuffer.allocate((int) wal.size());
+        while (log.hasRemaining() && wal.read(log, log.position()) >= 0) {
+            // fill the log
+        }
+        log.flip();
+
+        long valid = 0;
+        while (log.remaining() >= 4) {
+            int start = log.position();
+            int length = log.getInt(start);
+            if (length < 4 + 8 + 8 + 4 + 4 + 2 + 2 + 4 || length > log.remaining()) break;
+
+            crc.reset();
+            crc.update(log.array(), start, length - 4);
+            if (log.getInt(start + length - 4) != (int) crc.getValue()) break;
+
+            log.position(start + 4);
+            long sequence = log.getLong();
+            long timestamp = log.getLong();
+            int twisterId = log.getInt();
+            int score = log.getInt();
+            String player = getString(log);
+            String language = getString(log);
+            log.position(start + length);
+            valid = log.position();
+
+            if (sequence <= Math.min(playerIndex.sequence, twisterIndex.sequence)) continue;
+            memtable.add(new Pending(sequence, new ScoreRecord(player, language, twisterId, score, timestamp)));
+            nextSequence = Math.max(nextSequence, sequence + 1);
+        }
+
+        // a torn last record
+        wal.truncate(valid);
+    }
+
+    private void loadNames() throws IOException {
+        File file = new File(directory, NAMES_FILE);
+        if (!file.exists()) return;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                nameIds.put(line, names.size());
+                names.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void appendNames(Collection<String> newNames) throws IOException {
+        if (newNames.isEmpty()) return;
+
+        FileOutputStream out = new FileOutputStream(new File(directory, NAMES_FILE), true);
+        try {
+            Writer writer = new OutputStreamWriter(out, UTF_8);
+            for (String name : newNames) {
+                writer.write(name);
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    private synchronized int idOf(String name, Map<String, Integer> newNames) {
+        Integer id = nameIds.get(name);
+        return id != null ? id : newNames.get(name);
+    }
+
+    private ScoreRecord readRecord(int recordNo) {
+        int at = recordNo * DATA_RECORD_BYTES;
+        // skip the sequence number
+        long timestamp = data.getLong(at + 8);
+        String player = names.get(data.getInt(at + 16));
+        String language = names.get(data.getInt(at + 20));
+        return new ScoreRecord(player, language, data.getInt(at + 24), data.getInt(at + 28), timestamp);
+    }
+
+    private ByteBuffer map(String fileName) throws IOException {
+        File file = new File(directory, fileName);
+        if (!file.exists()) return ByteBuffer.allocate(0);
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // the mapping stays valid after the file is closed
+            return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    // names end up as lines of names.txt and must fit a log record
+    private static String storedName(String name) {
+        String line = name.replace('\n', ' ').replace('\r', ' ');
+        return line.length() > MAX_NAME_CHARS ? line.substring(0, MAX_NAME_CHARS) : line;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static int compare(Index index, int i, long[] entry) {
+        if (index.key1(i) != entry[0]) return index.key1(i) < entry[0] ? -1 : 1;
+        if (index.key2(i) != entry[1]) return index.key2(i) < entry[1] ? -1 : 1;
+        if (index.timestamp(i) != entry[2]) return index.timestamp(i) < entry[2] ? -1 : 1;
+        return 0;
+    }
+
+    private static final Comparator<long[]> ENTRY_ORDER = new Comparator<long[]>() {
+        @Override
+        public int compare(long[] a, long[] b) {
+            for (int k = 0; k < 3; k++) {
+                if (a[k] != b[k]) return a[k] < b[k] ? -1 : 1;
+            }
+            return 0;
+        }
+    };
+
+    private static final Comparator<ScoreRecord> NEWEST_FIRST = new Comparator<ScoreRecord>() {
+        @Override
+        public int compare(ScoreRecord a, ScoreRecord b) {
+            return a.getTimestamp() == b.getTimestamp() ? 0 : (a.getTimestamp() > b.getTimestamp() ? -1 : 1);
+        }
+    };
+
+    private static final class Pending {
+        final long sequence;
+        final ScoreRecord record;
+
+        Pending(long sequence, ScoreRecord record) {
+            this.sequence = sequence;
+            this.record = record;
+        }
+    }
+
+    /**
+     * A mapped sorted index: header, then entries of key1, key2, timestamp, record number.
+     */
+    private static final class Index {
+        final ByteBuffer buffer;
+        final int count;
+        final long sequence;
+
+        private Index(ByteBuffer buffer, int count, long sequence) {
+            this.buffer = buffer;
+            this.count = count;
+            this.sequence = sequence;
+        }
+
+        static Index load(ByteBuffer buffer) throws IOException {
+            if (buffer.capacity() == 0) return new Index(buffer, 0, 0);
+            if (buffer.capacity() < INDEX_HEADER_BYTES || buffer.getInt(0) != INDEX_MAGIC) throw new IOException("corrupt score index");
+
+            int count = buffer.getInt(4);
+            if (buffer.capacity() < INDEX_HEADER_BYTES + (long) count * INDEX_ENTRY_BYTES) throw new IOException("truncated score index");
+            return new Index(buffer, count, buffer.getLong(8));
+        }
+
+        int key1(int i) {
+            return buffer.getInt(INDEX_HEADER_BYTES + i * INDEX_ENTRY_BYTES);
+        }
+
+        int key2(int i) {
+            return buffer.getInt(INDEX_HEADER_BYTES + i * INDEX_ENTRY_BYTES + 4);
+        }
+
+        long timestamp(int i) {
+            return buffer.getLong(INDEX_HEADER_BYTES + i * INDEX_ENTRY_BYTES + 8);
+        }
+
+        int recordNo(int i) {
+            return buffer.getInt(INDEX_HEADER_BYTES + i * INDEX_ENTRY_BYTES + 16);
+        }
+
+        /**
+         * @return first entry not below (key1, key2)
+         */
+        int lowerBound(int key1, int key2) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int k1 = key1(mid);
+                boolean below = k1 < key1 || (k1 == key1 && key2(mid) < key2);
+                if (below) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
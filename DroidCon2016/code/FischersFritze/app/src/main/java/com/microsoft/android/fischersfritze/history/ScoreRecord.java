@@ -0,0 +1,71 @@
+package com.microsoft.android.fischersfritze.history;
+
+/**
+ * One scored attempt of a player at a twister.
+ */
+public final class ScoreRecord {
+    private final String player;
+    private final String language;
+    private final int twisterId;
+    private final int score;
+    private final long timestamp;
+
+    public ScoreRecord(String player, String language, int twisterId, int score, long timestamp) {
+        if(player == null) throw new IllegalArgumentException("player MUST NOT be NULL");
+        if(language == null) throw new IllegalArgumentException("language MUST NOT be NULL");
+
+        this.player = player;
+        this.language = language;
+        this.twisterId = twisterId;
+        this.score = score;
+        this.timestamp = timestamp;
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    /**
+     * @return stable id of the twister, see {@code TwisterCorpus.idOf}
+     */
+    public int getTwisterId() {
+        return twisterId;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScoreRecord)) return false;
+
+        ScoreRecord other = (ScoreRecord) o;
+        return twisterId == other.twisterId && score == other.score && timestamp == other.timestamp
+                && player.equals(other.player) && language.equals(other.language);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = player.hashCode();
+        result = 31 * result + language.hashCode();
+        result = 31 * result + twisterId;
+        result = 31 * result + score;
+        result = 31 * result + (int) (timestamp ^ (timestamp >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return player + " " + language + "/" + twisterId + " " + score + " @" + timestamp;
+    }
+}
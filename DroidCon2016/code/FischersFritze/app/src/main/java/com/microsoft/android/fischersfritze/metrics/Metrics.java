@@ -0,0 +1,92 @@
+package com.microsoft.android.fischersfritze.metrics;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Named timers and counters. Looking a metric up is a concurrent map read, recording into
+ * it is lock-free, so instrumenting a callback costs next to nothing.
+ *
+ * {@link #dump(Appendable)} writes one line per metric, sorted by name, for the overview
+ * page or a file.
+ */
+public class Metrics {
+    private static final Metrics DEFAULT = new Metrics();
+
+    private final ConcurrentMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    /**
+     * @return the process-wide metrics
+     */
+    public static Metrics getDefault() {
+        return DEFAULT;
+    }
+
+    public LatencyHistogram timer(String name) {
+        if(name == null) throw new IllegalArgumentException("name MUST NOT be NULL");
+
+        LatencyHistogram timer = timers.get(name);
+        if (timer == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            timer = timers.putIfAbsent(name, created);
+            if (timer == null) timer = created;
+        }
+        return timer;
+    }
+
+    /**
+     * Records the time since {@code startNanos}, a {@link System#nanoTime()} value.
+     */
+    public void recordSince(String name, long startNanos) {
+        timer(name).record(System.nanoTime() - startNanos);
+    }
+
+    public AtomicLong counter(String name) {
+        if(name == null) throw new IllegalArgumentException("name MUST NOT be NULL");
+
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) counter = created;
+        }
+        return counter;
+    }
+
+    public void increment(String name) {
+        counter(name).incrementAndGet();
+    }
+
+    public void dump(Appendable out) throws IOException {
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(timers).entrySet()) {
+            LatencyHistogram timer = entry.getValue();
+            out.append(String.format(Locale.US, "%s: n=%d p50=%.1fms p99=%.1fms max=%.1fms%n",
+                    entry.getKey(), timer.getCount(), millis(timer.getPercentile(0.5)),
+                    millis(timer.getPercentile(0.99)), millis(timer.getMax())));
+        }
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            out.append(String.format(Locale.US, "%s: %d%n", entry.getKey(), entry.getValue().get()));
+        }
+    }
+
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            dump(sb);
+        } catch (IOException e) {
+            // a StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,171 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Optimal alignment of two sequences under unit edit costs, returned as an
+ * {@link EditScript}. Uses Hirschberg's divide and conquer: the reference is halved, a
+ * forward DP row over the first half and a backward row over the second half find where
+ * the hypothesis has to be split, and both halves are aligned on their own. Memory stays
+ * linear in the hypothesis length (two score rows and one DP row, shared by the whole
+ * recursion) at about twice the time of a single distance computation; small blocks are
+ * finished with a full matrix.
+ *
+ * Ties are broken towards matches and substitutions, so equal-cost scripts come out the
+ * same every time.
+ */
+public final class Alignment {
+    // blocks up to this many cells get a full traceback matrix
+    private static final int BASE_CELLS = 1024;
+
+    private final int[] reference;
+    private final int[] hypothesis;
+    private final int[] forward;
+    private final int[] backward;
+    private final EditScript.Builder script = new EditScript.Builder();
+
+    private Alignment(int[] reference, int[] hypothesis) {
+        this.reference = reference;
+        this.hypothesis = hypothesis;
+        this.forward = new int[hypothesis.length + 1];
+        this.backward = new int[hypothesis.length + 1];
+    }
+
+    public static EditScript align(int[] reference, int[] hypothesis) {
+        if(reference == null) throw new IllegalArgumentException("reference MUST NOT be NULL");
+        if(hypothesis == null) throw new IllegalArgumentException("hypothesis MUST NOT be NULL");
+
+        Alignment alignment = new Alignment(reference, hypothesis);
+        alignment.align(0, reference.length, 0, hypothesis.length);
+        return alignment.script.build();
+    }
+
+    /**
+     * Char by char alignment; spans index into the two texts.
+     */
+    public static EditScript align(CharSequence reference, CharSequence hypothesis) {
+        return align(WeightedEditDistance.codes(reference == null ? "" : reference),
+                WeightedEditDistance.codes(hypothesis == null ? "" : hypothesis));
+    }
+
+    private void align(int aFrom, int aTo, int bFrom, int bTo) {
+        int n = aTo - aFrom;
+        int m = bTo - bFrom;
+        if (n == 0) {
+            script.add(EditScript.Op.Insert, m);
+            return;
+        }
+        if (m == 0) {
+            script.add(EditScript.Op.Delete, n);
+            return;
+        }
+        if (n == 1 || (long) (n + 1) * (m + 1) <= BASE_CELLS) {
+            alignSmall(aFrom, aTo, bFrom, bTo);
+            return;
+        }
+
+        int aMid = (aFrom + aTo) >>> 1;
+        forwardRow(aFrom, aMid, bFrom, bTo);
+        backwardRow(aMid, aTo, bFrom, bTo);
+
+        // the split where the first half's cost to reach it plus the second half's cost from it is least
+        int split = 0;
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j <= m; j++) {
+            int cost = forward[j] + backward[m - j];
+            if (cost < best) {
+                best = cost;
+                split = j;
+            }
+        }
+
+        align(aFrom, aMid, bFrom, bFrom + split);
+        align(aMid, aTo, bFrom + split, bTo);
+    }
+
+    // forward[j]: distance between reference[aFrom, aTo) and hypothesis[bFrom, bFrom + j)
+    private void forwardRow(int aFrom, int aTo, int bFrom, int bTo) {
+        int m = bTo - bFrom;
+        for (int j = 0; j <= m; j++) forward[j] = j;
+
+        for (int i = aFrom; i < aTo; i++) {
+            int diagonal = forward[0];
+            forward[0] = diagonal + 1;
+            int c = reference[i];
+            for (int j = 1; j <= m; j++) {
+                int up = forward[j];
+                int value = diagonal + (c == hypothesis[bFrom + j - 1] ? 0 : 1);
+                value = Math.min(value, up + 1);
+                value = Math.min(value, forward[j - 1] + 1);
+                forward[j] = value;
+                diagonal = up;
+            }
+        }
+    }
+
+    // backward[j]: distance between reference[aFrom, aTo) and the last j elements of hypothesis[bFrom, bTo)
+    private void backwardRow(int aFrom, int aTo, int bFrom, int bTo) {
+        int m = bTo - bFrom;
+        for (int j = 0; j <= m; j++) backward[j] = j;
+
+        for (int i = aTo - 1; i >= aFrom; i--) {
+            int diagonal = backward[0];
+            backward[0] = diagonal + 1;
+            int c = reference[i];
+            for (int j = 1; j <= m; j++) {
+                int up = backward[j];
+                int value = diagonal + (c == hypothesis[bTo - j] ? 0 : 1);
+                value = Math.min(value, up + 1);
+                value = Math.min(value, backward[j - 1] + 1);
+                backward[j] = value;
+                diagonal = up;
+            }
+        }
+    }
+
+    private void alignSmall(int aFrom, int aTo, int bFrom, int bTo) {
+        int n = aTo - aFrom;
+        int m = bTo - bFrom;
+        int columns = m + 1;
+        int[] cost = new int[(n + 1) * columns];
+
+        for (int j = 0; j <= m; j++) cost[j] = j;
+        for (int i = 1; i <= n; i++) {
+            cost[i * columns] = i;
+            int c = reference[aFrom + i - 1];
+            for (int j = 1; j <= m; j++) {
+                int value = cost[(i - 1) * columns + j - 1] + (c == hypothesis[bFrom + j - 1] ? 0 : 1);
+                value = Math.min(value, cost[(i - 1) * columns + j] + 1);
+                value = Math.min(value, cost[i * columns + j - 1] + 1);
+                cost[i * columns + j] = value;
+            }
+        }
+
+        // walk back from the end, then replay the ops in order
+        EditScript.Op[] ops = new EditScript.Op[n + m];
+        int count = 0;
+        int i = n;
+        int j = m;
+        while (i > 0 || j > 0) {
+            int here = cost[i * columns + j];
+            if (i > 0 && j > 0) {
+                boolean same = reference[aFrom + i - 1] == hypothesis[bFrom + j - 1];
+                if (here == cost[(i - 1) * columns + j - 1] + (same ? 0 : 1)) {
+                    ops[count++] = same ? EditScript.Op.Match : EditScript.Op.Substitute;
+                    i--;
+                    j--;
+                    continue;
+                }
+            }
+            if (i > 0 && here == cost[(i - 1) * columns + j] + 1) {
+                ops[count++] = EditScript.Op.Delete;
+                i--;
+            } else {
+                ops[count++] = EditScript.Op.Insert;
+                j--;
+            }
+        }
+
+        for (int k = count - 1; k >= 0; k--) {
+            script.add(ops[k], 1);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.util.Arrays;
+
+/**
+ * Bit-vector edit distance (Myers 1999, in Hyyrö's formulation for global distance).
+ *
+ * The reference string is compiled once into per-character match masks, one row of
+ * {@code length / 64} words per distinct char; every call to
+ * {@link #distance(CharSequence)} then walks the other string one character at a time and
+ * updates a whole column of the DP matrix with a handful of 64 bit operations.
+ * References longer than 64 chars are split into blocks of 64 rows, with the horizontal
+ * delta carried from one block into the next.
+ *
+ * With a bound, {@link #distance(CharSequence, int)} gives up as soon as the distance in
+ * the last row can no longer come back within it.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class BitParallelLevenshtein {
+    private static final int WORD_SIZE = 64;
+
+    // the matcher compiled by the last static distance() call on this thread
+    private static final ThreadLocal<BitParallelLevenshtein> lastCompiled = new ThreadLocal<>();
+
+    private final String reference;
+    private final int length;
+    private final int blocks;
+    private final long lastBit;
+
+    // open addressing table: reference char -> match masks
+    private final char[] keys;
+    private final boolean[] used;
+    private final long[] masks;
+    private final int tableMask;
+
+    public BitParallelLevenshtein(CharSequence reference) {
+        if(reference == null) throw new IllegalArgumentException("reference MUST NOT be NULL");
+
+        this.reference = reference.toString();
+        this.length = reference.length();
+        this.blocks = Math.max(1, (length + WORD_SIZE - 1) / WORD_SIZE);
+        this.lastBit = length == 0 ? 0L : 1L << ((length - 1) % WORD_SIZE);
+
+        // mask rows are as many as distinct chars, not as chars
+        int capacity = 8;
+        while (capacity < distinctChars(this.reference) * 2) capacity <<= 1;
+        this.keys = new char[capacity];
+        this.used = new boolean[capacity];
+        this.masks = new long[capacity * blocks];
+        this.tableMask = capacity - 1;
+
+        for (int i = 0; i < length; i++) {
+            int slot = slotFor(reference.charAt(i), true);
+            masks[slot * blocks + i / WORD_SIZE] |= 1L << (i % WORD_SIZE);
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Compiles {@code lhs}, unless the previous call on this thread had the same {@code lhs};
+     * a loop over many texts against one reference compiles it once. Callers that switch
+     * between references should keep a matcher per reference instead.
+     */
+    public static int distance(CharSequence lhs, CharSequence rhs) {
+        if (lhs == null && rhs == null) {
+            return 0;
+        }
+        if (lhs == null) {
+            return rhs.length();
+        }
+        if (rhs == null) {
+            return lhs.length();
+        }
+
+        BitParallelLevenshtein matcher = lastCompiled.get();
+        if (matcher == null || !matcher.reference.contentEquals(lhs)) {
+            matcher = new BitParallelLevenshtein(lhs);
+            lastCompiled.set(matcher);
+        }
+        return matcher.distance(rhs);
+    }
+
+    public int distance(CharSequence text) {
+        if (text == null) {
+            return length;
+        }
+        if (length == 0) {
+            return text.length();
+        }
+
+        return blocks == 1 ? distanceSingleWord(text, Integer.MAX_VALUE) : distanceBlocks(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Bounded edit distance: the exact distance if it is at most {@code maxDistance},
+     * otherwise {@code maxDistance + 1}.
+     */
+    public int distance(CharSequence text, int maxDistance) {
+        if (maxDistance < 0) throw new IllegalArgumentException("maxDistance MUST NOT be negative");
+        if (maxDistance == Integer.MAX_VALUE) return distance(text);
+
+        int exceeded = maxDistance + 1;
+        int textLength = text == null ? 0 : text.length();
+        // the distance is at least the length difference
+        if (Math.abs(length - textLength) > maxDistance) {
+            return exceeded;
+        }
+        if (text == null || length == 0) {
+            return Math.max(length, textLength);
+        }
+
+        int distance = blocks == 1 ? distanceSingleWord(text, maxDistance) : distanceBlocks(text, maxDistance);
+        return distance <= maxDistance ? distance : exceeded;
+    }
+
+    private int distanceSingleWord(CharSequence text, int maxDistance) {
+        long pv = -1L;
+        long mv = 0L;
+        int score = length;
+
+        for (int j = 0; j < text.length(); j++) {
+            int slot = slotFor(text.charAt(j), false);
+            long eq = slot < 0 ? 0L : masks[slot];
+
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+
+            if ((ph & lastBit) != 0) score++;
+            if ((mh & lastBit) != 0) score--;
+            // each remaining column lowers the last row by one at most
+            if (score - (text.length() - 1 - j) > maxDistance) return maxDistance + 1;
+
+            // the top row of the matrix grows by one per column, so shift in a +1
+            ph = (ph << 1) | 1L;
+            mh = mh << 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+
+        return score;
+    }
+
+    private int distanceBlocks(CharSequence text, int maxDistance) {
+        long[] pv = new long[blocks];
+        long[] mv = new long[blocks];
+        for (int b = 0; b < blocks; b++) pv[b] = -1L;
+        int score = length;
+
+        for (int j = 0; j < text.length(); j++) {
+            int slot = slotFor(text.charAt(j), false);
+            int base = slot < 0 ? -1 : slot * blocks;
+
+            // horizontal delta entering the top of the first block
+            int hin = 1;
+            for (int b = 0; b < blocks; b++) {
+                long eq = base < 0 ? 0L : masks[base + b];
+                long p = pv[b];
+                long m = mv[b];
+                long high = b == blocks - 1 ? lastBit : Long.MIN_VALUE;
+
+                long xv = eq | m;
+                if (hin < 0) eq |= 1L;
+                long xh = (((eq & p) + p) ^ p) | eq;
+                long ph = m | ~(xh | p);
+                long mh = p & xh;
+
+                int hout = 0;
+                if ((ph & high) != 0) hout = 1;
+                if ((mh & high) != 0) hout = -1;
+
+                ph <<= 1;
+                mh <<= 1;
+                if (hin < 0) mh |= 1L;
+                else if (hin > 0) ph |= 1L;
+
+                pv[b] = mh | ~(xv | ph);
+                mv[b] = ph & xv;
+                hin = hout;
+            }
+
+            score += hin;
+            if (score - (text.length() - 1 - j) > maxDistance) return maxDistance + 1;
+        }
+
+        return score;
+    }
+
+    private static int distinctChars(String text) {
+        char[] chars = text.toCharArray();
+        Arrays.sort(chars);
+        int distinct = 0;
+        for (int i = 0; i < chars.length; i++) {
+            if (i == 0 || chars[i] != chars[i - 1]) distinct++;
+        }
+        return distinct;
+    }
+
+    private int slotFor(char c, boolean insert) {
+        int slot = (c * 0x9E37) & tableMask;
+        while (used[slot]) {
+            if (keys[slot] == c) return slot;
+            slot = (slot + 1) & tableMask;
+        }
+        if (!insert) return -1;
+
+        used[slot] = true;
+        keys[slot] = c;
+        return slot;
+    }
+}
@@ -0,0 +1,338 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Primary key of Double Metaphone (Philips 2000) for English words: "Smith" and "Smyth"
+ * both become SM0, "knight" NT, "phone" FN. '0' stands for "th", 'X' for "sh".
+ *
+ * Only the primary encoding is produced, and the special cases the full algorithm has for
+ * Slavic, Germanic, Spanish and Italian names are left out; tongue twisters are plain
+ * English. Codes are cut at {@link #MAX_LENGTH} instead of the usual four, because they
+ * are compared, not used as lookup keys.
+ */
+public final class DoubleMetaphone implements PhoneticEncoder {
+    static final int MAX_LENGTH = 8;
+
+    @Override
+    public void encode(CharSequence word, StringBuilder out) {
+        int limit = out.length() + MAX_LENGTH;
+        int length = word.length();
+        int i = 0;
+
+        if (startsWith(word, 0, "gn", "kn", "pn", "wr", "ps")) {
+            i = 1;
+        }
+        if (length > 0 && word.charAt(0) == 'x') {
+            // Xavier
+            out.append('S');
+            i = 1;
+        }
+
+        while (i < length && out.length() < limit) {
+            char c = word.charAt(i);
+            char next = charAt(word, i + 1);
+
+            switch (c) {
+                case 'a': case 'e': case 'i': case 'o': case 'u': case 'y':
+                    if (i == 0) out.append('A');
+                    i++;
+                    break;
+
+                case 'b':
+                    out.append('P');
+                    i += next == 'b' ? 2 : 1;
+                    break;
+
+                case 'ç':
+                    out.append('S');
+                    i++;
+                    break;
+
+                case 'c':
+                    i = encodeC(word, i, out);
+                    break;
+
+                case 'd':
+                    if (next == 'g' && isOneOf(charAt(word, i + 2), "iey")) {
+                        // edge
+                        out.append('J');
+                        i += 3;
+                    } else if (next == 'g') {
+                        out.append("TK");
+                        i += 2;
+                    } else {
+                        out.append('T');
+                        i += next == 't' || next == 'd' ? 2 : 1;
+                    }
+                    break;
+
+                case 'f':
+                    out.append('F');
+                    i += next == 'f' ? 2 : 1;
+                    break;
+
+                case 'g':
+                    i = encodeG(word, i, out);
+                    break;
+
+                case 'h':
+                    // only between vowels or at the start before one
+                    if ((i == 0 || isVowel(charAt(word, i - 1))) && isVowel(next)) {
+                        out.append('H');
+                        i += 2;
+                    } else {
+                        i++;
+                    }
+                    break;
+
+                case 'j':
+                    out.append('J');
+                    i += next == 'j' ? 2 : 1;
+                    break;
+
+                case 'k':
+                    out.append('K');
+                    i += next == 'k' ? 2 : 1;
+                    break;
+
+                case 'l':
+                    out.append('L');
+                    i += next == 'l' ? 2 : 1;
+                    break;
+
+                case 'm':
+                    out.append('M');
+                    // thumb, dumber
+                    boolean silentB = charAt(word, i - 1) == 'u' && next == 'b'
+                            && (i + 2 == length || startsWith(word, i + 2, "er"));
+                    i += next == 'm' || silentB ? 2 : 1;
+                    break;
+
+                case 'n':
+                case 'ñ':
+                    out.append('N');
+                    i += next == 'n' ? 2 : 1;
+                    break;
+
+                case 'p':
+                    if (next == 'h') {
+                        out.append('F');
+                        i += 2;
+                    } else {
+                        out.append('P');
+                        i += next == 'p' || next == 'b' ? 2 : 1;
+                    }
+                    break;
+
+                case 'q':
+                    out.append('K');
+                    i += next == 'q' || next == 'u' ? 2 : 1;
+                    break;
+
+                case 'r':
+                    out.append('R');
+                    i += next == 'r' ? 2 : 1;
+                    break;
+
+                case 's':
+                    i = encodeS(word, i, out);
+                    break;
+
+                case 't':
+                    if (startsWith(word, i, "tion", "tia", "tch")) {
+                        out.append('X');
+                        i += 3;
+                    } else if (next == 'h') {
+                        // Thomas, Thames
+                        out.append(startsWith(word, i + 2, "om", "am") ? 'T' : '0');
+                        i += 2;
+                    } else {
+                        out.append('T');
+                        i += next == 't' || next == 'd' ? 2 : 1;
+                    }
+                    break;
+
+                case 'v':
+                    out.append('F');
+                    i += next == 'v' ? 2 : 1;
+                    break;
+
+                case 'w':
+                    if (next == 'r') {
+                        out.append('R');
+                        i += 2;
+                    } else {
+                        // initial w before a vowel or h sounds like one, elsewhere it is silent
+                        if (i == 0 && (isVowel(next) || next == 'h')) out.append('A');
+                        i++;
+                    }
+                    break;
+
+                case 'x':
+                    out.append("KS");
+                    i += next == 'c' || next == 'x' ? 2 : 1;
+                    break;
+
+                case 'z':
+                    if (next == 'h') {
+                        out.append('J');
+                        i += 2;
+                    } else {
+                        out.append('S');
+                        i += next == 'z' ? 2 : 1;
+                    }
+                    break;
+
+                default:
+                    i++;
+            }
+        }
+
+        if (out.length() > limit) out.setLength(limit);
+    }
+
+    private static int encodeC(CharSequence word, int i, StringBuilder out) {
+        char next = charAt(word, i + 1);
+
+        if (i == 0 && startsWith(word, 0, "caesar")) {
+            out.append('S');
+            return i + 2;
+        }
+        if (next == 'h') {
+            // Greek roots: christ, chlorine, chemistry, chorus
+            boolean greek = i == 0 && (isOneOf(charAt(word, 2), "rl") || startsWith(word, 2, "em", "or", "ara"));
+            out.append(greek ? 'K' : 'X');
+            return i + 2;
+        }
+        if (next == 'z') {
+            out.append('S');
+            return i + 2;
+        }
+        if (startsWith(word, i + 1, "ia")) {
+            out.append('X');
+            return i + 3;
+        }
+        if (next == 'c' && i > 0) {
+            // accident, but not mccall or succumb
+            char after = charAt(word, i + 2);
+            if (isOneOf(after, "ieh") && !startsWith(word, i + 2, "hu")) {
+                out.append("KS");
+                return i + 3;
+            }
+            out.append('K');
+            return i + 2;
+        }
+        if (next == 'k' || next == 'g' || next == 'q') {
+            out.append('K');
+            return i + 2;
+        }
+        if (isOneOf(next, "iey")) {
+            out.append('S');
+            return i + 2;
+        }
+        out.append('K');
+        return i + 1;
+    }
+
+    private static int encodeG(CharSequence word, int i, StringBuilder out) {
+        char next = charAt(word, i + 1);
+
+        if (next == 'h') {
+            if (i > 0 && !isVowel(charAt(word, i - 1))) {
+                out.append('K');
+            } else if (i == 0) {
+                out.append(charAt(word, 2) == 'i' ? 'J' : 'K');
+            } else if (isOneOf(charAt(word, i - 2), "bhd") || isOneOf(charAt(word, i - 3), "bhd")
+                    || isOneOf(charAt(word, i - 4), "bh")) {
+                // Parker's rule: Hugh, bough, through
+            } else if (charAt(word, i - 1) == 'u' && i >= 3 && isOneOf(charAt(word, i - 3), "cglrt")) {
+                // laugh, cough, tough
+                out.append('F');
+            }
+            // otherwise silent: night, though
+            return i + 2;
+        }
+        if (next == 'n') {
+            if (i == 1 && isVowel(charAt(word, 0))) {
+                out.append("KN");
+            } else if (!startsWith(word, i + 2, "ey")) {
+                // sign, gnat
+                out.append('N');
+            } else {
+                out.append("KN");
+            }
+            return i + 2;
+        }
+        if (i == 0 && startsWith(word, 1, "es", "ep", "eb", "el", "ey", "ib", "il", "in", "ie", "ei", "er")) {
+            out.append('K');
+            return i + 1;
+        }
+        if (isOneOf(next, "iey")) {
+            // get, but gem and give
+            out.append(startsWith(word, i + 1, "et") ? 'K' : 'J');
+            return i + 1;
+        }
+        out.append('K');
+        return i + (next == 'g' ? 2 : 1);
+    }
+
+    private static int encodeS(CharSequence word, int i, StringBuilder out) {
+        char next = charAt(word, i + 1);
+
+        if (i > 0 && isOneOf(charAt(word, i - 1), "iy") && next == 'l') {
+            // island, isle
+            return i + 1;
+        }
+        if (i == 0 && startsWith(word, 0, "sugar")) {
+            out.append('X');
+            return i + 1;
+        }
+        if (next == 'h') {
+            out.append('X');
+            return i + 2;
+        }
+        if (startsWith(word, i + 1, "io", "ia")) {
+            out.append('S');
+            return i + 3;
+        }
+        if (next == 'c') {
+            if (charAt(word, i + 2) == 'h') {
+                // school, schooner
+                out.append("SK");
+                return i + 3;
+            }
+            if (isOneOf(charAt(word, i + 2), "iey")) {
+                out.append('S');
+                return i + 3;
+            }
+            out.append("SK");
+            return i + 2;
+        }
+        out.append('S');
+        return i + (next == 's' || next == 'z' ? 2 : 1);
+    }
+
+    private static char charAt(CharSequence word, int index) {
+        return index >= 0 && index < word.length() ? word.charAt(index) : 0;
+    }
+
+    private static boolean isVowel(char c) {
+        return c != 0 && "aeiouy".indexOf(c) >= 0;
+    }
+
+    private static boolean isOneOf(char c, String chars) {
+        return c != 0 && chars.indexOf(c) >= 0;
+    }
+
+    private static boolean startsWith(CharSequence word, int offset, String... prefixes) {
+        for (String prefix : prefixes) {
+            if (offset + prefix.length() > word.length()) continue;
+
+            boolean match = true;
+            for (int k = 0; k < prefix.length() && match; k++) {
+                match = word.charAt(offset + k) == prefix.charAt(k);
+            }
+            if (match) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The edits that turn a reference sequence into a hypothesis, as runs of the same kind of
+ * edit. Each {@link Span} covers a range of the reference and a range of the hypothesis:
+ * both of the same length for matches and substitutions, only the hypothesis side for
+ * insertions and only the reference side for deletions.
+ *
+ * Immutable, see {@link Alignment}.
+ */
+public final class EditScript {
+
+    public enum Op { Match, Substitute, Insert, Delete }
+
+    public static final class Span {
+        private final Op op;
+        private final int referenceStart;
+        private final int referenceEnd;
+        private final int hypothesisStart;
+        private final int hypothesisEnd;
+
+        Span(Op op, int referenceStart, int referenceEnd, int hypothesisStart, int hypothesisEnd) {
+            this.op = op;
+            this.referenceStart = referenceStart;
+            this.referenceEnd = referenceEnd;
+            this.hypothesisStart = hypothesisStart;
+            this.hypothesisEnd = hypothesisEnd;
+        }
+
+        public Op getOp() {
+            return op;
+        }
+
+        public int getReferenceStart() {
+            return referenceStart;
+        }
+
+        public int getReferenceEnd() {
+            return referenceEnd;
+        }
+
+        public int getHypothesisStart() {
+            return hypothesisStart;
+        }
+
+        public int getHypothesisEnd() {
+            return hypothesisEnd;
+        }
+
+        /**
+         * @return number of edits in this span, 0 for a match
+         */
+        public int getCost() {
+            switch (op) {
+                case Match: return 0;
+                case Insert: return hypothesisEnd - hypothesisStart;
+                default: return referenceEnd - referenceStart;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return op + " [" + referenceStart + ", " + referenceEnd + ") [" + hypothesisStart + ", " + hypothesisEnd + ")";
+        }
+    }
+
+    private final List<Span> spans;
+    private final int distance;
+
+    private EditScript(List<Span> spans, int distance) {
+        this.spans = Collections.unmodifiableList(spans);
+        this.distance = distance;
+    }
+
+    public List<Span> getSpans() {
+        return spans;
+    }
+
+    /**
+     * @return number of substituted, inserted and deleted elements
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return spans.toString();
+    }
+
+    /**
+     * Collects single edits in order and merges runs of the same op.
+     */
+    static final class Builder {
+        private final List<Span> spans = new ArrayList<>();
+        private int reference;
+        private int hypothesis;
+        private int distance;
+
+        void add(Op op, int count) {
+            if (count == 0) return;
+
+            int referenceCount = op == Op.Insert ? 0 : count;
+            int hypothesisCount = op == Op.Delete ? 0 : count;
+            if (op != Op.Match) distance += count;
+
+            int last = spans.size() - 1;
+            if (last >= 0 && spans.get(last).op == op) {
+                Span previous = spans.get(last);
+                spans.set(last, new Span(op, previous.referenceStart, reference + referenceCount,
+                        previous.hypothesisStart, hypothesis + hypothesisCount));
+            } else {
+                spans.add(new Span(op, reference, reference + referenceCount, hypothesis, hypothesis + hypothesisCount));
+            }
+
+            reference += referenceCount;
+            hypothesis += hypothesisCount;
+        }
+
+        EditScript build() {
+            return new EditScript(new ArrayList<>(spans), distance);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Rule based phonetic code for French words. Letter groups that sound alike share a code:
+ * "eau", "au" and "o" are O, "ch" and "sh" are X, soft "c" and "ç" are S, the nasal vowels
+ * get codes of their own ('@' for "an"/"en", '3' for "in"/"ain"/"un", '5' for "on"). Mute
+ * letters are dropped: "h", a final "e", a plural "s" and the usual silent final consonants,
+ * so "pêcheurs" and "pecheur" both become PEX2R.
+ *
+ * Runs of the same code collapse, which takes care of double consonants.
+ */
+public final class FrenchPhonetic implements PhoneticEncoder {
+    private static final String VOWELS = "aàâäeéèêëiîïoôöuùûüyœ";
+    private static final String FRONT_VOWELS = "eéèêëiîïy";
+
+    @Override
+    public void encode(CharSequence word, StringBuilder out) {
+        int length = word.length();
+        // plural s, then a mute e: "fiches" sounds like "fich"
+        if (length > 2 && word.charAt(length - 1) == 's' && word.charAt(length - 2) != 's') length--;
+        Encoder encoder = new Encoder(word, length, out);
+        encoder.run();
+    }
+
+    private static final class Encoder {
+        private final CharSequence word;
+        private final int length;
+        private final StringBuilder out;
+        private char last;
+
+        Encoder(CharSequence word, int length, StringBuilder out) {
+            this.word = word;
+            this.length = length;
+            this.out = out;
+        }
+
+        void run() {
+            int i = 0;
+            while (i < length) {
+                i = step(i);
+            }
+        }
+
+        private int step(int i) {
+            char c = word.charAt(i);
+            char next = at(i + 1);
+            char afterNext = at(i + 2);
+            boolean atEnd = i == length - 1;
+
+            switch (c) {
+                case 'a': case 'à': case 'â': case 'ä':
+                    if (next == 'i' || next == 'î') {
+                        if (isNasal(i + 2)) return emit("3", i + 3);
+                        return emit("E", i + 2);
+                    }
+                    if (next == 'u') return emit("O", i + 2);
+                    if (isNasal(i + 1)) return emit("@", i + 2);
+                    return emit("A", i + 1);
+
+                case 'e':
+                    if (next == 'a' && afterNext == 'u') return emit("O", i + 3);
+                    if (next == 'u' || next == 'û') return emit("2", i + 2);
+                    if (next == 'i') {
+                        if (isNasal(i + 2)) return emit("3", i + 3);
+                        return emit("E", i + 2);
+                    }
+                    if (isNasal(i + 1)) return emit("@", i + 2);
+                    // mute at the end of a word
+                    if (atEnd && length > 1) return i + 1;
+                    // pêcher, nez, et; but not mer or fer
+                    if ((next == 'r' || next == 'z' || next == 't') && i + 2 == length && length > 3) return emit("E", i + 2);
+                    // closed syllable: elle, belle
+                    if (isConsonant(next) && isConsonant(afterNext)) return emit("E", i + 1);
+                    return emit("2", i + 1);
+
+                case 'é': case 'è': case 'ê': case 'ë':
+                    return emit("E", i + 1);
+
+                case 'i': case 'î': case 'ï': case 'y':
+                    if (isNasal(i + 1)) return emit("3", i + 2);
+                    return emit("I", i + 1);
+
+                case 'o': case 'ô': case 'ö':
+                    if (next == 'u' || next == 'ù' || next == 'û') return emit("U", i + 2);
+                    if (next == 'i' || next == 'î') {
+                        if (isNasal(i + 2)) return emit("W3", i + 3);
+                        return emit("WA", i + 2);
+                    }
+                    if (isNasal(i + 1)) return emit("5", i + 2);
+                    return emit("O", i + 1);
+
+                case 'œ':
+                    return emit("2", next == 'u' ? i + 2 : i + 1);
+
+                case 'u': case 'ù': case 'û': case 'ü':
+                    if (isNasal(i + 1)) return emit("3", i + 2);
+                    return emit("Y", i + 1);
+
+                case 'c':
+                    if (next == 'h') return emit("X", i + 2);
+                    if (FRONT_VOWELS.indexOf(next) >= 0 && next != 0) return emit("S", i + 1);
+                    return emit("K", i + 1);
+
+                case 'ç':
+                    return emit("S", i + 1);
+
+                case 'g':
+                    if (next == 'n') return emit("N", i + 2);
+                    if (next == 'u' && FRONT_VOWELS.indexOf(afterNext) >= 0 && afterNext != 0) return emit("G", i + 2);
+                    if (FRONT_VOWELS.indexOf(next) >= 0 && next != 0) return emit("J", i + 1);
+                    return emit("G", i + 1);
+
+                case 'h':
+                    return i + 1;
+
+                case 'p':
+                    if (next == 'h') return emit("F", i + 2);
+                    if (atEnd) return i + 1;
+                    return emit("P", i + 1);
+
+                case 'q':
+                    return emit("K", next == 'u' ? i + 2 : i + 1);
+
+                case 's':
+                    if (next == 'c' && afterNext == 'h') return emit("X", i + 3);
+                    if (next == 'h') return emit("X", i + 2);
+                    if (next == 'c' && FRONT_VOWELS.indexOf(afterNext) >= 0 && afterNext != 0) return emit("S", i + 2);
+                    if (atEnd) return i + 1;
+                    // between vowels it is voiced: rose
+                    if (i > 0 && isVowel(word.charAt(i - 1)) && isVowel(next)) return emit("Z", i + 1);
+                    return emit("S", i + 1);
+
+                case 't':
+                    // nation, patience
+                    if (i > 0 && next == 'i' && (afterNext == 'o' || afterNext == 'a' || afterNext == 'e')) return emit("S", i + 1);
+                    if (next == 'h') return emit("T", i + 2);
+                    if (atEnd) return i + 1;
+                    return emit("T", i + 1);
+
+                case 'd': case 'x': case 'z':
+                    if (atEnd) return i + 1;
+                    return emit(c == 'd' ? "D" : c == 'x' ? "KS" : "Z", i + 1);
+
+                case 'b': return emit("B", i + 1);
+                case 'f': return emit("F", i + 1);
+                case 'j': return emit("J", i + 1);
+                case 'k': return emit("K", i + 1);
+                case 'l': return emit("L", i + 1);
+                case 'm': return emit("M", i + 1);
+                case 'n': return emit("N", i + 1);
+                case 'r': return emit("R", i + 1);
+                case 'v': case 'w': return emit("V", i + 1);
+
+                default:
+                    return i + 1;
+            }
+        }
+
+        private int emit(String code, int nextIndex) {
+            for (int k = 0; k < code.length(); k++) {
+                char c = code.charAt(k);
+                if (c != last) out.append(c);
+                last = c;
+            }
+            return nextIndex;
+        }
+
+        // n or m closing the syllable: "an" in "grand" and "plan", but not in "ami" or "bonne"
+        private boolean isNasal(int index) {
+            char c = at(index);
+            if (c != 'n' && c != 'm') return false;
+
+            char after = at(index + 1);
+            return after == 0 || (isConsonant(after) && after != c);
+        }
+
+        private char at(int index) {
+            return index < length ? word.charAt(index) : 0;
+        }
+    }
+
+    private static boolean isVowel(char c) {
+        return c != 0 && VOWELS.indexOf(c) >= 0;
+    }
+
+    private static boolean isConsonant(char c) {
+        return c != 0 && Character.isLetter(c) && VOWELS.indexOf(c) < 0;
+    }
+}
@@ -1,47 +1,60 @@
 package com.microsoft.android.fischersfritze.oxford;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 /**
  * Created by mplogas on 13.06.16.
  */
 public class Helper {
-    //http://www.uebersetzung.at/twister/de.htm
-    private static final String[] german = {
-        "Fischers Fritze fischt frische Fische; Frische Fische fischt Fischers Fritze.",
-        "Denen Dänen, denen Dänen Dänen dehnen, dehnen deren Dänen",
-        "Am Zehnten Zehnten um zehn Uhr zehn zogen zehn zahme Ziegen zehn Zentner Zucker zum Zoo.",
-        "Bierbrauer Bauer braut braunes Bier, braunes Bier braut Bierbrauer Bauer.",
-        "Haifischschwanzflossenfleischsuppe",
-        "Kalle Kahlekatzenglatzenkratzer kratzt kahle Katzenglatzen.",
-        "Schnecken erschrecken, wenn Schnecken an Schnecken schlecken, weil zum Schrecken vieler Schnecken, Schnecken nicht schmecken.",
-        "Brautkleid bleibt Brautkleid und Blaukraut bleibt Blaukraut.",
-        "Die Katze fraß den Saumagen, nun kann sie nicht mehr Mau sagen!"
-    };
-
-    //http://www.uebersetzung.at/twister/en.htm
-    private static final String[] english = {
-            "I saw Susie sitting in a shoe shine shop. Where she sits she shines, and where she shines she sits.",
-            "How many boards could the Mongols hoard if the Mongol hordes got bored?",
-            "How can a clam cram in a clean cream can?",
-            "The thirty-three thieves thought that they thrilled the throne throughout Thursday.",
-            "Can you can a can as a canner can can a can?",
-            "Six sick hicks nick six slick bricks with picks and sticks.",
-            "If Stu chews shoes, should Stu choose the shoes he chews?",
-            "How much wood could Chuck Woods' woodchuck chuck, if Chuck Woods' woodchuck could and would chuck wood?",
-            "As one black bug, bled blue, black blood. The other black bug bled blue."
-    };
-
-    //http://www.uebersetzung.at/twister/fr.htm
-    private static final String[] french = {
-            "Je suis ce que je suis et si je suis ce que je suis, qu'est-ce que je suis?",
-            "Un dragon gradé dégrade un gradé dragon.",
-            "Pauvre petit pêcheur, prend patience pour pouvoir prendre plusieurs petits poissons.",
-            "Ces cerises sont si sûres qu'on ne sait pas si c'en sont."
-    };
+    private static final String DEFAULT_LANGUAGE = "en-us";
+    private static final int PROFILE_CACHE_SIZE = 32;
 
+    private static final ReferenceProfileCache profileCache = new ReferenceProfileCache(PROFILE_CACHE_SIZE);
+
+    // compiled from app/src/main/corpus, see TwisterCorpus
+    private static TwisterCorpus corpus;
+
+    // one scheduler per section and mode, built on first use
+    private static final Map<String, TwisterScheduler> schedulers = new HashMap<>();
+    private static final Random random = new Random();
+
+    public static synchronized void setCorpus(TwisterCorpus twisterCorpus) {
+        corpus = twisterCorpus;
+        schedulers.clear();
+    }
+
+    public static synchronized boolean hasCorpus() {
+        return corpus != null;
+    }
+
+    public static synchronized TwisterCorpus getCorpus() {
+        if(corpus == null) throw new IllegalStateException("Corpus not loaded yet. Call setCorpus() first!");
+        return corpus;
+    }
+
+    public static ReferenceProfile getReferenceProfile(String language, String twister) {
+        return profileCache.get(language, twister);
+    }
+
+    public static ReferenceProfileCache getReferenceProfileCache() {
+        return profileCache;
+    }
 
     public static int levenshteinDistance(CharSequence lhs, CharSequence rhs) {
+        return BitParallelLevenshtein.distance(lhs, rhs);
+    }
+
+    /**
+     * @return edit distance between the phonetic codes of the two texts, see {@link PhoneticScorer}
+     */
+    public static int phoneticDistance(String language, String reference, CharSequence hypothesis) {
+        return getReferenceProfile(language, reference).getPhoneticScorer().distance(hypothesis);
+    }
+
+    // plain two-row DP, kept as the reference the faster engines are checked against
+    public static int referenceLevenshteinDistance(CharSequence lhs, CharSequence rhs) {
         if (lhs == null && rhs == null) {
             return 0;
         }
@@ -91,23 +104,137 @@ public class Helper {
         return cost[len0 - 1];
     }
 
+    /**
+     * Bounded edit distance: returns the exact distance if it is at most {@code maxDistance},
+     * otherwise {@code maxDistance + 1}. Only the diagonal band of width {@code 2 * maxDistance + 1}
+     * is computed, and the scan stops as soon as no cell of the current row can still end up
+     * within the bound.
+     */
+    public static int levenshteinDistance(CharSequence lhs, CharSequence rhs, int maxDistance) {
+        if (maxDistance < 0) throw new IllegalArgumentException("maxDistance MUST NOT be negative");
+
+        int exceeded = maxDistance + 1;
+        if (lhs == null || rhs == null) {
+            int distance = lhs == null ? (rhs == null ? 0 : rhs.length()) : lhs.length();
+            return distance <= maxDistance ? distance : exceeded;
+        }
+
+        int len0 = lhs.length();
+        int len1 = rhs.length();
+
+        // the distance is at least the length difference
+        if (Math.abs(len0 - len1) > maxDistance) {
+            return exceeded;
+        }
+        if (len0 == 0 || len1 == 0) {
+            return Math.max(len0, len1);
+        }
+
+        int[] cost = new int[len0 + 1];
+        int[] newcost = new int[len0 + 1];
+
+        for (int i = 0; i <= len0; i++) cost[i] = Math.min(i, exceeded);
+
+        for (int j = 1; j <= len1; j++) {
+            // only cells within maxDistance of the diagonal can stay below the bound
+            int from = Math.max(1, j - maxDistance);
+            int to = Math.min(len0, j + maxDistance);
+
+            newcost[from - 1] = from == 1 ? Math.min(j, exceeded) : exceeded;
+            int rowMin = newcost[from - 1] + Math.abs((len0 - from + 1) - (len1 - j));
+
+            for (int i = from; i <= to; i++) {
+                int match = (lhs.charAt(i - 1) == rhs.charAt(j - 1)) ? 0 : 1;
+
+                int value = Math.min(Math.min(cost[i] + 1, newcost[i - 1] + 1), cost[i - 1] + match);
+                if (value > exceeded) value = exceeded;
+                newcost[i] = value;
+
+                // whatever is left of both strings still has to be aligned
+                int lowerBound = value + Math.abs((len0 - i) - (len1 - j));
+                if (lowerBound < rowMin) rowMin = lowerBound;
+            }
+            if (to < len0) newcost[to + 1] = exceeded;
+
+            if (rowMin > maxDistance) {
+                return exceeded;
+            }
+
+            int[] swap = cost; cost = newcost; newcost = swap;
+        }
+
+        return cost[len0] <= maxDistance ? cost[len0] : exceeded;
+    }
+
+    public static int wordLevenshteinDistance(String language, CharSequence reference, CharSequence hypothesis) {
+        return new WordLevenshtein(TokenDictionary.forLanguage(language), reference).score(hypothesis).getWordErrors();
+    }
+
+    /**
+     * @return which words of {@code reference} were said wrong, left out or added in
+     *         {@code hypothesis}, see {@link Alignment}
+     */
+    public static WordAlignment alignWords(String language, String reference, CharSequence hypothesis) {
+        return WordAlignment.align(getReferenceProfile(language, reference), hypothesis);
+    }
+
+    /**
+     * @return the next twister out of the language's shuffle bag, see {@link TwisterScheduler}
+     */
     public static String getRandomTongueTwister(String language) {
-        Random r = new Random();
-        String[] array;
-
-        switch (language) {
-            case "de-de":
-                array = german;
-                break;
-            case "fr-fr":
-                array = french;
-                break;
-            case "en-us":
-            default:
-                array = english;
-                break;
+        return nextTongueTwister(language, TwisterScheduler.Mode.Shuffle);
+    }
+
+    // the schedulers are not thread-safe, draws are serialized here
+    public static synchronized String nextTongueTwister(String language, TwisterScheduler.Mode mode) {
+        return getScheduler(language, mode).next();
+    }
+
+    /**
+     * @return stable id of the next twister, see {@link TwisterCorpus#idOf(String)}; its text
+     *         is {@link #getTongueTwister(String, int)}
+     */
+    public static synchronized int nextTongueTwisterId(String language, TwisterScheduler.Mode mode) {
+        TwisterScheduler scheduler = getScheduler(language, mode);
+        return corpus.getId(scheduler.getLanguage(), scheduler.nextIndex());
+    }
+
+    /**
+     * @return the twister with that id in the language's section, or null if there is none
+     */
+    public static String getTongueTwister(String language, int id) {
+        TwisterCorpus twisters = getCorpus();
+        String section = sectionFor(twisters, language);
+
+        int index = twisters.indexOfId(section, id);
+        return index < 0 ? null : twisters.get(section, index);
+    }
+
+    private static synchronized TwisterScheduler getScheduler(String language, TwisterScheduler.Mode mode) {
+        TwisterCorpus twisters = getCorpus();
+        String section = sectionFor(twisters, language);
+
+        String key = section + '/' + mode;
+        TwisterScheduler scheduler = schedulers.get(key);
+        if (scheduler == null) {
+            scheduler = new TwisterScheduler(twisters, section, mode, random);
+            schedulers.put(key, scheduler);
         }
+        return scheduler;
+    }
+
+    public static String[] getTongueTwisters(String language) {
+        TwisterCorpus twisters = getCorpus();
+        String section = sectionFor(twisters, language);
+
+        String[] result = new String[twisters.count(section)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = twisters.get(section, i);
+        }
+        return result;
+    }
 
-        return array[r.nextInt(array.length - 1)];
+    private static String sectionFor(TwisterCorpus twisters, String language) {
+        return twisters.hasLanguage(language) ? language : DEFAULT_LANGUAGE;
     }
 }
@@ -0,0 +1,116 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Edit distance session for streaming partial hypotheses against a fixed reference.
+ *
+ * The DP column of every hypothesis prefix is kept. Partial results mostly extend the
+ * previous one, so {@link #update(CharSequence)} only recomputes the columns after the
+ * prefix the new partial shares with the last one; the cost of a partial is proportional
+ * to its new text, not the whole utterance.
+ *
+ * Not thread-safe, one session per recognition.
+ */
+public final class IncrementalLevenshtein {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final char[] reference;
+    private final int rows;
+
+    // column j of the DP matrix lives at [j * rows, (j + 1) * rows)
+    private int[] columns;
+    private char[] hypothesis;
+    private int length;
+    private int lastComputed;
+
+    public IncrementalLevenshtein(CharSequence reference) {
+        if(reference == null) throw new IllegalArgumentException("reference MUST NOT be NULL");
+
+        this.reference = reference.toString().toCharArray();
+        this.rows = this.reference.length + 1;
+        this.hypothesis = new char[INITIAL_CAPACITY];
+        this.columns = new int[(INITIAL_CAPACITY + 1) * rows];
+
+        for (int i = 0; i < rows; i++) columns[i] = i;
+    }
+
+    /**
+     * Scores the next partial hypothesis.
+     *
+     * @return the edit distance between the reference and {@code partial}
+     */
+    public int update(CharSequence partial) {
+        if (partial == null) {
+            partial = "";
+        }
+
+        int newLength = partial.length();
+        int shared = 0;
+        int limit = Math.min(length, newLength);
+        while (shared < limit && hypothesis[shared] == partial.charAt(shared)) shared++;
+
+        ensureCapacity(newLength);
+
+        for (int j = shared + 1; j <= newLength; j++) {
+            char c = partial.charAt(j - 1);
+            hypothesis[j - 1] = c;
+
+            int previous = (j - 1) * rows;
+            int current = j * rows;
+            columns[current] = j;
+
+            for (int i = 1; i < rows; i++) {
+                int match = reference[i - 1] == c ? 0 : 1;
+
+                int cost_replace = columns[previous + i - 1] + match;
+                int cost_insert  = columns[previous + i] + 1;
+                int cost_delete  = columns[current + i - 1] + 1;
+
+                columns[current + i] = Math.min(Math.min(cost_insert, cost_delete), cost_replace);
+            }
+        }
+
+        lastComputed = newLength - shared;
+        length = newLength;
+        return getDistance();
+    }
+
+    public int getDistance() {
+        return columns[length * rows + rows - 1];
+    }
+
+    /**
+     * @return length of the hypothesis scored last
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return number of columns the last {@link #update(CharSequence)} had to compute
+     */
+    public int getLastComputed() {
+        return lastComputed;
+    }
+
+    public void reset() {
+        length = 0;
+        lastComputed = 0;
+    }
+
+    private void ensureCapacity(int newLength) {
+        if (newLength < hypothesis.length) {
+            return;
+        }
+
+        int capacity = hypothesis.length;
+        while (capacity <= newLength) capacity <<= 1;
+
+        char[] newHypothesis = new char[capacity];
+        System.arraycopy(hypothesis, 0, newHypothesis, 0, length);
+        hypothesis = newHypothesis;
+
+        int[] newColumns = new int[(capacity + 1) * rows];
+        System.arraycopy(columns, 0, newColumns, 0, (length + 1) * rows);
+        columns = newColumns;
+    }
+}
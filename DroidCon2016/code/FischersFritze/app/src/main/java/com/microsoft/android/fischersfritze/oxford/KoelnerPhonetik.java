@@ -0,0 +1,107 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Kölner Phonetik (Postel 1969), the German counterpart of Soundex. Every letter maps to a
+ * digit depending on its neighbours, runs of the same digit collapse into one and vowels
+ * (0) only count at the start of a word: "Müller-Lüdenscheidt" becomes 657 52682.
+ */
+public final class KoelnerPhonetik implements PhoneticEncoder {
+
+    @Override
+    public void encode(CharSequence word, StringBuilder out) {
+        int start = out.length();
+        int length = word.length();
+        char last = 0;
+        boolean leadingVowel = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = fold(word.charAt(i));
+            char previous = i > 0 ? fold(word.charAt(i - 1)) : 0;
+            char next = i + 1 < length ? fold(word.charAt(i + 1)) : 0;
+
+            String code;
+            switch (c) {
+                case 'a': case 'e': case 'i': case 'j': case 'o': case 'u': case 'y':
+                    code = "0";
+                    leadingVowel |= i == 0;
+                    break;
+                case 'h':
+                    // silent, and does not separate equal codes either
+                    continue;
+                case 'b':
+                    code = "1";
+                    break;
+                case 'p':
+                    code = next == 'h' ? "3" : "1";
+                    break;
+                case 'd': case 't':
+                    code = next == 'c' || next == 's' || next == 'z' ? "8" : "2";
+                    break;
+                case 'f': case 'v': case 'w':
+                    code = "3";
+                    break;
+                case 'g': case 'k': case 'q':
+                    code = "4";
+                    break;
+                case 'c':
+                    if (i == 0) {
+                        code = "ahkloqrux".indexOf(next) >= 0 ? "4" : "8";
+                    } else {
+                        code = previous != 's' && previous != 'z' && "ahkoqux".indexOf(next) >= 0 ? "4" : "8";
+                    }
+                    break;
+                case 'x':
+                    code = previous == 'c' || previous == 'k' || previous == 'q' ? "8" : "48";
+                    break;
+                case 'l':
+                    code = "5";
+                    break;
+                case 'm': case 'n':
+                    code = "6";
+                    break;
+                case 'r':
+                    code = "7";
+                    break;
+                case 's': case 'z':
+                    code = "8";
+                    break;
+                default:
+                    // digits and letters without a rule
+                    continue;
+            }
+
+            for (int k = 0; k < code.length(); k++) {
+                char digit = code.charAt(k);
+                if (digit != last) out.append(digit);
+                last = digit;
+            }
+        }
+
+        // vowels only count as the first letter, not after a silent h: "hallo" is 5
+        int write = start;
+        for (int read = start; read < out.length(); read++) {
+            char digit = out.charAt(read);
+            if (digit != '0' || (read == start && leadingVowel)) out.setCharAt(write++, digit);
+        }
+        if (write < out.length()) out.setLength(write);
+    }
+
+    private static char fold(char c) {
+        switch (c) {
+            case 'ä': case 'à': case 'â': case 'á':
+                return 'a';
+            case 'ö': case 'ô': case 'ó':
+                return 'o';
+            case 'ü': case 'û': case 'ú':
+                return 'u';
+            case 'é': case 'è': case 'ê': case 'ë':
+                return 'e';
+            case 'ß':
+                return 's';
+            case 'ç':
+                return 'c';
+            default:
+                return c;
+        }
+    }
+}
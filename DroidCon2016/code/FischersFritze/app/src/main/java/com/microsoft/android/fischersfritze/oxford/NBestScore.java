@@ -0,0 +1,53 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Distances of all n-best candidates to the reference, plus the best (lowest) one. Only the
+ * first candidate and those within the best distance are exact, see {@link #isExact(int)}.
+ */
+public final class NBestScore {
+    private final int[] distances;
+    private final int bestIndex;
+
+    NBestScore(int[] distances) {
+        this.distances = distances;
+
+        // ties go to the later candidate, same as the original n-best loop
+        int best = -1;
+        for (int i = 0; i < distances.length; i++) {
+            if (best < 0 || distances[i] <= distances[best]) best = i;
+        }
+        this.bestIndex = best;
+    }
+
+    public int size() {
+        return distances.length;
+    }
+
+    public int getDistance(int index) {
+        return distances[index];
+    }
+
+    /**
+     * @return whether {@link #getDistance(int)} is exact; if not, the candidate was cut off
+     *         once it could no longer beat the best one, and its distance is a lower bound
+     *         above the best distance
+     */
+    public boolean isExact(int index) {
+        return index == 0 || distances[index] <= getBestDistance();
+    }
+
+    public int[] getDistances() {
+        return distances.clone();
+    }
+
+    /**
+     * @return index of the best candidate, -1 for an empty n-best list
+     */
+    public int getBestIndex() {
+        return bestIndex;
+    }
+
+    public int getBestDistance() {
+        return bestIndex < 0 ? -1 : distances[bestIndex];
+    }
+}
@@ -0,0 +1,133 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scores a whole n-best list against one reference. The reference is compiled once
+ * ({@link BitParallelLevenshtein}) and shared by all candidates; large lists are split
+ * across cores with fork-join.
+ *
+ * The first candidate, which gives the player's score, is scored in full. Every other
+ * candidate only has to beat the best distance found so far and is cut off as soon as it
+ * cannot, see {@link NBestScore#isExact(int)}.
+ *
+ * Built from a {@link ReferenceProfile}, candidates are compared in their normalized form
+ * (see {@link TextNormalizer}); each range of candidates reuses one buffer for that. Built
+ * from a plain string, the raw chars are compared.
+ */
+public final class NBestScorer {
+    // below this many candidates the fork-join overhead outweighs the gain
+    static final int PARALLEL_THRESHOLD = 32;
+    private static final int LEAF_SIZE = 8;
+
+    private static ForkJoinPool pool;
+
+    private final String reference;
+    private final BitParallelLevenshtein matcher;
+    private final TextNormalizer normalizer;
+
+    public NBestScorer(String reference) {
+        if(reference == null) throw new IllegalArgumentException("reference MUST NOT be NULL");
+
+        this.reference = reference;
+        this.matcher = new BitParallelLevenshtein(reference);
+        this.normalizer = null;
+    }
+
+    public NBestScorer(ReferenceProfile profile) {
+        if(profile == null) throw new IllegalArgumentException("profile MUST NOT be NULL");
+
+        this.reference = profile.getText();
+        this.matcher = profile.getMatcher();
+        this.normalizer = profile.getNormalizer();
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public int score(CharSequence hypothesis) {
+        return distance(hypothesis, normalizer == null ? null : new NormalizedText(), Integer.MAX_VALUE);
+    }
+
+    public NBestScore score(CharSequence[] hypotheses) {
+        int[] distances = new int[hypotheses.length];
+        if (hypotheses.length == 0) {
+            return new NBestScore(distances);
+        }
+
+        NormalizedText buffer = normalizer == null ? null : new NormalizedText();
+        distances[0] = distance(hypotheses[0], buffer, Integer.MAX_VALUE);
+        if (hypotheses.length < PARALLEL_THRESHOLD) {
+            int best = distances[0];
+            for (int i = 1; i < hypotheses.length; i++) {
+                distances[i] = distance(hypotheses[i], buffer, best);
+                if (distances[i] < best) best = distances[i];
+            }
+        } else {
+            // leaves share the best distance so far as their bound
+            getPool().invoke(new ScoreTask(hypotheses, distances, new AtomicInteger(distances[0]), 1, hypotheses.length));
+        }
+
+        return new NBestScore(distances);
+    }
+
+    private void scoreRange(CharSequence[] hypotheses, int[] distances, AtomicInteger best, int from, int to) {
+        NormalizedText buffer = normalizer == null ? null : new NormalizedText();
+        for (int i = from; i < to; i++) {
+            int distance = distance(hypotheses[i], buffer, best.get());
+            distances[i] = distance;
+
+            int current = best.get();
+            while (distance < current && !best.compareAndSet(current, distance)) {
+                current = best.get();
+            }
+        }
+    }
+
+    private int distance(CharSequence hypothesis, NormalizedText buffer, int maxDistance) {
+        if (buffer == null || hypothesis == null) {
+            return matcher.distance(hypothesis, maxDistance);
+        }
+        return matcher.distance(normalizer.normalize(hypothesis, buffer), maxDistance);
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool();
+        }
+        return pool;
+    }
+
+    private final class ScoreTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence[] hypotheses;
+        private final int[] distances;
+        private final AtomicInteger best;
+        private final int from;
+        private final int to;
+
+        ScoreTask(CharSequence[] hypotheses, int[] distances, AtomicInteger best, int from, int to) {
+            this.hypotheses = hypotheses;
+            this.distances = distances;
+            this.best = best;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                scoreRange(hypotheses, distances, best, from, to);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(hypotheses, distances, best, from, mid),
+                    new ScoreTask(hypotheses, distances, best, mid, to));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Reusable output buffer of a {@link TextNormalizer}. Grows as needed and is overwritten by
+ * every {@link TextNormalizer#normalize(CharSequence, NormalizedText)}, so one instance can
+ * serve a whole n-best list or a stream of partial results without allocating.
+ *
+ * Not thread-safe, one buffer per thread.
+ */
+public final class NormalizedText implements CharSequence {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private char[] chars;
+    private int length;
+
+    public NormalizedText() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public NormalizedText(int capacity) {
+        this.chars = new char[Math.max(capacity, 1)];
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length) throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    // --- used by TextNormalizer
+
+    void clear() {
+        length = 0;
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity <= chars.length) return;
+
+        int newCapacity = chars.length;
+        while (newCapacity < capacity) newCapacity <<= 1;
+
+        char[] newChars = new char[newCapacity];
+        System.arraycopy(chars, 0, newChars, 0, length);
+        chars = newChars;
+    }
+
+    void append(char c) {
+        chars[length++] = c;
+    }
+
+    char last() {
+        return length == 0 ? 0 : chars[length - 1];
+    }
+
+    void trimTrailingSpace() {
+        if (length > 0 && chars[length - 1] == ' ') length--;
+    }
+}
@@ -0,0 +1,15 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Turns one word into a code of how it sounds, so spellings the recognizer may choose
+ * between ("Fritze", "Fritzi") end up with the same code. Implementations are stateless.
+ */
+public interface PhoneticEncoder {
+
+    /**
+     * Appends the code of {@code word} to {@code out}.
+     *
+     * @param word one lower case word, as produced by {@link WordTokenizer}
+     */
+    void encode(CharSequence word, StringBuilder out);
+}
@@ -0,0 +1,58 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Edit distance between phonetic codes instead of letters. The reference is encoded once;
+ * each hypothesis is encoded word by word with the language's {@link PhoneticEncoder} and
+ * compared with the reference code, which is a fraction of the length of the text. Words
+ * are separated by a space in the code, so a dropped word still costs something.
+ *
+ * Immutable; part of the {@link ReferenceProfile}, so it is shared by every attempt at a
+ * twister.
+ */
+public final class PhoneticScorer {
+    private static final PhoneticEncoder GERMAN = new KoelnerPhonetik();
+    private static final PhoneticEncoder ENGLISH = new DoubleMetaphone();
+    private static final PhoneticEncoder FRENCH = new FrenchPhonetic();
+
+    private final PhoneticEncoder encoder;
+    private final String referenceCode;
+    private final BitParallelLevenshtein matcher;
+
+    public PhoneticScorer(String language, CharSequence reference) {
+        if(reference == null) throw new IllegalArgumentException("reference MUST NOT be NULL");
+
+        this.encoder = encoderFor(language);
+        this.referenceCode = encode(encoder, reference);
+        this.matcher = new BitParallelLevenshtein(referenceCode);
+    }
+
+    /**
+     * @return Kölner Phonetik for German, the French encoder for French, Double Metaphone otherwise
+     */
+    public static PhoneticEncoder encoderFor(String language) {
+        if (language != null && language.startsWith("de")) return GERMAN;
+        if (language != null && language.startsWith("fr")) return FRENCH;
+        return ENGLISH;
+    }
+
+    public String getReferenceCode() {
+        return referenceCode;
+    }
+
+    public String encode(CharSequence text) {
+        return encode(encoder, text);
+    }
+
+    public int distance(CharSequence hypothesis) {
+        return matcher.distance(encode(encoder, hypothesis));
+    }
+
+    static String encode(PhoneticEncoder encoder, CharSequence text) {
+        StringBuilder code = new StringBuilder();
+        for (String word : WordTokenizer.tokenize(text)) {
+            if (code.length() > 0) code.append(' ');
+            encoder.encode(word, code);
+        }
+        return code.toString();
+    }
+}
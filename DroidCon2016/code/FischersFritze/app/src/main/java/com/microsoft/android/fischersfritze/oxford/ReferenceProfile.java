@@ -0,0 +1,88 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Everything the scorers precompute for one twister: the text as folded by the language's
+ * {@link TextNormalizer}, the words and word token ids of the folded text, the bit-vector match masks of the folded text
+ * and the phonetic code. Immutable, built once per twister and language and
+ * shared through {@link ReferenceProfileCache}.
+ */
+public final class ReferenceProfile {
+    private final String language;
+    private final String text;
+    private final TextNormalizer normalizer;
+    private final String normalized;
+    private final String[] words;
+    private final int[] tokens;
+    private final BitParallelLevenshtein matcher;
+    private final WordLevenshtein wordScorer;
+    private final PhoneticScorer phoneticScorer;
+
+    public ReferenceProfile(String language, String text) {
+        if(language == null) throw new IllegalArgumentException("language MUST NOT be NULL");
+        if(text == null) throw new IllegalArgumentException("text MUST NOT be NULL");
+
+        TextNormalizer normalizer = TextNormalizer.forLanguage(language);
+        String normalized = normalizer.normalize(text);
+        TokenDictionary dictionary = TokenDictionary.forLanguage(language);
+        String[] words = WordTokenizer.tokenize(normalized);
+        int[] ids = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            ids[i] = dictionary.intern(words[i]);
+        }
+
+        this.language = language;
+        this.text = text;
+        this.normalizer = normalizer;
+        this.normalized = normalized;
+        this.words = words;
+        this.tokens = ids;
+        this.matcher = new BitParallelLevenshtein(normalized);
+        this.wordScorer = new WordLevenshtein(dictionary, ids, normalizer);
+        this.phoneticScorer = new PhoneticScorer(language, text);
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the normalizer hypotheses have to go through before they meet {@link #getMatcher()}
+     */
+    public TextNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    public String getNormalized() {
+        return normalized;
+    }
+
+    /**
+     * @return the words of the normalized text, as the word scorers see them
+     */
+    public String[] getWords() {
+        return words.clone();
+    }
+
+    public int[] getTokens() {
+        return tokens.clone();
+    }
+
+    /**
+     * @return matcher over the normalized text
+     */
+    public BitParallelLevenshtein getMatcher() {
+        return matcher;
+    }
+
+    public WordLevenshtein getWordScorer() {
+        return wordScorer;
+    }
+
+    public PhoneticScorer getPhoneticScorer() {
+        return phoneticScorer;
+    }
+}
@@ -0,0 +1,87 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of {@link ReferenceProfile}s keyed by language and twister text.
+ * Players retry the same twister over and over, so its profile is built once and every
+ * later attempt reuses it. Hit, miss and eviction counters are kept to size the cache.
+ */
+public final class ReferenceProfileCache {
+    private final int capacity;
+    private final LinkedHashMap<String, ReferenceProfile> profiles;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ReferenceProfileCache(int capacity) {
+        if(capacity < 1) throw new IllegalArgumentException("capacity MUST be positive");
+
+        this.capacity = capacity;
+        // access order turns the LinkedHashMap into an LRU list
+        this.profiles = new LinkedHashMap<String, ReferenceProfile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ReferenceProfile> eldest) {
+                if (size() > ReferenceProfileCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public ReferenceProfile get(String language, String text) {
+        String key = key(language, text);
+        synchronized (this) {
+            ReferenceProfile profile = profiles.get(key);
+            if (profile != null) {
+                hits++;
+                return profile;
+            }
+            misses++;
+        }
+
+        // built outside the lock; a concurrent miss on the same key just builds it twice
+        ReferenceProfile profile = new ReferenceProfile(language, text);
+        synchronized (this) {
+            profiles.put(key, profile);
+        }
+        return profile;
+    }
+
+    public synchronized void clear() {
+        profiles.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return profiles.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "size=" + profiles.size() + "/" + capacity + " hits=" + hits + " misses=" + misses + " evictions=" + evictions;
+    }
+
+    private static String key(String language, String text) {
+        return language + '\n' + text;
+    }
+}
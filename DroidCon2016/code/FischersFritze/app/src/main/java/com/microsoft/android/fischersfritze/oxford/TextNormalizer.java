@@ -0,0 +1,153 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.text.Normalizer;
+
+/**
+ * Folds text into the form the scorers compare: lower case, no diacritics, punctuation
+ * turned into word breaks, whitespace collapsed to single spaces and trimmed. "Dänen" and
+ * "Daenen", "Pêcheur" and "pecheur" come out the same, and the "?" at the end of a twister
+ * no longer costs an edit.
+ *
+ * Every char below {@link #TABLE_SIZE} (Latin-1 and Latin Extended-A) is looked up in a
+ * table built once per language; each entry holds up to two output chars, so "ä" can fold
+ * to "ae" in German and to "a" elsewhere. Other letters and digits are lower-cased and, if
+ * that lands in the table ("ẞ" to "ß"), folded further; everything else separates words. Normalizing into a {@link NormalizedText} allocates
+ * nothing.
+ *
+ * Immutable and thread-safe.
+ */
+public final class TextNormalizer {
+    static final int TABLE_SIZE = 0x180;
+
+    // table entries: no output at all, or a word break
+    private static final char DROP = 0;
+    private static final char BREAK = ' ';
+
+    private static final TextNormalizer GERMAN = new TextNormalizer(Language.German);
+    private static final TextNormalizer FRENCH = new TextNormalizer(Language.French);
+    private static final TextNormalizer ENGLISH = new TextNormalizer(Language.English);
+
+    private enum Language { German, French, English }
+
+    private final char[] first = new char[TABLE_SIZE];
+    private final char[] second = new char[TABLE_SIZE];
+
+    private TextNormalizer(Language language) {
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            first[c] = Character.isLetterOrDigit(c) ? baseLetter(Character.toLowerCase(c)) : BREAK;
+        }
+
+        // letters without a decomposition
+        fold('ß', "ss");
+        fold('æ', "ae");
+        fold('œ', "oe");
+        fold('ĳ', "ij");
+        fold('ø', "o");
+        fold('đ', "d");
+        fold('ł', "l");
+        fold('ı', "i");
+
+        switch (language) {
+            case German:
+                // Umlauts are spelled out when a keyboard lacks them: Daenen, Moehre
+                fold('ä', "ae");
+                fold('ö', "oe");
+                fold('ü', "ue");
+                // geht's, Fritz'
+                fold('\'', "");
+                break;
+            case French:
+                // l'eau, qu'il: the elided article is a word of its own
+                fold('\'', " ");
+                break;
+            case English:
+                // don't, Peter's
+                fold('\'', "");
+                break;
+        }
+    }
+
+    /**
+     * @return the folding rules of a language: German for "de", French for "fr", English otherwise
+     */
+    public static TextNormalizer forLanguage(String language) {
+        if (language != null && language.startsWith("de")) return GERMAN;
+        if (language != null && language.startsWith("fr")) return FRENCH;
+        return ENGLISH;
+    }
+
+    /**
+     * Normalizes {@code text} into {@code out}, replacing whatever it held before.
+     *
+     * @return {@code out}
+     */
+    public NormalizedText normalize(CharSequence text, NormalizedText out) {
+        if(out == null) throw new IllegalArgumentException("out MUST NOT be NULL");
+
+        out.clear();
+        if (text == null) return out;
+
+        int length = text.length();
+        // every char folds to at most two
+        out.ensureCapacity(length * 2);
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            // typographic apostrophes, as in the corpus
+            if (c == '’' || c == '‘') c = '\'';
+
+            char a;
+            char b = 0;
+            if (c < TABLE_SIZE) {
+                a = first[c];
+                b = second[c];
+            } else if (Character.isLetterOrDigit(c)) {
+                char lower = Character.toLowerCase(c);
+                a = lower < TABLE_SIZE ? first[lower] : lower;
+                b = lower < TABLE_SIZE ? second[lower] : 0;
+            } else {
+                a = BREAK;
+            }
+
+            if (a == DROP) continue;
+            if (a == BREAK) {
+                if (out.length() > 0 && out.last() != BREAK) out.append(BREAK);
+                continue;
+            }
+
+            out.append(a);
+            if (b != 0) out.append(b);
+        }
+        out.trimTrailingSpace();
+
+        return out;
+    }
+
+    public String normalize(CharSequence text) {
+        return normalize(text, new NormalizedText(text == null ? 1 : text.length() * 2)).toString();
+    }
+
+    private void fold(char c, String replacement) {
+        char lower = Character.toLowerCase(c);
+        char upper = Character.toUpperCase(c);
+        set(c, replacement);
+        if (lower < TABLE_SIZE) set(lower, replacement);
+        if (upper < TABLE_SIZE) set(upper, replacement);
+    }
+
+    private void set(char c, String replacement) {
+        if (c >= TABLE_SIZE) return;
+
+        first[c] = replacement.length() > 0 ? replacement.charAt(0) : DROP;
+        second[c] = replacement.length() > 1 ? replacement.charAt(1) : 0;
+    }
+
+    // é -> e; only used while the tables are built
+    private static char baseLetter(char c) {
+        if (c < 0x80) return c;
+
+        String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+        char base = decomposed.charAt(0);
+        return base < 0x80 && Character.isLetter(base) ? base : c;
+    }
+}
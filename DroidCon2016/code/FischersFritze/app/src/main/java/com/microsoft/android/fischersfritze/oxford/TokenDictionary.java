@@ -0,0 +1,85 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-language word dictionary that interns tokens into dense int ids, so word-level
+ * scoring can compare plain ints instead of strings.
+ *
+ * Only reference text (the twisters) is interned. Hypothesis tokens are looked up and
+ * map to {@link #UNKNOWN} when the dictionary has never seen them; since the reference
+ * only holds known ids, an unknown word can never match and does not need an id of its own.
+ *
+ * Lookups and the interning of known tokens are concurrent map reads and never lock, so
+ * scorers on many threads do not queue up on one dictionary; only a new token takes the lock.
+ */
+public final class TokenDictionary {
+    public static final int UNKNOWN = -1;
+
+    private static final Map<String, TokenDictionary> dictionaries = new HashMap<>();
+
+    private final String language;
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private TokenDictionary(String language) {
+        this.language = language;
+    }
+
+    public static synchronized TokenDictionary forLanguage(String language) {
+        TokenDictionary dictionary = dictionaries.get(language);
+        if (dictionary == null) {
+            dictionary = new TokenDictionary(language);
+            dictionaries.put(language, dictionary);
+        }
+        return dictionary;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public int intern(String token) {
+        Integer id = ids.get(token);
+        return id != null ? id : add(token);
+    }
+
+    public int lookup(String token) {
+        Integer id = ids.get(token);
+        return id == null ? UNKNOWN : id;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public int[] internTokens(CharSequence text) {
+        String[] tokens = WordTokenizer.tokenize(text);
+        int[] result = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            result[i] = intern(tokens[i]);
+        }
+        return result;
+    }
+
+    public int[] lookupTokens(CharSequence text) {
+        String[] tokens = WordTokenizer.tokenize(text);
+        int[] result = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            result[i] = lookup(tokens[i]);
+        }
+        return result;
+    }
+
+    // ids stay dense because only one thread at a time hands them out
+    private synchronized int add(String token) {
+        Integer id = ids.get(token);
+        if (id == null) {
+            id = ids.size();
+            ids.put(token, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,176 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view of a compiled tongue twister corpus (see {@link TwisterCorpusWriter}).
+ *
+ * Layout, all ints big endian:
+ * <pre>
+ * header:   magic 'TTC1', version, language count
+ * sections: per language: tag length (short), tag (UTF-8), twister count,
+ *           index offset, payload offset
+ * index:    per language: count + 1 payload offsets, relative to the payload start,
+ *           then count twister ids
+ * payload:  per language: UTF-8 twister text, back to back
+ * </pre>
+ *
+ * Only the section table is parsed when the corpus is opened. A twister is decoded from the
+ * (usually memory mapped) buffer when it is asked for, so looking one up is O(1) and no
+ * language has to be loaded onto the heap as a whole.
+ *
+ * Scores and archived attempts refer to a twister by its id, see {@link #idOf(String)}, not
+ * by its position, which changes whenever a source line is added, removed or moved.
+ */
+public final class TwisterCorpus {
+    static final int MAGIC = 0x54544331; // 'TTC1'
+    static final int VERSION = 2;
+    /** Id of a twister that is not from the corpus. */
+    public static final int NO_ID = -1;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+    private final Map<String, Section> sections;
+
+    private TwisterCorpus(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.duplicate();
+
+        ByteBuffer header = buffer.duplicate();
+        if (header.getInt() != MAGIC) throw new IOException("not a tongue twister corpus");
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException("unsupported corpus version " + version);
+
+        int languages = header.getInt();
+        Map<String, Section> result = new HashMap<>();
+        for (int i = 0; i < languages; i++) {
+            byte[] tag = new byte[header.getShort()];
+            header.get(tag);
+            Section section = new Section(header.getInt(), header.getInt(), header.getInt());
+            result.put(new String(tag, UTF_8), section);
+        }
+        this.sections = Collections.unmodifiableMap(result);
+    }
+
+    public static TwisterCorpus wrap(ByteBuffer buffer) throws IOException {
+        return new TwisterCorpus(buffer);
+    }
+
+    public static TwisterCorpus map(FileChannel channel, long offset, long length) throws IOException {
+        return new TwisterCorpus(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    public static TwisterCorpus open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // the mapping stays valid after the channel is closed
+            return map(raf.getChannel(), 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    public Set<String> getLanguages() {
+        return sections.keySet();
+    }
+
+    public boolean hasLanguage(String language) {
+        return sections.containsKey(language);
+    }
+
+    public int count(String language) {
+        Section section = sections.get(language);
+        return section == null ? 0 : section.count;
+    }
+
+    public String get(String language, int index) {
+        Section section = section(language, index);
+        int start = offset(section, index);
+        int end = offset(section, index + 1);
+
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(section.payloadOffset + end);
+        slice.position(section.payloadOffset + start);
+        return UTF_8.decode(slice).toString();
+    }
+
+    /**
+     * @return encoded length of a twister in bytes, straight from the index
+     */
+    public int byteLength(String language, int index) {
+        Section section = section(language, index);
+        return offset(section, index + 1) - offset(section, index);
+    }
+
+    /**
+     * @return stable id of the twister at {@code index}, as written by the compiler
+     */
+    public int getId(String language, int index) {
+        Section section = section(language, index);
+        return buffer.getInt(section.indexOffset + (section.count + 1 + index) * 4);
+    }
+
+    /**
+     * @return index of the twister with that id in its language, or -1 if there is none
+     */
+    public int indexOfId(String language, int id) {
+        Section section = sections.get(language);
+        if (section == null) return -1;
+
+        Map<Integer, Integer> byId = section.byId;
+        if (byId == null) {
+            // built on first use, a race only builds the same map twice
+            byId = new HashMap<>(section.count * 2);
+            for (int i = 0; i < section.count; i++) byId.put(getId(language, i), i);
+            section.byId = byId;
+        }
+        Integer index = byId.get(id);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Stable, non-negative id of a twister: the 31 low bits of the FNV-1a hash of its UTF-8
+     * text. It stays the same wherever the twister moves in its source; the compiler
+     * rejects two twisters of one language with the same id.
+     */
+    public static int idOf(String twister) {
+        int hash = 0x811C9DC5;
+        for (byte b : twister.getBytes(UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash & 0x7FFFFFFF;
+    }
+
+    private Section section(String language, int index) {
+        Section section = sections.get(language);
+        if (section == null) throw new IllegalArgumentException("unknown language " + language);
+        if (index < 0 || index >= section.count) throw new IndexOutOfBoundsException("index " + index + " of " + section.count);
+        return section;
+    }
+
+    private int offset(Section section, int index) {
+        return buffer.getInt(section.indexOffset + index * 4);
+    }
+
+    private static final class Section {
+        final int count;
+        final int indexOffset;
+        final int payloadOffset;
+        volatile Map<Integer, Integer> byId;
+
+        Section(int count, int indexOffset, int payloadOffset) {
+            this.count = count;
+            this.indexOffset = indexOffset;
+            this.payloadOffset = payloadOffset;
+        }
+    }
+}
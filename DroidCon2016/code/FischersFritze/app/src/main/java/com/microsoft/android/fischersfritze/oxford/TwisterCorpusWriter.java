@@ -0,0 +1,120 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles tongue twisters into the binary format read by {@link TwisterCorpus}, each with
+ * its stable id ({@link TwisterCorpus#idOf(String)}).
+ */
+public final class TwisterCorpusWriter {
+    private final Map<String, List<String>> languages = new LinkedHashMap<>();
+    private final Map<String, Set<Integer>> ids = new LinkedHashMap<>();
+
+    public TwisterCorpusWriter add(String language, String twister) {
+        if(language == null) throw new IllegalArgumentException("language MUST NOT be NULL");
+        if(twister == null) throw new IllegalArgumentException("twister MUST NOT be NULL");
+
+        List<String> twisters = languages.get(language);
+        if (twisters == null) {
+            twisters = new ArrayList<>();
+            languages.put(language, twisters);
+            ids.put(language, new HashSet<Integer>());
+        }
+        // a duplicate, or a hash collision that needs the twister reworded
+        if(!ids.get(language).add(TwisterCorpus.idOf(twister))) throw new IllegalArgumentException("twister id of \"" + twister + "\" already taken in " + language);
+        twisters.add(twister);
+        return this;
+    }
+
+    /**
+     * Reads one twister per line. Blank lines and lines starting with '#' are skipped.
+     */
+    public TwisterCorpusWriter addSource(String language, Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            add(language, line);
+        }
+        return this;
+    }
+
+    public ByteBuffer toByteBuffer() {
+        List<byte[]> tags = new ArrayList<>();
+        List<byte[][]> payloads = new ArrayList<>();
+        int headerSize = 12;
+        for (Map.Entry<String, List<String>> entry : languages.entrySet()) {
+            byte[] tag = entry.getKey().getBytes(TwisterCorpus.UTF_8);
+            tags.add(tag);
+            headerSize += 2 + tag.length + 12;
+
+            byte[][] encoded = new byte[entry.getValue().size()][];
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = entry.getValue().get(i).getBytes(TwisterCorpus.UTF_8);
+            }
+            payloads.add(encoded);
+        }
+
+        int size = headerSize;
+        for (byte[][] encoded : payloads) {
+            size += (encoded.length + 1) * 4 + encoded.length * 4;
+            for (byte[] twister : encoded) size += twister.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(TwisterCorpus.MAGIC);
+        buffer.putInt(TwisterCorpus.VERSION);
+        buffer.putInt(tags.size());
+
+        int offset = headerSize;
+        for (int l = 0; l < tags.size(); l++) {
+            byte[][] encoded = payloads.get(l);
+            int indexOffset = offset;
+            int payloadOffset = indexOffset + (encoded.length + 1) * 4 + encoded.length * 4;
+
+            buffer.putShort((short) tags.get(l).length);
+            buffer.put(tags.get(l));
+            buffer.putInt(encoded.length);
+            buffer.putInt(indexOffset);
+            buffer.putInt(payloadOffset);
+
+            int payloadSize = 0;
+            for (byte[] twister : encoded) payloadSize += twister.length;
+            offset = payloadOffset + payloadSize;
+        }
+
+        int section = 0;
+        for (List<String> twisters : languages.values()) {
+            byte[][] encoded = payloads.get(section++);
+            int relative = 0;
+            buffer.putInt(relative);
+            for (byte[] twister : encoded) {
+                relative += twister.length;
+                buffer.putInt(relative);
+            }
+            for (String twister : twisters) buffer.putInt(TwisterCorpus.idOf(twister));
+            for (byte[] twister : encoded) buffer.put(twister);
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    public void writeTo(File file) throws IOException {
+        ByteBuffer buffer = toByteBuffer();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            while (buffer.hasRemaining()) out.getChannel().write(buffer);
+        } finally {
+            out.close();
+        }
+    }
+}
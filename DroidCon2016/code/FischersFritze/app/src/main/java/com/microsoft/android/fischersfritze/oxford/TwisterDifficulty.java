@@ -0,0 +1,35 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * How hard a twister is to say, as the number of sounds in it: the length of its phonetic
+ * code without word breaks. Spelling does not count, so "Fischers Fritze" is no harder
+ * than it sounds, while long runs of distinct consonants are.
+ */
+public final class TwisterDifficulty {
+
+    private TwisterDifficulty() {
+    }
+
+    /**
+     * @return number of phonemes in {@code twister}, at least 1
+     */
+    public static int of(String language, CharSequence twister) {
+        String code = PhoneticScorer.encode(PhoneticScorer.encoderFor(language), twister);
+        int phonemes = 0;
+        for (int i = 0; i < code.length(); i++) {
+            if (code.charAt(i) != ' ') phonemes++;
+        }
+        return Math.max(1, phonemes);
+    }
+
+    /**
+     * @return difficulty of every twister of a corpus section, by index
+     */
+    public static int[] index(TwisterCorpus corpus, String language) {
+        int[] difficulties = new int[corpus.count(language)];
+        for (int i = 0; i < difficulties.length; i++) {
+            difficulties[i] = of(language, corpus.get(language, i));
+        }
+        return difficulties;
+    }
+}
@@ -0,0 +1,154 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.util.Random;
+
+/**
+ * Picks the next twister of one language. Two orders are supported:
+ * <ul>
+ *     <li>{@link Mode#Shuffle}: a shuffle bag. Every twister comes up once before any of
+ *     them repeats, and a new round never starts with the twister that ended the last one.
+ *     The bag is shuffled as it is drawn from, one Fisher-Yates step per draw.</li>
+ *     <li>{@link Mode#Weighted}: independent draws with a probability proportional to the
+ *     twister's {@link TwisterDifficulty}, so harder twisters come up more often. Uses
+ *     Vose's alias method: one table lookup and one coin flip per draw.</li>
+ * </ul>
+ * Tables are built once, the alias table from the difficulty index, which only the weighted
+ * mode computes; a draw takes constant time and allocates nothing, however large the corpus.
+ *
+ * Not thread-safe.
+ */
+public final class TwisterScheduler {
+
+    public enum Mode { Shuffle, Weighted }
+
+    private final TwisterCorpus corpus;
+    private final String language;
+    private final Mode mode;
+    private final Random random;
+    private final int size;
+
+    // shuffle bag: order[0, position) was drawn in this round
+    private int[] order;
+    private int position;
+    private boolean drawn;
+
+    // alias tables
+    private double[] probability;
+    private int[] alias;
+
+    public TwisterScheduler(TwisterCorpus corpus, String language, Mode mode, Random random) {
+        this(corpus, language, mode, random, mode == Mode.Weighted ? TwisterDifficulty.index(corpus, language) : null);
+    }
+
+    /**
+     * @param difficulties difficulty of every twister of the section, by index; only the
+     *                     weighted mode uses it, the shuffle mode takes null
+     */
+    public TwisterScheduler(TwisterCorpus corpus, String language, Mode mode, Random random, int[] difficulties) {
+        if(corpus == null) throw new IllegalArgumentException("corpus MUST NOT be NULL");
+        if(mode == null) throw new IllegalArgumentException("mode MUST NOT be NULL");
+        if(random == null) throw new IllegalArgumentException("random MUST NOT be NULL");
+        if(mode == Mode.Weighted && difficulties == null) throw new IllegalArgumentException("difficulties MUST NOT be NULL");
+        if(corpus.count(language) == 0) throw new IllegalArgumentException("no twisters for " + language);
+        if(difficulties != null && difficulties.length != corpus.count(language)) throw new IllegalArgumentException("difficulties MUST cover every twister");
+
+        this.corpus = corpus;
+        this.language = language;
+        this.mode = mode;
+        this.random = random;
+        this.size = corpus.count(language);
+
+        if (mode == Mode.Shuffle) {
+            order = new int[size];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+        } else {
+            buildAliasTable(difficulties);
+        }
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String next() {
+        return corpus.get(language, nextIndex());
+    }
+
+    public int nextIndex() {
+        return mode == Mode.Shuffle ? nextShuffled() : nextWeighted();
+    }
+
+    private int nextShuffled() {
+        int n = order.length;
+        if (position == n) position = 0;
+
+        // the twister drawn last sits at the end of the bag, keep it out of the first draw
+        int bound = position == 0 && drawn && n > 1 ? n - 1 : n;
+        drawn = true;
+        int pick = position + random.nextInt(bound - position);
+        int index = order[pick];
+        order[pick] = order[position];
+        order[position++] = index;
+        return index;
+    }
+
+    private int nextWeighted() {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    private void buildAliasTable(int[] difficulties) {
+        int n = difficulties.length;
+        probability = new double[n];
+        alias = new int[n];
+
+        long total = 0;
+        for (int difficulty : difficulties) {
+            if(difficulty <= 0) throw new IllegalArgumentException("difficulties MUST be positive");
+            total += difficulty;
+        }
+
+        // scaled so the average column holds exactly 1
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = difficulties[i] * (double) n / total;
+            if (scaled[i] < 1.0) small[smallCount++] = i;
+            else large[largeCount++] = i;
+        }
+
+        // fill every short column with the rest from a tall one
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) small[smallCount++] = more;
+            else large[largeCount++] = more;
+        }
+        // whatever is left is full up to rounding
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Edit distance with weighted substitution, insertion, deletion and, optionally, adjacent
+ * transposition (optimal string alignment). Meant for long texts scored offline, where
+ * {@link BitParallelLevenshtein} does not apply because the costs are not all one.
+ *
+ * {@link #distance} fills the DP matrix row by row. {@link #distanceByDiagonals} fills it one
+ * anti-diagonal at a time: all cells of a diagonal depend only on the previous diagonals,
+ * never on each other, which lets the Vector API kernel in the tools module compute several
+ * of them at once. Only the last five diagonals are kept, each indexed by the row. As a
+ * scalar loop the diagonals run slower than the rows (about 0.7x on JDK 17), so the rows are
+ * what a plain JVM uses.
+ *
+ * Immutable and thread-safe.
+ */
+public final class WeightedEditDistance {
+    /** Transposition cost that turns transpositions off. */
+    public static final int NO_TRANSPOSITION = -1;
+
+    public static final WeightedEditDistance LEVENSHTEIN = new WeightedEditDistance(1, 1, 1, NO_TRANSPOSITION);
+    public static final WeightedEditDistance OPTIMAL_STRING_ALIGNMENT = new WeightedEditDistance(1, 1, 1, 1);
+
+    // diagonals k, k - 1, k - 2, k - 3 and k - 4
+    static final int RING = 5;
+
+    private final int substitution;
+    private final int insertion;
+    private final int deletion;
+    private final int transposition;
+
+    /**
+     * @param insertion cost of a char of the second text that is not in the first
+     * @param deletion cost of a char of the first text that is missing from the second
+     * @param transposition cost of two swapped neighbours, or {@link #NO_TRANSPOSITION}
+     */
+    public WeightedEditDistance(int substitution, int insertion, int deletion, int transposition) {
+        if(substitution < 0) throw new IllegalArgumentException("substitution MUST NOT be negative");
+        if(insertion < 0) throw new IllegalArgumentException("insertion MUST NOT be negative");
+        if(deletion < 0) throw new IllegalArgumentException("deletion MUST NOT be negative");
+        if(transposition < 0 && transposition != NO_TRANSPOSITION) throw new IllegalArgumentException("transposition MUST NOT be negative");
+
+        this.substitution = substitution;
+        this.insertion = insertion;
+        this.deletion = deletion;
+        this.transposition = transposition;
+    }
+
+    public int getSubstitution() {
+        return substitution;
+    }
+
+    public int getInsertion() {
+        return insertion;
+    }
+
+    public int getDeletion() {
+        return deletion;
+    }
+
+    public int getTransposition() {
+        return transposition;
+    }
+
+    public boolean hasTransposition() {
+        return transposition != NO_TRANSPOSITION;
+    }
+
+    /**
+     * @return cost of turning {@code lhs} into {@code rhs}; null counts as empty
+     */
+    public int distance(CharSequence lhs, CharSequence rhs) {
+        int n = lhs == null ? 0 : lhs.length();
+        int m = rhs == null ? 0 : rhs.length();
+        if (n == 0) return m * insertion;
+        if (m == 0) return n * deletion;
+
+        // rows i - 2, i - 1 and i
+        int[] before = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] row = new int[m + 1];
+        for (int j = 0; j <= m; j++) previous[j] = j * insertion;
+
+        for (int i = 1; i <= n; i++) {
+            row[0] = i * deletion;
+            char c = lhs.charAt(i - 1);
+
+            for (int j = 1; j <= m; j++) {
+                int best = previous[j - 1] + (c == rhs.charAt(j - 1) ? 0 : substitution);
+                best = Math.min(best, previous[j] + deletion);
+                best = Math.min(best, row[j - 1] + insertion);
+                if (hasTransposition() && i > 1 && j > 1 && c == rhs.charAt(j - 2) && lhs.charAt(i - 2) == rhs.charAt(j - 1)) {
+                    best = Math.min(best, before[j - 2] + transposition);
+                }
+                row[j] = best;
+            }
+
+            int[] swap = before; before = previous; previous = row; row = swap;
+        }
+
+        return previous[m];
+    }
+
+    /**
+     * The same distance, filled by anti-diagonals; the scalar reference for the vector kernel.
+     */
+    public int distanceByDiagonals(CharSequence lhs, CharSequence rhs) {
+        int n = lhs == null ? 0 : lhs.length();
+        int m = rhs == null ? 0 : rhs.length();
+        if (n == 0) return m * insertion;
+        if (m == 0) return n * deletion;
+
+        int[] a = codes(lhs);
+        int[] rb = reversedCodes(rhs);
+        int[][] diagonals = new int[RING][n + 1];
+
+        for (int k = 0; k <= n + m; k++) {
+            int[] current = diagonals[k % RING];
+            edges(current, k, n, m);
+            cells(a, rb, m, k, Math.max(1, k - m), Math.min(n, k - 1),
+                    current, diagonals[(k + 4) % RING], diagonals[(k + 3) % RING], diagonals[(k + 1) % RING]);
+        }
+
+        return diagonals[(n + m) % RING][n];
+    }
+
+    // --- anti-diagonal pieces, shared with the vector kernel
+
+    /**
+     * Fills the cells of diagonal {@code k} in the first column and the first row.
+     */
+    void edges(int[] current, int k, int n, int m) {
+        // i == 0, j == k
+        if (k <= m) current[0] = k * insertion;
+        // j == 0, i == k
+        if (k <= n) current[k] = k * deletion;
+    }
+
+    /**
+     * Fills rows {@code from..to} of diagonal {@code k}, none of them in the first row or
+     * column. {@code rb} is the second text reversed, so b[j - 1] is rb[i + m - k].
+     */
+    void cells(int[] a, int[] rb, int m, int k, int from, int to,
+               int[] current, int[] previous, int[] before, int[] fourBack) {
+        int offset = m - k;
+        if (!hasTransposition()) {
+            plainCells(a, rb, offset, from, to, current, previous, before);
+            return;
+        }
+
+        // a[i - 1] == b[j - 2] and a[i - 2] == b[j - 1] needs i > 1 and j > 1
+        int swapFrom = Math.max(from, 2);
+        int swapTo = Math.min(to, k - 2);
+        if (swapFrom > swapTo) {
+            plainCells(a, rb, offset, from, to, current, previous, before);
+            return;
+        }
+
+        plainCells(a, rb, offset, from, swapFrom - 1, current, previous, before);
+        for (int i = swapFrom; i <= swapTo; i++) {
+            int c = a[i - 1];
+            int d = rb[i + offset];
+            int best = before[i - 1] + (c == d ? 0 : substitution);
+            best = Math.min(best, previous[i - 1] + deletion);
+            best = Math.min(best, previous[i] + insertion);
+            int swapped = c == rb[i + offset + 1] && a[i - 2] == d ? fourBack[i - 2] + transposition : best;
+            current[i] = Math.min(best, swapped);
+        }
+        plainCells(a, rb, offset, swapTo + 1, to, current, previous, before);
+    }
+
+    private void plainCells(int[] a, int[] rb, int offset, int from, int to,
+                            int[] current, int[] previous, int[] before) {
+        for (int i = from; i <= to; i++) {
+            int best = before[i - 1] + (a[i - 1] == rb[i + offset] ? 0 : substitution);
+            best = Math.min(best, previous[i - 1] + deletion);
+            best = Math.min(best, previous[i] + insertion);
+            current[i] = best;
+        }
+    }
+
+    static int[] codes(CharSequence text) {
+        int[] codes = new int[text.length()];
+        for (int i = 0; i < codes.length; i++) codes[i] = text.charAt(i);
+        return codes;
+    }
+
+    static int[] reversedCodes(CharSequence text) {
+        int length = text.length();
+        int[] codes = new int[length];
+        for (int i = 0; i < length; i++) codes[i] = text.charAt(length - 1 - i);
+        return codes;
+    }
+}
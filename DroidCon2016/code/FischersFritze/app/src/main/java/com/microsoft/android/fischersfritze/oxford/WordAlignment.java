@@ -0,0 +1,101 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Word by word diff of a hypothesis against a twister: the words of both, folded by the
+ * language's {@link TextNormalizer} like the char scorers see them, and the
+ * {@link EditScript} between them. Tells which words were
+ * said wrong, left out or added.
+ *
+ * Immutable.
+ */
+public final class WordAlignment {
+    private final String[] referenceWords;
+    private final String[] hypothesisWords;
+    private final EditScript script;
+
+    WordAlignment(String[] referenceWords, String[] hypothesisWords, EditScript script) {
+        this.referenceWords = referenceWords;
+        this.hypothesisWords = hypothesisWords;
+        this.script = script;
+    }
+
+    public static WordAlignment align(ReferenceProfile profile, CharSequence hypothesis) {
+        if(profile == null) throw new IllegalArgumentException("profile MUST NOT be NULL");
+
+        String[] words = WordTokenizer.tokenize(profile.getNormalizer().normalize(hypothesis));
+        TokenDictionary dictionary = TokenDictionary.forLanguage(profile.getLanguage());
+        int[] tokens = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            tokens[i] = dictionary.lookup(words[i]);
+        }
+        return new WordAlignment(profile.getWords(), words, Alignment.align(profile.getTokens(), tokens));
+    }
+
+    public int getReferenceWordCount() {
+        return referenceWords.length;
+    }
+
+    public String getReferenceWord(int index) {
+        return referenceWords[index];
+    }
+
+    public int getHypothesisWordCount() {
+        return hypothesisWords.length;
+    }
+
+    public String getHypothesisWord(int index) {
+        return hypothesisWords[index];
+    }
+
+    public EditScript getScript() {
+        return script;
+    }
+
+    /**
+     * @return number of words said wrong, left out or added
+     */
+    public int getWordErrors() {
+        return script.getDistance();
+    }
+
+    /**
+     * Plain text diff: matched words as they are, {@code [said->expected]} for a wrong word,
+     * {@code -missing-} for a left out and {@code +extra+} for an added one.
+     */
+    public String toDiff() {
+        StringBuilder sb = new StringBuilder();
+        for (EditScript.Span span : script.getSpans()) {
+            switch (span.getOp()) {
+                case Match:
+                    appendWords(sb, referenceWords, span.getReferenceStart(), span.getReferenceEnd(), "", "");
+                    break;
+                case Substitute:
+                    for (int k = 0; k < span.getReferenceEnd() - span.getReferenceStart(); k++) {
+                        if (sb.length() > 0) sb.append(' ');
+                        sb.append('[').append(hypothesisWords[span.getHypothesisStart() + k])
+                                .append("->").append(referenceWords[span.getReferenceStart() + k]).append(']');
+                    }
+                    break;
+                case Delete:
+                    appendWords(sb, referenceWords, span.getReferenceStart(), span.getReferenceEnd(), "-", "-");
+                    break;
+                case Insert:
+                    appendWords(sb, hypothesisWords, span.getHypothesisStart(), span.getHypothesisEnd(), "+", "+");
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toDiff();
+    }
+
+    private static void appendWords(StringBuilder sb, String[] words, int from, int to, String open, String close) {
+        for (int i = from; i < to; i++) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(open).append(words[i]).append(close);
+        }
+    }
+}
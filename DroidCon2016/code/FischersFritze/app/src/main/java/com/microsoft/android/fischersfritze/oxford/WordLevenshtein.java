@@ -0,0 +1,69 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Word-level edit distance. The reference is tokenized and interned once; each hypothesis is
+ * mapped onto the same ids and aligned over {@code int[]} token sequences, so the DP is
+ * words x words instead of chars x chars and its result is a word error count.
+ */
+public final class WordLevenshtein {
+    private final TokenDictionary dictionary;
+    private final int[] reference;
+    // folds hypotheses like the reference was folded, null for words as they are
+    private final TextNormalizer normalizer;
+
+    public WordLevenshtein(TokenDictionary dictionary, CharSequence reference) {
+        if(dictionary == null) throw new IllegalArgumentException("dictionary MUST NOT be NULL");
+
+        this.dictionary = dictionary;
+        this.reference = dictionary.internTokens(reference);
+        this.normalizer = null;
+    }
+
+    WordLevenshtein(TokenDictionary dictionary, int[] referenceTokens, TextNormalizer normalizer) {
+        this.dictionary = dictionary;
+        this.reference = referenceTokens;
+        this.normalizer = normalizer;
+    }
+
+    public int getReferenceWords() {
+        return reference.length;
+    }
+
+    int[] getReferenceTokens() {
+        return reference;
+    }
+
+    public WordScore score(CharSequence hypothesis) {
+        int[] tokens = dictionary.lookupTokens(normalizer == null ? hypothesis : normalizer.normalize(hypothesis));
+        return new WordScore(distance(reference, tokens), reference.length, tokens.length);
+    }
+
+    public static int distance(int[] lhs, int[] rhs) {
+        int len0 = lhs.length + 1;
+        int len1 = rhs.length + 1;
+
+        int[] cost = new int[len0];
+        int[] newcost = new int[len0];
+
+        for (int i = 0; i < len0; i++) cost[i] = i;
+
+        for (int j = 1; j < len1; j++) {
+            newcost[0] = j;
+            int token = rhs[j - 1];
+
+            for (int i = 1; i < len0; i++) {
+                int match = lhs[i - 1] == token ? 0 : 1;
+
+                int cost_replace = cost[i - 1] + match;
+                int cost_insert  = cost[i] + 1;
+                int cost_delete  = newcost[i - 1] + 1;
+
+                newcost[i] = Math.min(Math.min(cost_insert, cost_delete), cost_replace);
+            }
+
+            int[] swap = cost; cost = newcost; newcost = swap;
+        }
+
+        return cost[len0 - 1];
+    }
+}
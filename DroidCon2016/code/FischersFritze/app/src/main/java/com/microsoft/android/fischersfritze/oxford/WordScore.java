@@ -0,0 +1,40 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+/**
+ * Result of a word-level comparison: number of substituted, inserted or dropped words.
+ */
+public final class WordScore {
+    private final int wordErrors;
+    private final int referenceWords;
+    private final int hypothesisWords;
+
+    WordScore(int wordErrors, int referenceWords, int hypothesisWords) {
+        this.wordErrors = wordErrors;
+        this.referenceWords = referenceWords;
+        this.hypothesisWords = hypothesisWords;
+    }
+
+    public int getWordErrors() {
+        return wordErrors;
+    }
+
+    public int getReferenceWords() {
+        return referenceWords;
+    }
+
+    public int getHypothesisWords() {
+        return hypothesisWords;
+    }
+
+    public double getWordErrorRate() {
+        if (referenceWords == 0) {
+            return hypothesisWords == 0 ? 0.0 : 1.0;
+        }
+        return (double) wordErrors / referenceWords;
+    }
+
+    @Override
+    public String toString() {
+        return wordErrors + "/" + referenceWords;
+    }
+}
@@ -0,0 +1,37 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into lower case words. Everything that is not a letter or a digit separates
+ * words, so punctuation, apostrophes, hyphens and runs of whitespace never reach the scorer.
+ */
+public final class WordTokenizer {
+
+    private WordTokenizer() {
+    }
+
+    public static String[] tokenize(CharSequence text) {
+        if (text == null) {
+            return new String[0];
+        }
+
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+
+        return tokens.toArray(new String[tokens.size()]);
+    }
+}
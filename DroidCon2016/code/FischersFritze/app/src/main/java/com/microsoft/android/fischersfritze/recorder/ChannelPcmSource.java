@@ -0,0 +1,80 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Replays raw PCM or a canonical 16 bit PCM WAV file, e.g. a recorded attempt in a test.
+ * A WAV header is skipped and its format wins over the one passed in.
+ */
+public class ChannelPcmSource implements PcmSource {
+    private static final int RIFF = 0x46464952;
+    private static final int WAV_HEADER_BYTES = 44;
+
+    private final File file;
+    private PcmFormat format;
+    private boolean wav;
+    private FileChannel channel;
+
+    public ChannelPcmSource(File file, PcmFormat rawFormat) throws IOException {
+        if(file == null) throw new IllegalArgumentException("file MUST NOT be NULL");
+        if(rawFormat == null) throw new IllegalArgumentException("rawFormat MUST NOT be NULL");
+
+        this.file = file;
+        this.format = rawFormat;
+        readHeader();
+    }
+
+    @Override
+    public PcmFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public void open() throws IOException {
+        channel = new FileInputStream(file).getChannel();
+        if (wav) {
+            channel.position(WAV_HEADER_BYTES);
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer frame) throws IOException {
+        if (channel == null) return -1;
+        return channel.read(frame);
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing was written, nothing to lose
+        }
+        channel = null;
+    }
+
+    private void readHeader() throws IOException {
+        FileChannel in = new FileInputStream(file).getChannel();
+        try {
+            ByteBuffer header = ByteBuffer.allocate(WAV_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && in.read(header) >= 0) {
+                // fill the header
+            }
+            if (header.position() < WAV_HEADER_BYTES || header.getInt(0) != RIFF) return;
+
+            if (header.getShort(20) != 1 || header.getShort(34) != 16) {
+                throw new IOException(file + " is not 16 bit PCM");
+            }
+            wav = true;
+            format = new PcmFormat(header.getInt(24), header.getShort(22));
+        } finally {
+            in.close();
+        }
+    }
+}
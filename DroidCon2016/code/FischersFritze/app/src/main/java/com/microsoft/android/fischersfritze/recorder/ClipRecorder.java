@@ -0,0 +1,54 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps the encoded audio of the latest utterance in memory, e.g. to archive it with the
+ * attempt once it has been scored. The buffer is reused from one utterance to the next.
+ */
+public class ClipRecorder implements EncodedAudioSink {
+    private ByteBuffer clip = ByteBuffer.allocate(64 * 1024);
+    private PcmFormat format;
+    private boolean complete;
+
+    @Override
+    public synchronized void onStart(PcmFormat format) {
+        this.format = format;
+        this.complete = false;
+        clip.clear();
+    }
+
+    @Override
+    public synchronized void onPacket(ByteBuffer packet) {
+        if (clip.remaining() < packet.remaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(clip.capacity() * 2, clip.position() + packet.remaining()));
+            clip.flip();
+            larger.put(clip);
+            clip = larger;
+        }
+        clip.put(packet);
+    }
+
+    @Override
+    public synchronized void onEnd() {
+        complete = true;
+    }
+
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    public synchronized PcmFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return a copy of the audio recorded since the last start
+     */
+    public synchronized ByteBuffer copyClip() {
+        ByteBuffer copy = ByteBuffer.allocate(clip.position());
+        copy.put(clip.array(), 0, clip.position());
+        copy.flip();
+        return copy;
+    }
+}
@@ -0,0 +1,56 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Averages all channels into one. Mono input passes through untouched.
+ */
+public class Downmixer extends PcmStage {
+    private final PcmConsumer downstream;
+
+    private int channels;
+    private ByteBuffer output;
+
+    public Downmixer(PcmConsumer downstream) {
+        if(downstream == null) throw new IllegalArgumentException("downstream MUST NOT be NULL");
+        this.downstream = downstream;
+    }
+
+    @Override
+    protected void start(PcmFormat format) {
+        channels = format.getChannelCount();
+        downstream.onStart(new PcmFormat(format.getSampleRate(), 1));
+    }
+
+    @Override
+    protected ByteBuffer process(ByteBuffer frame) {
+        if (channels == 1) return frame;
+
+        int start = frame.position();
+        int sampleFrames = frame.remaining() / (channels * PcmFormat.BYTES_PER_SAMPLE);
+        // grows once, on the first frame
+        output = ensureCapacity(output, sampleFrames * PcmFormat.BYTES_PER_SAMPLE);
+        output.clear();
+
+        int in = start;
+        for (int f = 0; f < sampleFrames; f++) {
+            int sum = 0;
+            for (int c = 0; c < channels; c++, in += 2) {
+                sum += (short) ((frame.get(in) & 0xff) | (frame.get(in + 1) << 8));
+            }
+            output.putShort((short) (sum / channels));
+        }
+        output.flip();
+        return output;
+    }
+
+    @Override
+    protected void emit(ByteBuffer output) {
+        downstream.onFrame(output);
+    }
+
+    @Override
+    protected void end() {
+        downstream.onEnd();
+    }
+}
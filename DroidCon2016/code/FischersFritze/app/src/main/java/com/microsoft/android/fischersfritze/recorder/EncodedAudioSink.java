@@ -0,0 +1,18 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the packets of an audio encoder, in order.
+ */
+public interface EncodedAudioSink {
+
+    void onStart(PcmFormat format);
+
+    /**
+     * @param packet encoded bytes between position and limit, only valid during the call
+     */
+    void onPacket(ByteBuffer packet);
+
+    void onEnd();
+}
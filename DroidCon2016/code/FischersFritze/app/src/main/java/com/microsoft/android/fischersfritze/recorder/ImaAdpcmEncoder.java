@@ -0,0 +1,162 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * IMA ADPCM, 4 bits per sample of mono PCM, a quarter of the bytes at close to telephone
+ * quality. Every frame becomes one self-contained block: the predictor and step index
+ * it starts from as a 4 byte header, then two samples per byte, low nibble first. A lost
+ * block therefore costs exactly one frame. An odd sample count is padded with a zero
+ * nibble, which decodes to one extra sample.
+ */
+public class ImaAdpcmEncoder extends PcmStage {
+    public static final int BLOCK_HEADER_BYTES = 4;
+
+    private static final int[] INDEX_TABLE = {
+            -1, -1, -1, -1, 2, 4, 6, 8,
+            -1, -1, -1, -1, 2, 4, 6, 8
+    };
+
+    private static final int[] STEP_TABLE = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17,
+            19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+            50, 55, 60, 66, 73, 80, 88, 97, 107, 118,
+            130, 143, 157, 173, 190, 209, 230, 253, 279, 307,
+            337, 371, 408, 449, 494, 544, 598, 658, 724, 796,
+            876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066,
+            2272, 2499, 2749, 3024, 3327, 3660, 4026, 4428, 4871, 5358,
+            5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899,
+            15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+    };
+
+    private final EncodedAudioSink sink;
+
+    // predictor and step index carry over, so a block starts well adapted
+    private int predictor;
+    private int index;
+    private ByteBuffer output;
+
+    public ImaAdpcmEncoder(EncodedAudioSink sink) {
+        if(sink == null) throw new IllegalArgumentException("sink MUST NOT be NULL");
+        this.sink = sink;
+    }
+
+    /**
+     * @return encoded size of a block of {@code samples} samples
+     */
+    public static int blockBytes(int samples) {
+        return samples == 0 ? 0 : BLOCK_HEADER_BYTES + (samples + 1) / 2;
+    }
+
+    @Override
+    protected void start(PcmFormat format) {
+        if(format.getChannelCount() != 1) throw new IllegalArgumentException("format MUST be mono, downmix first");
+
+        predictor = 0;
+        index = 0;
+        sink.onStart(format);
+    }
+
+    @Override
+    protected ByteBuffer process(ByteBuffer frame) {
+        int start = frame.position();
+        int samples = frame.remaining() / PcmFormat.BYTES_PER_SAMPLE;
+        // grows once, on the first frame
+        output = ensureCapacity(output, blockBytes(samples));
+        output.clear();
+        if (samples == 0) {
+            output.flip();
+            return output;
+        }
+
+        output.putShort((short) predictor);
+        output.put((byte) index);
+        output.put((byte) 0);
+
+        int pending = -1;
+        for (int s = 0; s < samples; s++) {
+            int sample = sampleAt(frame, start + 2 * s);
+            int step = STEP_TABLE[index];
+            int diff = sample - predictor;
+
+            int code = 0;
+            if (diff < 0) {
+                code = 8;
+                diff = -diff;
+            }
+            int delta = step >> 3;
+            if (diff >= step) { code |= 4; diff -= step; delta += step; }
+            step >>= 1;
+            if (diff >= step) { code |= 2; diff -= step; delta += step; }
+            step >>= 1;
+            if (diff >= step) { code |= 1; delta += step; }
+
+            predictor += (code & 8) != 0 ? -delta : delta;
+            predictor = clamp(predictor, Short.MIN_VALUE, Short.MAX_VALUE);
+            index = clamp(index + INDEX_TABLE[code], 0, STEP_TABLE.length - 1);
+
+            if (pending < 0) {
+                pending = code;
+            } else {
+                output.put((byte) (pending | (code << 4)));
+                pending = -1;
+            }
+        }
+        if (pending >= 0) {
+            output.put((byte) pending);
+        }
+        output.flip();
+        return output;
+    }
+
+    @Override
+    protected void emit(ByteBuffer output) {
+        sink.onPacket(output);
+    }
+
+    @Override
+    protected void end() {
+        sink.onEnd();
+    }
+
+    /**
+     * Decodes one block written by this encoder, e.g. to measure what the compression costs.
+     *
+     * @return number of samples written to {@code target}
+     */
+    public static int decodeBlock(ByteBuffer block, short[] target, int offset) {
+        int start = block.position();
+        int length = block.remaining();
+        if (length < BLOCK_HEADER_BYTES) return 0;
+
+        int predictor = (short) ((block.get(start) & 0xff) | (block.get(start + 1) << 8));
+        int index = clamp(block.get(start + 2), 0, STEP_TABLE.length - 1);
+        int written = 0;
+
+        for (int i = start + BLOCK_HEADER_BYTES; i < start + length; i++) {
+            int packed = block.get(i) & 0xff;
+            for (int nibble = 0; nibble < 2; nibble++) {
+                int code = nibble == 0 ? packed & 0x0f : packed >> 4;
+                int step = STEP_TABLE[index];
+                int delta = step >> 3;
+                if ((code & 4) != 0) delta += step;
+                if ((code & 2) != 0) delta += step >> 1;
+                if ((code & 1) != 0) delta += step >> 2;
+
+                predictor += (code & 8) != 0 ? -delta : delta;
+                predictor = clamp(predictor, Short.MIN_VALUE, Short.MAX_VALUE);
+                index = clamp(index + INDEX_TABLE[code], 0, STEP_TABLE.length - 1);
+                target[offset + written++] = (short) predictor;
+            }
+        }
+        return written;
+    }
+
+    private static int sampleAt(ByteBuffer frame, int at) {
+        return (short) ((frame.get(at) & 0xff) | (frame.get(at + 1) << 8));
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return value < min ? min : (value > max ? max : value);
+    }
+}
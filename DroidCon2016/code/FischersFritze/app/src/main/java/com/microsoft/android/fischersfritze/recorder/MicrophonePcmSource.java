@@ -0,0 +1,92 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Live microphone audio through {@link AudioRecord}, read straight into direct buffers.
+ */
+public class MicrophonePcmSource implements PcmSource {
+    private final PcmFormat format;
+
+    private AudioRecord record;
+    // AudioRecord always writes to the start of a buffer, partial frames go through here
+    private ByteBuffer scratch;
+    private volatile boolean open;
+
+    public MicrophonePcmSource() {
+        this(PcmFormat.SPEECH);
+    }
+
+    public MicrophonePcmSource(PcmFormat format) {
+        if(format == null) throw new IllegalArgumentException("format MUST NOT be NULL");
+        if(format.getChannelCount() > 2) throw new IllegalArgumentException("format MUST be mono or stereo");
+
+        this.format = format;
+    }
+
+    @Override
+    public PcmFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public void open() throws IOException {
+        int channelConfig = format.getChannelCount() == 1 ? AudioFormat.CHANNEL_IN_MONO : AudioFormat.CHANNEL_IN_STEREO;
+        int minBuffer = AudioRecord.getMinBufferSize(format.getSampleRate(), channelConfig, AudioFormat.ENCODING_PCM_16BIT);
+        if (minBuffer <= 0) throw new IOException("microphone does not support " + format);
+
+        // some headroom, the capture thread may be descheduled for a moment
+        int bufferSize = Math.max(minBuffer * 2, format.bytesForMillis(200));
+        record = new AudioRecord(MediaRecorder.AudioSource.VOICE_RECOGNITION, format.getSampleRate(), channelConfig,
+                AudioFormat.ENCODING_PCM_16BIT, bufferSize);
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            record.release();
+            record = null;
+            throw new IOException("microphone could not be initialized");
+        }
+
+        scratch = ByteBuffer.allocateDirect(bufferSize);
+        record.startRecording();
+        open = true;
+    }
+
+    @Override
+    public int read(ByteBuffer frame) throws IOException {
+        if (!open) return -1;
+
+        int read;
+        if (frame.position() == 0) {
+            read = record.read(frame, frame.remaining());
+            if (read > 0) frame.position(read);
+        } else {
+            read = record.read(scratch, Math.min(frame.remaining(), scratch.capacity()));
+            if (read > 0) {
+                scratch.clear();
+                scratch.limit(read);
+                frame.put(scratch);
+            }
+        }
+
+        if (read < 0) {
+            // closed while blocked in read
+            if (!open) return -1;
+            throw new IOException("microphone read failed: " + read);
+        }
+        return read;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        if (record != null) {
+            record.stop();
+            record.release();
+            record = null;
+        }
+    }
+}
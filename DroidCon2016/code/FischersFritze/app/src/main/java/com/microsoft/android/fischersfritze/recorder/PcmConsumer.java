@@ -0,0 +1,19 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the frames of a {@link StreamingCapture}, in order, on its delivery thread.
+ */
+public interface PcmConsumer {
+
+    void onStart(PcmFormat format);
+
+    /**
+     * @param frame PCM between position and limit. The buffer goes back into the capture
+     *              ring after the call, so it must not be kept.
+     */
+    void onFrame(ByteBuffer frame);
+
+    void onEnd();
+}
@@ -0,0 +1,60 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+/**
+ * Signed 16 bit little endian PCM, interleaved if there is more than one channel.
+ */
+public final class PcmFormat {
+    public static final int BYTES_PER_SAMPLE = 2;
+
+    // what the speech service expects
+    public static final PcmFormat SPEECH = new PcmFormat(16000, 1);
+
+    private final int sampleRate;
+    private final int channelCount;
+
+    public PcmFormat(int sampleRate, int channelCount) {
+        if(sampleRate <= 0) throw new IllegalArgumentException("sampleRate MUST be positive");
+        if(channelCount <= 0) throw new IllegalArgumentException("channelCount MUST be positive");
+
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    public int getBytesPerFrame() {
+        return channelCount * BYTES_PER_SAMPLE;
+    }
+
+    /**
+     * @return size of {@code millis} of audio, rounded down to whole sample frames
+     */
+    public int bytesForMillis(int millis) {
+        return (int) ((long) sampleRate * millis / 1000) * getBytesPerFrame();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PcmFormat)) return false;
+
+        PcmFormat other = (PcmFormat) o;
+        return sampleRate == other.sampleRate && channelCount == other.channelCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * sampleRate + channelCount;
+    }
+
+    @Override
+    public String toString() {
+        return sampleRate + "Hz/" + channelCount + "ch/16bit";
+    }
+}
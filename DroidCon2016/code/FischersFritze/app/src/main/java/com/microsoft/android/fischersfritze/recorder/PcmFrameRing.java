@@ -0,0 +1,72 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated ring of direct frame buffers between exactly one producer and one consumer.
+ * Nothing is allocated after construction, the same buffers go round and round.
+ */
+final class PcmFrameRing {
+    private final ByteBuffer[] frames;
+    private final int mask;
+
+    // next sequence to read (consumer) and to write (producer)
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    PcmFrameRing(int capacity, int frameBytes) {
+        if(capacity <= 0 || (capacity & (capacity - 1)) != 0) throw new IllegalArgumentException("capacity MUST be a power of two");
+        if(frameBytes <= 0) throw new IllegalArgumentException("frameBytes MUST be positive");
+
+        this.frames = new ByteBuffer[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            frames[i] = ByteBuffer.allocateDirect(frameBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    int capacity() {
+        return frames.length;
+    }
+
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Producer: the next free frame, cleared, or null if the consumer is a full ring behind.
+     */
+    ByteBuffer claim() {
+        long t = tail.get();
+        if (t - head.get() == frames.length) return null;
+
+        ByteBuffer frame = frames[(int) t & mask];
+        frame.clear();
+        return frame;
+    }
+
+    /**
+     * Producer: hands the frame returned by the last {@link #claim()} to the consumer.
+     */
+    void publish() {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    /**
+     * Consumer: the oldest published frame, or null if there is none.
+     */
+    ByteBuffer peek() {
+        long h = head.get();
+        if (h == tail.get()) return null;
+        return frames[(int) h & mask];
+    }
+
+    /**
+     * Consumer: gives the frame returned by {@link #peek()} back to the producer.
+     */
+    void release() {
+        head.lazySet(head.get() + 1);
+    }
+}
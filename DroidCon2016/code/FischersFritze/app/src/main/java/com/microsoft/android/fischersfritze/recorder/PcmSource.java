@@ -0,0 +1,25 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Where a {@link StreamingCapture} gets its audio from: the microphone on a device, a file
+ * or a generated signal in tests.
+ */
+public interface PcmSource {
+
+    PcmFormat getFormat();
+
+    void open() throws IOException;
+
+    /**
+     * Blocks until audio is available and reads it into {@code frame}, starting at its
+     * position and advancing it, like a channel read. Called on the capture thread only.
+     *
+     * @return number of bytes read, -1 once the source is exhausted
+     */
+    int read(ByteBuffer frame) throws IOException;
+
+    void close();
+}
@@ -0,0 +1,102 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A processing step between a capture and its consumer. Keeps the numbers needed to weigh
+ * a stage's network saving against its cost: output bytes per second of audio and the time
+ * spent per frame, measured around the stage's own work only.
+ */
+public abstract class PcmStage implements PcmConsumer {
+    private PcmFormat inputFormat;
+
+    // written by the delivery thread only
+    private volatile long frames;
+    private volatile long bytesIn;
+    private volatile long bytesOut;
+    private volatile long processNanos;
+
+    @Override
+    public final void onStart(PcmFormat format) {
+        inputFormat = format;
+        frames = 0;
+        bytesIn = 0;
+        bytesOut = 0;
+        processNanos = 0;
+        start(format);
+    }
+
+    @Override
+    public final void onFrame(ByteBuffer frame) {
+        int length = frame.remaining();
+        long started = System.nanoTime();
+        ByteBuffer output = process(frame);
+        processNanos += System.nanoTime() - started;
+
+        frames++;
+        bytesIn += length;
+        if (output != null && output.hasRemaining()) {
+            bytesOut += output.remaining();
+            emit(output);
+        }
+    }
+
+    @Override
+    public final void onEnd() {
+        end();
+    }
+
+    /**
+     * @param format of the frames to come
+     */
+    protected abstract void start(PcmFormat format);
+
+    /**
+     * @return output for {@code frame}, owned by the stage and valid until the next call,
+     *         or null if there is nothing to pass on yet
+     */
+    protected abstract ByteBuffer process(ByteBuffer frame);
+
+    protected abstract void emit(ByteBuffer output);
+
+    protected abstract void end();
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * @return output bytes per second of input audio
+     */
+    public double getBytesPerSecond() {
+        if (inputFormat == null || bytesIn == 0) return 0;
+        double seconds = (double) bytesIn / (inputFormat.getSampleRate() * inputFormat.getBytesPerFrame());
+        return bytesOut / seconds;
+    }
+
+    public double getNanosPerFrame() {
+        return frames == 0 ? 0 : (double) processNanos / frames;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %.0f B/s, %.1f us/frame", getClass().getSimpleName(), getBytesPerSecond(), getNanosPerFrame() / 1000);
+    }
+
+    /**
+     * @return {@code buffer} if it holds at least {@code capacity} bytes, a new one otherwise
+     */
+    static ByteBuffer ensureCapacity(ByteBuffer buffer, int capacity) {
+        if (buffer != null && buffer.capacity() >= capacity) return buffer;
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
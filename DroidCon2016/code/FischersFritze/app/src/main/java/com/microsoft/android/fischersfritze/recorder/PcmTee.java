@@ -0,0 +1,40 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Hands every frame to two consumers, e.g. the recognizer and a local recording.
+ */
+public class PcmTee implements PcmConsumer {
+    private final PcmConsumer first;
+    private final PcmConsumer second;
+
+    public PcmTee(PcmConsumer first, PcmConsumer second) {
+        if(first == null) throw new IllegalArgumentException("first MUST NOT be NULL");
+        if(second == null) throw new IllegalArgumentException("second MUST NOT be NULL");
+
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public void onStart(PcmFormat format) {
+        first.onStart(format);
+        second.onStart(format);
+    }
+
+    @Override
+    public void onFrame(ByteBuffer frame) {
+        int position = frame.position();
+        first.onFrame(frame);
+        // the first consumer may have read the frame
+        frame.position(position);
+        second.onFrame(frame);
+    }
+
+    @Override
+    public void onEnd() {
+        first.onEnd();
+        second.onEnd();
+    }
+}
@@ -0,0 +1,181 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Rational sample rate conversion of mono PCM by a polyphase FIR filter.
+ *
+ * Converting by L/M (e.g. 160/441 for 44.1 kHz to 16 kHz) conceptually inserts L-1 zeros
+ * after every input sample, low-pass filters at the lower of the two Nyquist rates and keeps
+ * every M-th sample. The polyphase form only evaluates the filter where an output sample
+ * actually lands: the prototype filter is split into L phases of {@code taps} coefficients,
+ * and each output sample is one dot product of a phase with the last {@code taps} inputs.
+ *
+ * The filter passes everything below 7/8 of the lower Nyquist rate and attenuates everything
+ * above 17/16 of it by at least 70 dB; for 16 kHz output that is flat to 7 kHz and quiet from
+ * 8.5 kHz on. The transition band is fixed in output terms, so the prototype gets longer
+ * with the decimation ratio: 128 taps per phase for 44.1 kHz to 16 kHz.
+ *
+ * The filter history carries over from frame to frame, so frame boundaries are seamless.
+ */
+public class PolyphaseResampler extends PcmStage {
+    // band edges, relative to the lower of the two Nyquist rates
+    static final double PASS_BAND = 0.875;
+    static final double STOP_BAND = 1.0625;
+    // dB, sets the Kaiser window shape and, with the band edges, the filter length
+    static final double STOP_BAND_ATTENUATION = 70;
+
+    private final int outputRate;
+    private final PcmConsumer downstream;
+
+    private int up;
+    private int down;
+    private int taps;
+    private float[][] phases;
+
+    // last taps input samples, written twice so every window is contiguous
+    private float[] history;
+    private int historyIndex;
+    private int phase;
+    private ByteBuffer output;
+
+    public PolyphaseResampler(int outputRate, PcmConsumer downstream) {
+        if(outputRate <= 0) throw new IllegalArgumentException("outputRate MUST be positive");
+        if(downstream == null) throw new IllegalArgumentException("downstream MUST NOT be NULL");
+
+        this.outputRate = outputRate;
+        this.downstream = downstream;
+    }
+
+    @Override
+    protected void start(PcmFormat format) {
+        if(format.getChannelCount() != 1) throw new IllegalArgumentException("format MUST be mono, downmix first");
+
+        int divisor = gcd(format.getSampleRate(), outputRate);
+        up = outputRate / divisor;
+        down = format.getSampleRate() / divisor;
+        phases = up == down ? null : designPhases(up, down);
+
+        taps = phases == null ? 0 : phases[0].length;
+        if (history == null || history.length != 2 * taps) history = new float[2 * taps];
+
+        Arrays.fill(history, 0f);
+        historyIndex = 0;
+        phase = 0;
+        downstream.onStart(new PcmFormat(outputRate, 1));
+    }
+
+    @Override
+    protected ByteBuffer process(ByteBuffer frame) {
+        if (phases == null) return frame;
+
+        int taps = this.taps;
+        int start = frame.position();
+        int samples = frame.remaining() / PcmFormat.BYTES_PER_SAMPLE;
+        // grows once, on the first frame
+        output = ensureCapacity(output, ((int) ((long) samples * up / down) + 2) * PcmFormat.BYTES_PER_SAMPLE);
+        output.clear();
+
+        for (int s = 0; s < samples; s++) {
+            int at = start + 2 * s;
+            float sample = (short) ((frame.get(at) & 0xff) | (frame.get(at + 1) << 8));
+            historyIndex = historyIndex == 0 ? taps - 1 : historyIndex - 1;
+            history[historyIndex] = sample;
+            history[historyIndex + taps] = sample;
+
+            // every output sample that falls between this input and the next
+            while (phase < up) {
+                float[] coefficients = phases[phase];
+                float sum = 0;
+                for (int k = 0; k < taps; k++) {
+                    sum += coefficients[k] * history[historyIndex + k];
+                }
+                output.putShort(clip(sum));
+                phase += down;
+            }
+            phase -= up;
+        }
+        output.flip();
+        return output;
+    }
+
+    @Override
+    protected void emit(ByteBuffer output) {
+        downstream.onFrame(output);
+    }
+
+    @Override
+    protected void end() {
+        downstream.onEnd();
+    }
+
+    /**
+     * Taps per phase, from Kaiser's length estimate for the transition band between
+     * {@link #PASS_BAND} and {@link #STOP_BAND} at the upsampled rate.
+     */
+    static int taps(int up, int down) {
+        double transition = Math.PI * (STOP_BAND - PASS_BAND) / Math.max(up, down);
+        double length = (STOP_BAND_ATTENUATION - 7.95) / (2.285 * transition);
+        return (int) Math.ceil(length / up);
+    }
+
+    /**
+     * Kaiser windowed sinc prototype of {@code up * taps} coefficients, cut off halfway
+     * through the transition band and split into its phases. Each phase is normalized to
+     * unity gain at DC, so no phase is louder than another.
+     */
+    static float[][] designPhases(int up, int down) {
+        int taps = taps(up, down);
+        int length = up * taps;
+        double cutoff = (PASS_BAND + STOP_BAND) / 2 * 0.5 / Math.max(up, down);
+        double center = (length - 1) / 2.0;
+        double beta = 0.1102 * (STOP_BAND_ATTENUATION - 8.7);
+        double norm = bessel0(beta);
+
+        float[][] phases = new float[up][taps];
+        for (int p = 0; p < up; p++) {
+            double sum = 0;
+            double[] h = new double[taps];
+            for (int k = 0; k < taps; k++) {
+                double n = p + k * up - center;
+                double x = 2 * cutoff * n;
+                double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+                double r = 2 * n / (length - 1);
+                double window = bessel0(beta * Math.sqrt(Math.max(0, 1 - r * r))) / norm;
+                h[k] = sinc * window;
+                sum += h[k];
+            }
+            for (int k = 0; k < taps; k++) {
+                phases[p][k] = (float) (h[k] / sum);
+            }
+        }
+        return phases;
+    }
+
+    private static double bessel0(double x) {
+        double sum = 1;
+        double term = 1;
+        for (int k = 1; k < 32; k++) {
+            term *= (x / (2 * k)) * (x / (2 * k));
+            sum += term;
+        }
+        return sum;
+    }
+
+    private static short clip(float value) {
+        int rounded = Math.round(value);
+        if (rounded > Short.MAX_VALUE) return Short.MAX_VALUE;
+        if (rounded < Short.MIN_VALUE) return Short.MIN_VALUE;
+        return (short) rounded;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,187 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams PCM from a {@link PcmSource} to a {@link PcmConsumer} without going through a file.
+ *
+ * A capture thread reads fixed size frames into a {@link PcmFrameRing} of direct buffers,
+ * a delivery thread hands them to the consumer in order. The capture thread never waits
+ * for the consumer: if it falls a full ring behind, the frame just read is dropped and
+ * counted, the way the audio hardware would overrun anyway. Neither thread allocates once
+ * started.
+ */
+public class StreamingCapture {
+    public static final int DEFAULT_FRAME_MILLIS = 20;
+    public static final int DEFAULT_RING_FRAMES = 64;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final PcmSource source;
+    private final PcmConsumer consumer;
+    private final PcmFrameRing ring;
+    private final ByteBuffer overflow;
+
+    private final Thread captureThread;
+    private final Thread deliveryThread;
+
+    private volatile boolean running;
+    private volatile boolean captureDone;
+    private volatile IOException failure;
+
+    // single writer each, read from any thread
+    private volatile long capturedFrames;
+    private volatile long droppedFrames;
+    private volatile long deliveredFrames;
+
+    public StreamingCapture(PcmSource source, PcmConsumer consumer) {
+        this(source, consumer, DEFAULT_FRAME_MILLIS, DEFAULT_RING_FRAMES);
+    }
+
+    public StreamingCapture(PcmSource source, PcmConsumer consumer, int frameMillis, int ringFrames) {
+        if(source == null) throw new IllegalArgumentException("source MUST NOT be NULL");
+        if(consumer == null) throw new IllegalArgumentException("consumer MUST NOT be NULL");
+
+        int frameBytes = source.getFormat().bytesForMillis(frameMillis);
+        this.source = source;
+        this.consumer = consumer;
+        this.ring = new PcmFrameRing(ringFrames, frameBytes);
+        this.overflow = ByteBuffer.allocateDirect(frameBytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        this.captureThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                capture();
+            }
+        }, "pcm-capture");
+        this.deliveryThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                deliver();
+            }
+        }, "pcm-delivery");
+    }
+
+    public PcmFormat getFormat() {
+        return source.getFormat();
+    }
+
+    /**
+     * Opens the source and starts streaming. A capture can only be started once.
+     */
+    public synchronized void start() throws IOException {
+        if (running || captureDone) throw new IllegalStateException("capture already started");
+
+        source.open();
+        running = true;
+        consumer.onStart(source.getFormat());
+        deliveryThread.start();
+        captureThread.start();
+    }
+
+    /**
+     * Stops reading from the source. Frames already captured are still delivered, then
+     * the consumer sees {@link PcmConsumer#onEnd()}.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Waits until the last frame was delivered.
+     *
+     * @return false if the capture is still going after {@code millis}
+     */
+    public boolean awaitTermination(long millis) throws InterruptedException {
+        deliveryThread.join(millis);
+        return !deliveryThread.isAlive();
+    }
+
+    /**
+     * @return the error that ended the capture early, null if there was none
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    public long getCapturedFrames() {
+        return capturedFrames;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public long getDeliveredFrames() {
+        return deliveredFrames;
+    }
+
+    private void capture() {
+        try {
+            while (running) {
+                ByteBuffer frame = ring.claim();
+                boolean dropped = frame == null;
+                if (dropped) {
+                    // still read, the source must be drained in real time
+                    frame = overflow;
+                    frame.clear();
+                }
+
+                boolean exhausted = false;
+                while (frame.hasRemaining()) {
+                    if (source.read(frame) < 0) {
+                        exhausted = true;
+                        break;
+                    }
+                }
+
+                if (frame.position() > 0) {
+                    frame.flip();
+                    capturedFrames++;
+                    if (dropped) {
+                        droppedFrames++;
+                    } else {
+                        ring.publish();
+                        LockSupport.unpark(deliveryThread);
+                    }
+                }
+                if (exhausted) break;
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            running = false;
+            source.close();
+            captureDone = true;
+            LockSupport.unpark(deliveryThread);
+        }
+    }
+
+    private void deliver() {
+        try {
+            while (true) {
+                ByteBuffer frame = ring.peek();
+                if (frame == null) {
+                    // captureDone is set after the last publish, so the second look cannot miss a frame
+                    if (captureDone && ring.peek() == null) break;
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+
+                consumer.onFrame(frame);
+                ring.release();
+                deliveredFrames++;
+            }
+        } finally {
+            consumer.onEnd();
+        }
+    }
+}
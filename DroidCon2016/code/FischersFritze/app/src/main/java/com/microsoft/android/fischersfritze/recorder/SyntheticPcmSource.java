@@ -0,0 +1,72 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Generates a sine tone of a fixed length, for tests and benchmarks without a microphone.
+ * The same channel value is written to every channel of a sample frame.
+ */
+public class SyntheticPcmSource implements PcmSource {
+    private final PcmFormat format;
+    private final double frequency;
+    private final short amplitude;
+    private final long totalFrames;
+
+    private long position;
+    private boolean open;
+
+    public SyntheticPcmSource(PcmFormat format, double frequency, short amplitude, int millis) {
+        if(format == null) throw new IllegalArgumentException("format MUST NOT be NULL");
+
+        this.format = format;
+        this.frequency = frequency;
+        this.amplitude = amplitude;
+        this.totalFrames = (long) format.getSampleRate() * millis / 1000;
+    }
+
+    @Override
+    public PcmFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public void open() {
+        position = 0;
+        open = true;
+    }
+
+    /**
+     * @return the sample the tone has at sample frame {@code index}
+     */
+    public short sampleAt(long index) {
+        return (short) Math.round(amplitude * Math.sin(2 * Math.PI * frequency * index / format.getSampleRate()));
+    }
+
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    @Override
+    public int read(ByteBuffer frame) {
+        if (!open || position >= totalFrames) return -1;
+
+        ByteOrder order = frame.order();
+        frame.order(ByteOrder.LITTLE_ENDIAN);
+        int start = frame.position();
+        int channels = format.getChannelCount();
+        while (frame.remaining() >= format.getBytesPerFrame() && position < totalFrames) {
+            short sample = sampleAt(position++);
+            for (int c = 0; c < channels; c++) {
+                frame.putShort(sample);
+            }
+        }
+        frame.order(order);
+        return frame.position() - start;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
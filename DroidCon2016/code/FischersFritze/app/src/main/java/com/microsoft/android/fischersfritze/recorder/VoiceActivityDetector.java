@@ -0,0 +1,257 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Capture stage that only lets speech through. Every frame is classified by its energy
+ * against an adaptive noise floor and by its zero-crossing rate, which catches the quiet
+ * fricatives ("sch", "f", "s") twisters are full of. Leading silence is dropped except for
+ * a short pre-roll, trailing silence is dropped, and once the speaker has been quiet for
+ * the hangover time the {@link Listener} hears about the end of speech, long before the
+ * service would time out.
+ *
+ * Frames must not be longer than {@code frameMillis}. The few frames held back for
+ * pre-roll and hangover are copied into buffers allocated in {@link #onStart(PcmFormat)},
+ * nothing is allocated per frame.
+ */
+public class VoiceActivityDetector implements PcmConsumer {
+
+    public enum State { Silence, Speech, Ended }
+
+    public interface Listener {
+        void onSpeechStart();
+
+        /**
+         * Called on the delivery thread; stopping the capture from here is fine.
+         */
+        void onEndOfSpeech();
+    }
+
+    private static final double FULL_SCALE = 32768.0 * 32768.0;
+    // -50 dBFS, anything quieter is silence however low the noise floor is
+    private static final double MIN_SPEECH_ENERGY = 1e-5;
+    // 6 dB above the noise floor
+    private static final double SPEECH_ENERGY_RATIO = 4.0;
+    // fricatives are quiet but cross zero often
+    private static final double FRICATIVE_ENERGY_RATIO = 2.0;
+    private static final double FRICATIVE_ZERO_CROSSING_RATE = 0.25;
+    private static final double NOISE_ADAPTATION = 0.05;
+
+    private final PcmConsumer downstream;
+    private final Listener listener;
+    private final int frameMillis;
+    private final int preRollFrames;
+    private final int hangoverFrames;
+    private final int onsetFrames;
+
+    // held back frames, oldest at pendingHead
+    private ByteBuffer[] pending;
+    private int pendingHead;
+    private int pendingSize;
+
+    private State state = State.Silence;
+    private double noiseFloor;
+    private int speechRun;
+    private int silenceRun;
+
+    private double lastEnergy;
+    private double lastZeroCrossingRate;
+    private volatile long forwardedFrames;
+    private volatile long trimmedFrames;
+
+    public VoiceActivityDetector(PcmConsumer downstream, Listener listener) {
+        this(downstream, listener, StreamingCapture.DEFAULT_FRAME_MILLIS, 200, 400, 40);
+    }
+
+    public VoiceActivityDetector(PcmConsumer downstream, Listener listener, int frameMillis,
+                                 int preRollMillis, int hangoverMillis, int onsetMillis) {
+        if(downstream == null) throw new IllegalArgumentException("downstream MUST NOT be NULL");
+        if(frameMillis <= 0) throw new IllegalArgumentException("frameMillis MUST be positive");
+
+        this.downstream = downstream;
+        this.listener = listener;
+        this.frameMillis = frameMillis;
+        this.preRollFrames = Math.max(0, preRollMillis / frameMillis);
+        this.hangoverFrames = Math.max(1, hangoverMillis / frameMillis);
+        this.onsetFrames = Math.max(1, onsetMillis / frameMillis);
+    }
+
+    @Override
+    public void onStart(PcmFormat format) {
+        int frameBytes = format.bytesForMillis(frameMillis);
+        int capacity = Math.max(preRollFrames + onsetFrames, hangoverFrames);
+        pending = new ByteBuffer[capacity];
+        for (int i = 0; i < capacity; i++) {
+            pending[i] = ByteBuffer.allocateDirect(frameBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        pendingHead = 0;
+        pendingSize = 0;
+
+        state = State.Silence;
+        noiseFloor = 0;
+        speechRun = 0;
+        silenceRun = 0;
+        downstream.onStart(format);
+    }
+
+    @Override
+    public void onFrame(ByteBuffer frame) {
+        if (state == State.Ended) {
+            trimmedFrames++;
+            return;
+        }
+
+        boolean speech = classify(frame);
+        if (state == State.Silence) {
+            if (speech) {
+                speechRun++;
+            } else {
+                speechRun = 0;
+                adaptNoiseFloor();
+            }
+
+            if (speechRun >= onsetFrames) {
+                state = State.Speech;
+                silenceRun = 0;
+                if (listener != null) listener.onSpeechStart();
+                // the pre-roll keeps the soft start of the first word
+                flushPending();
+                forward(frame);
+            } else {
+                hold(frame, preRollFrames + speechRun);
+            }
+            return;
+        }
+
+        if (speech) {
+            // a pause inside the utterance, keep it
+            silenceRun = 0;
+            flushPending();
+            forward(frame);
+            return;
+        }
+
+        silenceRun++;
+        if (silenceRun < hangoverFrames) {
+            hold(frame, hangoverFrames);
+            return;
+        }
+
+        state = State.Ended;
+        trimmedFrames += pendingSize + 1;
+        pendingSize = 0;
+        if (listener != null) listener.onEndOfSpeech();
+    }
+
+    @Override
+    public void onEnd() {
+        // whatever is still held back is trailing silence, or no speech at all
+        trimmedFrames += pendingSize;
+        pendingSize = 0;
+        downstream.onEnd();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public double getNoiseFloor() {
+        return noiseFloor;
+    }
+
+    /**
+     * @return mean square of the last frame, relative to full scale
+     */
+    public double getLastEnergy() {
+        return lastEnergy;
+    }
+
+    public double getLastZeroCrossingRate() {
+        return lastZeroCrossingRate;
+    }
+
+    public long getForwardedFrames() {
+        return forwardedFrames;
+    }
+
+    public long getTrimmedFrames() {
+        return trimmedFrames;
+    }
+
+    private boolean classify(ByteBuffer frame) {
+        int start = frame.position();
+        int end = frame.limit() & ~1;
+        int samples = (end - start) / 2;
+        if (samples == 0) {
+            lastEnergy = 0;
+            lastZeroCrossingRate = 0;
+            return false;
+        }
+
+        double sumSquares = 0;
+        int crossings = 0;
+        int previous = (frame.get(start) & 0xff) | (frame.get(start + 1) << 8);
+        for (int i = start; i < end; i += 2) {
+            int sample = (frame.get(i) & 0xff) | (frame.get(i + 1) << 8);
+            sumSquares += (double) sample * sample;
+            if ((sample ^ previous) < 0) crossings++;
+            previous = sample;
+        }
+        lastEnergy = sumSquares / samples / FULL_SCALE;
+        lastZeroCrossingRate = (double) crossings / samples;
+
+        if (noiseFloor == 0) {
+            noiseFloor = lastEnergy;
+        }
+        if (lastEnergy < MIN_SPEECH_ENERGY) {
+            return false;
+        }
+        return lastEnergy > noiseFloor * SPEECH_ENERGY_RATIO
+                || (lastEnergy > noiseFloor * FRICATIVE_ENERGY_RATIO && lastZeroCrossingRate > FRICATIVE_ZERO_CROSSING_RATE);
+    }
+
+    private void adaptNoiseFloor() {
+        // falls at once, rises slowly, so a loud start is not mistaken for noise
+        if (lastEnergy < noiseFloor) noiseFloor = lastEnergy;
+        else noiseFloor += (lastEnergy - noiseFloor) * NOISE_ADAPTATION;
+    }
+
+    private void hold(ByteBuffer frame, int limit) {
+        if (frame.remaining() > pending[0].capacity()) {
+            throw new IllegalArgumentException("frame longer than " + frameMillis + "ms");
+        }
+
+        // drop the oldest frames beyond the limit, they are silence for good
+        while (pendingSize > 0 && pendingSize >= Math.min(limit, pending.length)) {
+            pendingHead = (pendingHead + 1) % pending.length;
+            pendingSize--;
+            trimmedFrames++;
+        }
+        if (limit == 0) {
+            trimmedFrames++;
+            return;
+        }
+
+        ByteBuffer copy = pending[(pendingHead + pendingSize) % pending.length];
+        copy.clear();
+        int position = frame.position();
+        copy.put(frame);
+        frame.position(position);
+        copy.flip();
+        pendingSize++;
+    }
+
+    private void flushPending() {
+        while (pendingSize > 0) {
+            forward(pending[pendingHead]);
+            pendingHead = (pendingHead + 1) % pending.length;
+            pendingSize--;
+        }
+    }
+
+    private void forward(ByteBuffer frame) {
+        downstream.onFrame(frame);
+        forwardedFrames++;
+    }
+}
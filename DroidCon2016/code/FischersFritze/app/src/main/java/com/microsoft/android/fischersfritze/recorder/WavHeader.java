@@ -0,0 +1,46 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Canonical 44 byte RIFF/WAVE header for 16 bit PCM.
+ */
+public final class WavHeader {
+    public static final int SIZE = 44;
+
+    // length fields of a stream whose end is not known yet
+    private static final int UNKNOWN_LENGTH = -1;
+
+    private WavHeader() {
+    }
+
+    /**
+     * Writes a header for a stream of unknown length, as sent ahead of live audio.
+     */
+    public static void writeStreaming(ByteBuffer target, PcmFormat format) {
+        write(target, format, UNKNOWN_LENGTH);
+    }
+
+    public static void write(ByteBuffer target, PcmFormat format, int dataBytes) {
+        if(target == null) throw new IllegalArgumentException("target MUST NOT be NULL");
+        if(format == null) throw new IllegalArgumentException("format MUST NOT be NULL");
+
+        ByteOrder order = target.order();
+        target.order(ByteOrder.LITTLE_ENDIAN);
+        target.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+        target.putInt(dataBytes == UNKNOWN_LENGTH ? UNKNOWN_LENGTH : SIZE - 8 + dataBytes);
+        target.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+        target.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+        target.putInt(16);
+        target.putShort((short) 1);
+        target.putShort((short) format.getChannelCount());
+        target.putInt(format.getSampleRate());
+        target.putInt(format.getSampleRate() * format.getBytesPerFrame());
+        target.putShort((short) format.getBytesPerFrame());
+        target.putShort((short) (PcmFormat.BYTES_PER_SAMPLE * 8));
+        target.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+        target.putInt(dataBytes);
+        target.order(order);
+    }
+}
@@ -0,0 +1,70 @@
+package com.microsoft.android.fischersfritze.speech;
+
+import com.microsoft.projectoxford.speechrecognition.SpeechRecognitionMode;
+
+/**
+ * Everything a microphone client is built from. Two equal keys can share one client.
+ */
+public final class ClientKey {
+    private final SpeechRecognitionMode mode;
+    private final String language;
+    private final String primaryKey;
+    private final String secondaryKey;
+
+    public ClientKey(SpeechRecognitionMode mode, String language, String primaryKey, String secondaryKey) {
+        if(mode == null) throw new IllegalArgumentException("mode MUST NOT be NULL");
+        if(language == null) throw new IllegalArgumentException("language MUST NOT be NULL");
+
+        this.mode = mode;
+        this.language = language;
+        this.primaryKey = primaryKey;
+        this.secondaryKey = secondaryKey;
+    }
+
+    public SpeechRecognitionMode getMode() {
+        return mode;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public String getPrimaryKey() {
+        return primaryKey;
+    }
+
+    public String getSecondaryKey() {
+        return secondaryKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ClientKey)) return false;
+
+        ClientKey other = (ClientKey) o;
+        return mode == other.mode
+                && language.equals(other.language)
+                && equal(primaryKey, other.primaryKey)
+                && equal(secondaryKey, other.secondaryKey);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mode.hashCode();
+        result = 31 * result + language.hashCode();
+        result = 31 * result + (primaryKey == null ? 0 : primaryKey.hashCode());
+        result = 31 * result + (secondaryKey == null ? 0 : secondaryKey.hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        // keys are secrets, keep them out of the log
+        return mode + "/" + language;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
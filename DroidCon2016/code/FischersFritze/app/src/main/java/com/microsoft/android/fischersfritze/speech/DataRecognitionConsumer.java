@@ -0,0 +1,57 @@
+package com.microsoft.android.fischersfritze.speech;
+
+import android.app.Activity;
+import com.microsoft.android.fischersfritze.recorder.PcmConsumer;
+import com.microsoft.android.fischersfritze.recorder.PcmFormat;
+import com.microsoft.android.fischersfritze.recorder.WavHeader;
+import com.microsoft.projectoxford.speechrecognition.DataRecognitionClient;
+import com.microsoft.projectoxford.speechrecognition.ISpeechRecognitionServerEvents;
+import com.microsoft.projectoxford.speechrecognition.SpeechRecognitionServiceFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pushes streamed PCM into a data recognition client, as a WAV stream of unknown length.
+ * The SDK takes byte arrays, so every frame is copied into one array reused for the whole
+ * stream.
+ */
+public class DataRecognitionConsumer implements PcmConsumer {
+    private final DataRecognitionClient client;
+    private byte[] chunk = new byte[WavHeader.SIZE];
+
+    public DataRecognitionConsumer(Activity activity, ClientKey key, ISpeechRecognitionServerEvents events) {
+        if(activity == null) throw new IllegalArgumentException("activity MUST NOT be NULL");
+        if(key == null) throw new IllegalArgumentException("key MUST NOT be NULL");
+
+        this.client = SpeechRecognitionServiceFactory.createDataClient(
+                activity,
+                key.getMode(),
+                key.getLanguage(),
+                events,
+                key.getPrimaryKey(),
+                key.getSecondaryKey());
+    }
+
+    @Override
+    public void onStart(PcmFormat format) {
+        ByteBuffer header = ByteBuffer.wrap(chunk);
+        WavHeader.writeStreaming(header, format);
+        client.sendAudio(chunk, WavHeader.SIZE);
+    }
+
+    @Override
+    public void onFrame(ByteBuffer frame) {
+        int length = frame.remaining();
+        if (chunk.length < length) {
+            // once, for the first frame
+            chunk = new byte[length];
+        }
+        frame.get(chunk, 0, length);
+        client.sendAudio(chunk, length);
+    }
+
+    @Override
+    public void onEnd() {
+        client.endAudio();
+    }
+}
@@ -0,0 +1,46 @@
+package com.microsoft.android.fischersfritze.speech;
+
+import com.microsoft.projectoxford.speechrecognition.ISpeechRecognitionServerEvents;
+import com.microsoft.projectoxford.speechrecognition.RecognitionResult;
+
+/**
+ * Stable callback handed to the speech SDK. Warm clients outlive whoever currently
+ * listens to them, so the actual receiver can be swapped (or detached) at any time.
+ */
+public class ForwardingRecognitionEvents implements ISpeechRecognitionServerEvents {
+    private volatile ISpeechRecognitionServerEvents target;
+
+    public void setTarget(ISpeechRecognitionServerEvents target) {
+        this.target = target;
+    }
+
+    @Override
+    public void onPartialResponseReceived(String response) {
+        ISpeechRecognitionServerEvents current = target;
+        if (current != null) current.onPartialResponseReceived(response);
+    }
+
+    @Override
+    public void onFinalResponseReceived(RecognitionResult response) {
+        ISpeechRecognitionServerEvents current = target;
+        if (current != null) current.onFinalResponseReceived(response);
+    }
+
+    @Override
+    public void onIntentReceived(String payload) {
+        ISpeechRecognitionServerEvents current = target;
+        if (current != null) current.onIntentReceived(payload);
+    }
+
+    @Override
+    public void onError(int errorCode, String response) {
+        ISpeechRecognitionServerEvents current = target;
+        if (current != null) current.onError(errorCode, response);
+    }
+
+    @Override
+    public void onAudioEvent(boolean recording) {
+        ISpeechRecognitionServerEvents current = target;
+        if (current != null) current.onAudioEvent(recording);
+    }
+}
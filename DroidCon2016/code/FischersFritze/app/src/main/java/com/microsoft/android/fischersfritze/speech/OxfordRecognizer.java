@@ -0,0 +1,269 @@
+package com.microsoft.android.fischersfritze.speech;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.microsoft.android.fischersfritze.game.Hypothesis;
+import com.microsoft.android.fischersfritze.game.Recognizer;
+import com.microsoft.android.fischersfritze.metrics.Metrics;
+import com.microsoft.android.fischersfritze.recorder.ClipRecorder;
+import com.microsoft.android.fischersfritze.recorder.ImaAdpcmEncoder;
+import com.microsoft.android.fischersfritze.recorder.MicrophonePcmSource;
+import com.microsoft.android.fischersfritze.recorder.PcmFormat;
+import com.microsoft.android.fischersfritze.recorder.PcmTee;
+import com.microsoft.android.fischersfritze.recorder.PolyphaseResampler;
+import com.microsoft.android.fischersfritze.recorder.StreamingCapture;
+import com.microsoft.android.fischersfritze.recorder.VoiceActivityDetector;
+import com.microsoft.bing.speech.SpeechClientStatus;
+import com.microsoft.projectoxford.speechrecognition.*;
+
+import java.io.IOException;
+
+/**
+ * {@link Recognizer} backed by the Project Oxford microphone client. Translates the SDK
+ * callbacks into recognizer events; the clients themselves are kept warm by a
+ * {@link SpeechClientManager}.
+ *
+ * With local voice activity detection the microphone is captured by the app instead and
+ * streamed to a data recognition client through a {@link VoiceActivityDetector}, which
+ * trims the silence and ends the utterance as soon as the speaker stops.
+ *
+ * Times every recognition from start to the first partial and to the final result, and
+ * counts errors by {@link SpeechClientStatus}, in {@link Metrics#getDefault()}.
+ *
+ * Recognizer events reach the listener on the main thread, whichever thread the SDK calls
+ * back on, since neither the {@link SpeechClientManager} nor the game session is thread-safe.
+ */
+public class OxfordRecognizer implements Recognizer, ISpeechRecognitionServerEvents {
+    private static final String LOG_TAG = "OxfordRecognizer";
+    // the only capture rate every device has to support
+    private static final PcmFormat CAPTURE_FORMAT = new PcmFormat(44100, 1);
+
+    public static final String TIMER_FIRST_PARTIAL = "recognition.firstPartial";
+    public static final String TIMER_FINAL = "recognition.final";
+    public static final String TIMER_DATA_CLIENT_INIT = "client.init.data";
+
+    private final Activity activity;
+    private final SpeechClientManager clientManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private volatile Listener listener;
+
+    // timed as the SDK callbacks arrive, on whatever thread that is
+    private final Metrics metrics = Metrics.getDefault();
+    private volatile long startNanos;
+    private volatile boolean partialSeen;
+
+    // local voice activity detection
+    private boolean localVad;
+    private ClientKey dataKey;
+    private DataRecognitionConsumer dataConsumer;
+    private StreamingCapture capture;
+    private PolyphaseResampler resampler;
+    // what the player said, ADPCM encoded, for the attempt archive
+    private final ClipRecorder clipRecorder = new ClipRecorder();
+
+    public OxfordRecognizer(Activity activity) {
+        this.activity = activity;
+        this.clientManager = new SpeechClientManager(activity, this);
+    }
+
+    public void setLocalVad(boolean localVad) {
+        this.localVad = localVad;
+    }
+
+    public boolean isLocalVad() {
+        return localVad;
+    }
+
+    /**
+     * @return recorder of the latest locally captured utterance, empty unless local voice
+     *         activity detection is on
+     */
+    public ClipRecorder getClipRecorder() {
+        return clipRecorder;
+    }
+
+    public SpeechClientManager getClientManager() {
+        return clientManager;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void start() {
+        startNanos = System.nanoTime();
+        partialSeen = false;
+
+        if (localVad && clientManager.getActiveKey() != null) {
+            startStreaming(clientManager.getActiveKey());
+            return;
+        }
+
+        MicrophoneRecognitionClient client = clientManager.getActiveClient();
+        if (client != null) {
+            client.startMicAndRecognition();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (capture != null || localVad) {
+            stopStreaming();
+            return;
+        }
+
+        MicrophoneRecognitionClient client = clientManager.getActiveClient();
+        if (client != null) {
+            client.endMicAndRecognition();
+        }
+    }
+
+    private void startStreaming(ClientKey key) {
+        if (dataConsumer == null || !key.equals(dataKey)) {
+            long initStart = System.nanoTime();
+            dataConsumer = new DataRecognitionConsumer(activity, key, this);
+            metrics.recordSince(TIMER_DATA_CLIENT_INIT, initStart);
+            dataKey = key;
+        }
+
+        PcmTee speech = new PcmTee(dataConsumer, new ImaAdpcmEncoder(clipRecorder));
+        VoiceActivityDetector vad = new VoiceActivityDetector(speech, new VoiceActivityDetector.Listener() {
+            @Override
+            public void onSpeechStart() {
+                Log.d(LOG_TAG, "speech started");
+            }
+
+            @Override
+            public void onEndOfSpeech() {
+                // delivery thread, the rest happens on the main thread
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        stopStreaming();
+                    }
+                });
+            }
+        });
+
+        resampler = new PolyphaseResampler(PcmFormat.SPEECH.getSampleRate(), vad);
+        capture = new StreamingCapture(new MicrophonePcmSource(CAPTURE_FORMAT), resampler);
+        try {
+            capture.start();
+        } catch (IOException e) {
+            capture = null;
+            onError(-1, "microphone: " + e.getMessage());
+            return;
+        }
+        onAudioEvent(true);
+    }
+
+    private void stopStreaming() {
+        StreamingCapture current = capture;
+        if (current == null) return;
+
+        capture = null;
+        current.stop();
+        Log.d(LOG_TAG, "streamed " + current.getCapturedFrames() + " frames, " + current.getDroppedFrames() + " dropped, " + resampler);
+        onAudioEvent(false);
+    }
+
+    @Override
+    public void onPartialResponseReceived(final String response) {
+        if (!partialSeen) {
+            partialSeen = true;
+            metrics.recordSince(TIMER_FIRST_PARTIAL, startNanos);
+        }
+
+        onMainThread(new Runnable() {
+            @Override
+            public void run() {
+                Listener current = listener;
+                if (current != null) current.onPartialResult(response);
+            }
+        });
+    }
+
+    @Override
+    public void onFinalResponseReceived(final RecognitionResult response) {
+        metrics.recordSince(TIMER_FINAL, startNanos);
+        metrics.increment("final." + response.RecognitionStatus);
+
+        onMainThread(new Runnable() {
+            @Override
+            public void run() {
+                deliverFinalResponse(response);
+            }
+        });
+    }
+
+    private void deliverFinalResponse(RecognitionResult response) {
+        Listener current = listener;
+        if (current == null) return;
+
+        ClientKey key = clientManager.getActiveKey();
+        boolean isFinalDictationMessage = key != null && key.getMode() == SpeechRecognitionMode.LongDictation &&
+                (response.RecognitionStatus == RecognitionStatus.EndOfDictation ||
+                        response.RecognitionStatus == RecognitionStatus.DictationEndSilenceTimeout);
+
+        if (isFinalDictationMessage) {
+            current.onEndOfDictation();
+            return;
+        }
+
+        Hypothesis[] nBest = new Hypothesis[response.Results.length];
+        for (int i = 0; i < nBest.length; i++) {
+            nBest[i] = new Hypothesis(response.Results[i].DisplayText, String.valueOf(response.Results[i].Confidence));
+        }
+        current.onFinalResult(nBest);
+    }
+
+    @Override
+    public void onIntentReceived(String payload) {
+        // no intents configured for the game
+        Log.d(LOG_TAG, "intent received: " + payload);
+    }
+
+    @Override
+    public void onError(final int errorCode, final String response) {
+        metrics.increment("error." + statusName(errorCode));
+
+        onMainThread(new Runnable() {
+            @Override
+            public void run() {
+                Listener current = listener;
+                if (current != null) current.onError(errorCode, response);
+            }
+        });
+    }
+
+    @Override
+    public void onAudioEvent(final boolean recording) {
+        onMainThread(new Runnable() {
+            @Override
+            public void run() {
+                Listener current = listener;
+                if (current != null) current.onAudioEvent(recording);
+            }
+        });
+    }
+
+    // posted even from the main thread, so events raised there queue up behind SDK callbacks
+    // that are already posted instead of overtaking them
+    private void onMainThread(Runnable action) {
+        handler.post(action);
+    }
+
+    private static String statusName(int errorCode) {
+        // our own errors, e.g. -1 for the microphone, are no SDK status
+        try {
+            SpeechClientStatus status = SpeechClientStatus.fromInt(errorCode);
+            if (status != null) return status.name();
+        } catch (RuntimeException ignored) {
+        }
+        return String.valueOf(errorCode);
+    }
+}
@@ -0,0 +1,211 @@
+package com.microsoft.android.fischersfritze.speech;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.microsoft.android.fischersfritze.metrics.Metrics;
+import com.microsoft.projectoxford.speechrecognition.ISpeechRecognitionServerEvents;
+import com.microsoft.projectoxford.speechrecognition.MicrophoneRecognitionClient;
+import com.microsoft.projectoxford.speechrecognition.SpeechRecognitionServiceFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps microphone clients warm instead of tearing them down on every pause or preference
+ * change. Clients are cached by {@link ClientKey}; switching to a key that is already warm
+ * costs nothing, and the client that was just left is kept around because toggling back
+ * is the most likely next change. Bursts of preference edits are debounced into a single
+ * switch.
+ *
+ * Main thread only.
+ */
+public class SpeechClientManager {
+    private static final String LOG_TAG = "SpeechClientManager";
+    private static final int MAX_WARM_CLIENTS = 2;
+    private static final long DEBOUNCE_MS = 500;
+
+    public static final String TIMER_CLIENT_INIT = "client.init.microphone";
+
+    private final Activity activity;
+    private final ForwardingRecognitionEvents events = new ForwardingRecognitionEvents();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // access order, the eldest entry is the least recently used client
+    private final LinkedHashMap<ClientKey, MicrophoneRecognitionClient> clients = new LinkedHashMap<>(4, 0.75f, true);
+
+    private ClientKey activeKey;
+    private ClientKey previousKey;
+    private ClientKey pendingKey;
+    private int created;
+
+    private final Runnable applyPending = new Runnable() {
+        @Override
+        public void run() {
+            ClientKey key = pendingKey;
+            pendingKey = null;
+            if (key == null) return;
+
+            try {
+                apply(key);
+            } catch (Exception e) {
+                Log.e(LOG_TAG, "switching to " + key + " failed", e);
+            }
+        }
+    };
+
+    public SpeechClientManager(Activity activity, ISpeechRecognitionServerEvents target) {
+        if(activity == null) throw new IllegalArgumentException("activity MUST NOT be NULL");
+
+        this.activity = activity;
+        this.events.setTarget(target);
+    }
+
+    public void setTarget(ISpeechRecognitionServerEvents target) {
+        events.setTarget(target);
+    }
+
+    /**
+     * Switches to {@code key} right away, building its client if it is not warm yet.
+     */
+    public MicrophoneRecognitionClient configure(ClientKey key) {
+        handler.removeCallbacks(applyPending);
+        pendingKey = null;
+
+        apply(key);
+        return getActiveClient();
+    }
+
+    /**
+     * Switches to {@code key} once no further request arrived for a short while.
+     */
+    public void requestConfigure(ClientKey key) {
+        pendingKey = key;
+        handler.removeCallbacks(applyPending);
+        handler.postDelayed(applyPending, DEBOUNCE_MS);
+    }
+
+    /**
+     * Builds the client for {@code key} in the background of the main looper, so it is
+     * already warm when it is asked for.
+     */
+    public void prewarm(final ClientKey key) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                // released in the meantime, or already warm
+                if (activeKey == null || clients.containsKey(key)) return;
+                try {
+                    obtain(key);
+                } catch (Exception e) {
+                    Log.w(LOG_TAG, "prewarming " + key + " failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the client for the active key, null before the first {@link #configure(ClientKey)}
+     */
+    public MicrophoneRecognitionClient getActiveClient() {
+        return activeKey == null ? null : clients.get(activeKey);
+    }
+
+    public ClientKey getActiveKey() {
+        return activeKey;
+    }
+
+    /**
+     * @return number of clients built so far, warm hits do not count
+     */
+    public int getCreatedCount() {
+        return created;
+    }
+
+    /**
+     * Stops listening but keeps every client warm.
+     */
+    public void pause() {
+        handler.removeCallbacks(applyPending);
+        pendingKey = null;
+
+        MicrophoneRecognitionClient client = getActiveClient();
+        if (client != null) {
+            client.endMicAndRecognition();
+        }
+    }
+
+    public void release() {
+        pause();
+        for (MicrophoneRecognitionClient client : clients.values()) {
+            shutdown(client);
+        }
+        clients.clear();
+        activeKey = null;
+        previousKey = null;
+    }
+
+    private void apply(ClientKey key) {
+        if (key.equals(activeKey) && clients.containsKey(key)) {
+            return;
+        }
+
+        MicrophoneRecognitionClient current = getActiveClient();
+        if (current != null) {
+            current.endMicAndRecognition();
+        }
+        if (activeKey != null && !activeKey.equals(key)) {
+            previousKey = activeKey;
+        }
+
+        activeKey = key;
+        obtain(key);
+        Log.d(LOG_TAG, "active client " + key + ", " + clients.size() + " warm, " + created + " built");
+
+        // toggling back is the most likely next change
+        if (previousKey != null) {
+            prewarm(previousKey);
+        }
+    }
+
+    private MicrophoneRecognitionClient obtain(ClientKey key) {
+        MicrophoneRecognitionClient client = clients.get(key);
+        if (client == null) {
+            long start = System.nanoTime();
+            client = SpeechRecognitionServiceFactory.createMicrophoneClient(
+                    activity,
+                    key.getMode(),
+                    key.getLanguage(),
+                    events,
+                    key.getPrimaryKey(),
+                    key.getSecondaryKey());
+            Metrics.getDefault().recordSince(TIMER_CLIENT_INIT, start);
+            clients.put(key, client);
+            created++;
+            trim();
+        }
+        return client;
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<ClientKey, MicrophoneRecognitionClient>> it = clients.entrySet().iterator();
+        while (clients.size() > MAX_WARM_CLIENTS && it.hasNext()) {
+            Map.Entry<ClientKey, MicrophoneRecognitionClient> eldest = it.next();
+            // never evict the client that is in use
+            if (eldest.getKey().equals(activeKey)) continue;
+
+            it.remove();
+            shutdown(eldest.getValue());
+        }
+    }
+
+    private static void shutdown(MicrophoneRecognitionClient client) {
+        client.endMicAndRecognition();
+        try {
+            client.finalize();
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.microsoft.android.fischersfritze.ui;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity log of result lines. Lines can be appended from any thread without
+ * locking; once the ring is full the oldest lines are overwritten, so memory stays flat
+ * no matter how long a session runs.
+ *
+ * Each slot is a small seqlock. An append claims a sequence number, waits until the append
+ * one lap earlier has published its slot, marks the slot busy, stores the line and then
+ * publishes its sequence. Readers check the published sequence before and after reading
+ * the line and drop the line unless both match the one they expect, so a line that is
+ * being overwritten is skipped instead of shown in place of an older one.
+ */
+public final class ResultLog {
+    // published while a slot is being written, matches no sequence
+    private static final long BUSY = Long.MIN_VALUE;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<String> lines;
+    private final AtomicLongArray published;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long clearedAt;
+
+    public ResultLog(int capacity) {
+        if(capacity < 1) throw new IllegalArgumentException("capacity MUST be positive");
+
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.lines = new AtomicReferenceArray<>(size);
+        this.published = new AtomicLongArray(size);
+        // as if published one lap before the first append
+        for (int i = 0; i < size; i++) published.set(i, i - size);
+    }
+
+    public void append(String line) {
+        long sequence = head.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        // only when appends lap the ring faster than one of them completes
+        while (published.get(slot) != sequence - capacity) Thread.yield();
+
+        published.set(slot, BUSY);
+        lines.set(slot, line);
+        published.set(slot, sequence);
+    }
+
+    public void clear() {
+        clearedAt = head.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of lines appended so far; changes whenever there is something new to show
+     */
+    public long getVersion() {
+        return head.get();
+    }
+
+    /**
+     * Appends the last {@code maxLines} lines to {@code out}, oldest first, each followed by a newline.
+     *
+     * @return number of lines written
+     */
+    public int snapshot(StringBuilder out, int maxLines) {
+        long end = head.get();
+        long start = Math.max(Math.max(clearedAt, end - capacity), end - maxLines);
+
+        int written = 0;
+        for (long sequence = start; sequence < end; sequence++) {
+            int slot = (int) (sequence & mask);
+            if (published.get(slot) != sequence) continue;
+
+            String line = lines.get(slot);
+            // overwritten while we were reading it
+            if (published.get(slot) != sequence) continue;
+
+            out.append(line).append('\n');
+            written++;
+        }
+        return written;
+    }
+}
@@ -0,0 +1,83 @@
+package com.microsoft.android.fischersfritze.ui;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.widget.TextView;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shows the tail of a {@link ResultLog} in a {@link TextView}. Any number of
+ * {@link #requestFlush()} calls, from any thread, end up in at most one view update per frame.
+ */
+public class ResultLogFlusher implements Choreographer.FrameCallback {
+    private final ResultLog log;
+    private final TextView view;
+    private final int visibleLines;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final StringBuilder buffer = new StringBuilder();
+    private long flushedVersion = -1;
+    private boolean stopped;
+
+    private final Runnable postFrame = new Runnable() {
+        @Override
+        public void run() {
+            if (!stopped) Choreographer.getInstance().postFrameCallback(ResultLogFlusher.this);
+        }
+    };
+
+    public ResultLogFlusher(ResultLog log, TextView view, int visibleLines) {
+        if(log == null) throw new IllegalArgumentException("log MUST NOT be NULL");
+        if(view == null) throw new IllegalArgumentException("view MUST NOT be NULL");
+
+        this.log = log;
+        this.view = view;
+        this.visibleLines = visibleLines;
+    }
+
+    public void requestFlush() {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            postFrame.run();
+        } else {
+            mainHandler.post(postFrame);
+        }
+    }
+
+    /**
+     * Redraws on the next frame even if nothing was appended, e.g. after {@link ResultLog#clear()}.
+     * Main thread only.
+     */
+    public void invalidate() {
+        flushedVersion = -1;
+        requestFlush();
+    }
+
+    public void stop() {
+        stopped = true;
+        mainHandler.removeCallbacks(postFrame);
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // cleared before reading, so lines appended from here on schedule another frame
+        scheduled.set(false);
+
+        long version = log.getVersion();
+        if (version == flushedVersion) {
+            return;
+        }
+        flushedVersion = version;
+
+        buffer.setLength(0);
+        log.snapshot(buffer, visibleLines);
+        view.setText(buffer);
+    }
+}
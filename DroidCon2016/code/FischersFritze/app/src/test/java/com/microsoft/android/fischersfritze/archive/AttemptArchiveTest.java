@@ -0,0 +1,113 @@
+package com.microsoft.android.fischersfritze.archive;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class AttemptArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void append_readsBackEveryAttempt() throws Exception {
+        AttemptArchive archive = AttemptArchive.open(folder.getRoot());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, archive.append(attempt(i)));
+        }
+
+        assertEquals(100, archive.size());
+        Attempt attempt = archive.get(42);
+        assertEquals(42000L, attempt.getTimestamp());
+        assertEquals("de-de", attempt.getLanguage());
+        assertEquals(2, attempt.getTwisterId());
+        assertEquals("Fischers Fritze fischt 42", attempt.getTranscript());
+        assertEquals(58, attempt.getScore());
+        assertEquals(Attempt.ENCODING_IMA_ADPCM, attempt.getEncoding());
+        assertEquals(16000, attempt.getSampleRate());
+        assertEquals(audio(42), attempt.getAudio());
+        assertEquals(99000L, archive.getTimestamp(99));
+        archive.close();
+    }
+
+    @Test
+    public void open_keepsAttemptsAcrossSessions() throws Exception {
+        AttemptArchive archive = AttemptArchive.open(folder.getRoot());
+        archive.append(attempt(0));
+        archive.append(attempt(1));
+        archive.close();
+
+        archive = AttemptArchive.open(folder.getRoot());
+        assertEquals(2, archive.size());
+        archive.append(attempt(2));
+        assertEquals("Fischers Fritze fischt 1", archive.get(1).getTranscript());
+        assertEquals("Fischers Fritze fischt 2", archive.get(2).getTranscript());
+        archive.close();
+    }
+
+    @Test
+    public void append_rollsOverToNewSegments() throws Exception {
+        AttemptArchive archive = AttemptArchive.open(folder.getRoot(), 1024);
+        for (int i = 0; i < 20; i++) {
+            archive.append(attempt(i));
+        }
+        archive.close();
+
+        assertTrue(new File(folder.getRoot(), "attempts-00003.seg").exists());
+        archive = AttemptArchive.open(folder.getRoot(), 1024);
+        assertEquals(20, archive.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(audio(i), archive.get(i).getAudio());
+        }
+        archive.close();
+    }
+
+    @Test
+    public void open_dropsAHalfWrittenAttempt() throws Exception {
+        AttemptArchive archive = AttemptArchive.open(folder.getRoot());
+        archive.append(attempt(0));
+        archive.append(attempt(1));
+        archive.close();
+
+        // the index entry made it, the end of the record did not
+        RandomAccessFile segment = new RandomAccessFile(new File(folder.getRoot(), "attempts-00000.seg"), "rw");
+        segment.setLength(segment.length() - 10);
+        segment.close();
+
+        archive = AttemptArchive.open(folder.getRoot());
+        assertEquals(1, archive.size());
+        assertEquals(1, archive.append(attempt(7)));
+        assertEquals("Fischers Fritze fischt 7", archive.get(1).getTranscript());
+        archive.close();
+    }
+
+    @Test
+    public void append_storesAttemptsWithoutAudio() throws Exception {
+        AttemptArchive archive = AttemptArchive.open(folder.getRoot());
+        archive.append(new Attempt(1L, "en-us", -1, null, 100, Attempt.ENCODING_IMA_ADPCM, 0, null));
+
+        Attempt attempt = archive.get(0);
+        assertEquals(Attempt.ENCODING_NONE, attempt.getEncoding());
+        assertEquals(0, attempt.getAudio().remaining());
+        assertEquals("", attempt.getTranscript());
+        archive.close();
+    }
+
+    private static Attempt attempt(int i) {
+        return new Attempt(i * 1000L, "de-de", 2, "Fischers Fritze fischt " + i, 100 - i,
+                Attempt.ENCODING_IMA_ADPCM, 16000, audio(i));
+    }
+
+    private static ByteBuffer audio(int i) {
+        ByteBuffer audio = ByteBuffer.allocate(100 + i * 3);
+        for (int b = 0; b < audio.capacity(); b++) audio.put((byte) (b * 31 + i));
+        audio.flip();
+        return audio;
+    }
+}
@@ -0,0 +1,136 @@
+package com.microsoft.android.fischersfritze.game;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameSessionTest {
+    private static final String TWISTER = "Fischers Fritze fischt frische Fische";
+
+    @Test
+    public void replay_scoresFinalResultAndReturnsToIdle() throws Exception {
+        RecordingListener events = replay(
+                "A 1\n" +
+                "P fischers\n" +
+                "P fischers fritze fischt\n" +
+                "F Fischers Fritzi fischt frische Fische|Fischers Fritze fischt frische Fische\n" +
+                "A 0\n");
+
+        assertEquals(2, events.liveScores.size());
+        assertEquals(1, events.results.size());
+
+        RoundResult result = events.results.get(0);
+        assertEquals(TWISTER, result.getTwister());
+        assertEquals(1, result.getDistance(0));
+        assertEquals(99, result.getScore());
+        assertEquals(1, result.getBestIndex());
+        assertEquals(0, result.getBestDistance());
+        assertEquals(1, result.getWordScore(0).getWordErrors());
+
+        assertEquals(GameSession.State.Recording, events.states.get(0));
+        assertEquals(GameSession.State.Idle, events.states.get(events.states.size() - 1));
+    }
+
+    @Test
+    public void replay_dropsPartialsAfterFinalInShortPhraseMode() throws Exception {
+        RecordingListener events = replay(
+                "A 1\n" +
+                "F Fischers Fritze\n" +
+                "P late partial\n" +
+                "A 0\n");
+
+        assertTrue(events.liveScores.isEmpty());
+        assertEquals(1, events.results.size());
+    }
+
+    @Test
+    public void replay_reportsErrors() throws Exception {
+        RecordingListener events = replay(
+                "A 1\n" +
+                "E 5 connection lost\n");
+
+        assertEquals("5 connection lost", events.errors.get(0));
+        assertEquals(GameSession.State.Idle, events.states.get(events.states.size() - 1));
+    }
+
+    @Test
+    public void session_withoutLanguageOrTwister() throws Exception {
+        ReplayRecognizer recognizer = new ReplayRecognizer(ReplayScript.parse(new StringReader(
+                "A 1\n" +
+                "P fischers\n" +
+                "F Fischers Fritze\n" +
+                "A 0\n")));
+        GameSession session = new GameSession(recognizer, null);
+        RecordingListener listener = new RecordingListener();
+        session.setListener(listener);
+
+        assertEquals("", session.getTwister());
+        session.clear();
+        // nothing to score against yet
+        session.startRecording();
+        assertTrue(listener.liveScores.isEmpty());
+        assertTrue(listener.results.isEmpty());
+        assertEquals(GameSession.State.Idle, session.getState());
+
+        session.setTwister(TWISTER);
+        session.setLanguage("de-de");
+        session.startRecording();
+        assertEquals(1, listener.liveScores.size());
+        assertEquals(1, listener.results.size());
+        assertEquals(TWISTER, listener.results.get(0).getTwister());
+    }
+
+    private static RecordingListener replay(String script) throws Exception {
+        ReplayRecognizer recognizer = new ReplayRecognizer(ReplayScript.parse(new StringReader(script)));
+        GameSession session = new GameSession(recognizer, "de-de");
+        RecordingListener listener = new RecordingListener();
+        session.setListener(listener);
+
+        session.setTwister(TWISTER);
+        session.startRecording();
+
+        assertFalse(recognizer.isRunning());
+        return listener;
+    }
+
+    private static class RecordingListener implements GameSession.Listener {
+        final List<GameSession.State> states = new ArrayList<>();
+        final List<Integer> liveScores = new ArrayList<>();
+        final List<RoundResult> results = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        final List<RuntimeException> failures = new ArrayList<>();
+
+        @Override
+        public void onStateChanged(GameSession.State state) {
+            states.add(state);
+        }
+
+        @Override
+        public void onLiveScore(String partial, int distance) {
+            liveScores.add(distance);
+        }
+
+        @Override
+        public void onRoundScored(RoundResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onScoringFailed(String twister, RuntimeException error) {
+            failures.add(error);
+        }
+
+        @Override
+        public void onError(int errorCode, String text) {
+            errors.add(errorCode + " " + text);
+        }
+
+        @Override
+        public void onAudioEvent(boolean recording) {
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.microsoft.android.fischersfritze.game;
+
+import com.microsoft.android.fischersfritze.oxford.ReferenceProfile;
+import com.microsoft.android.fischersfritze.oxford.TwisterCorpus;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ScoringPipelineTest {
+    private static final String TWISTER = "Fischers Fritze fischt frische Fische";
+    private static final ReferenceProfile PROFILE = new ReferenceProfile("de-de", TWISTER);
+
+    // stands in for the main looper: tasks run when the test says so
+    private final BlockingQueue<Runnable> uiTasks = new LinkedBlockingQueue<>();
+    private final Executor ui = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            uiTasks.add(command);
+        }
+    };
+    private ScoringPipeline pipeline;
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) pipeline.shutdown();
+    }
+
+    @Test
+    public void submit_deliversResultsInBatches() throws Exception {
+        pipeline = new ScoringPipeline(16, ui);
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+        pipeline.setListener(new ScoringPipeline.Listener() {
+            @Override
+            public void onScored(List<RoundResult> results) {
+                batchSizes.add(results.size());
+            }
+
+            @Override
+            public void onFailed(ScoringJob job, RuntimeException error) {
+                fail(error.toString());
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(job("Fischers Fritze " + i));
+        }
+        // everything is scored before the first delivery task runs
+        while (pipeline.getQueueDepth() > 0 || uiTasks.isEmpty()) Thread.sleep(1);
+        Thread.sleep(50);
+
+        int delivered = 0;
+        Runnable task;
+        while ((task = uiTasks.poll(100, TimeUnit.MILLISECONDS)) != null) {
+            task.run();
+            delivered = (int) pipeline.getDelivered();
+            if (delivered == 10) break;
+        }
+        assertEquals(10, delivered);
+        assertTrue("batched: " + batchSizes, batchSizes.size() < 10);
+        assertEquals(0, pipeline.getDropped());
+    }
+
+    @Test
+    public void submit_dropsTheOldestJobWhenFull() throws Exception {
+        pipeline = new ScoringPipeline(2, ui);
+        final CountDownLatch busy = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> formatted = Collections.synchronizedList(new ArrayList<String>());
+        pipeline.setFormatter(new ScoringPipeline.Formatter() {
+            @Override
+            public void format(RoundResult result) {
+                formatted.add(result.getHypothesis(0).getText());
+                busy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        pipeline.submit(job("first"));
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        // the worker is stuck on the first job, the queue holds two
+        for (String text : new String[]{"second", "third", "fourth", "fifth"}) {
+            pipeline.submit(job(text));
+        }
+
+        assertEquals(2, pipeline.getDropped());
+        assertEquals(2, pipeline.getQueueDepth());
+        assertEquals(2, pipeline.getHighWaterMark());
+
+        release.countDown();
+        while (formatted.size() < 3) Thread.sleep(1);
+        assertEquals(Arrays.asList("first", "fourth", "fifth"), formatted);
+    }
+
+    @Test
+    public void submit_reportsJobsThatFailToScore() throws Exception {
+        pipeline = new ScoringPipeline(ui);
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        pipeline.setListener(new ScoringPipeline.Listener() {
+            @Override
+            public void onScored(List<RoundResult> results) {
+                for (RoundResult result : results) events.add("scored " + result.getHypothesis(0).getText());
+            }
+
+            @Override
+            public void onFailed(ScoringJob job, RuntimeException error) {
+                events.add("failed " + job.getTwister());
+            }
+        });
+
+        // scoring an empty n-best list throws
+        pipeline.submit(new ScoringJob("de-de", TWISTER, TwisterCorpus.NO_ID, PROFILE, new Hypothesis[0], System.nanoTime()));
+        pipeline.submit(job("Fischers Fritze"));
+        while (events.size() < 2) {
+            Runnable task = uiTasks.poll(5, TimeUnit.SECONDS);
+            assertNotNull(task);
+            task.run();
+        }
+
+        // the worker survives and goes on with the next job
+        assertEquals(Arrays.asList("failed " + TWISTER, "scored Fischers Fritze"), events);
+        assertEquals(1, pipeline.getFailed());
+        assertEquals(1, pipeline.getDelivered());
+    }
+
+    @Test
+    public void session_reportsRoundsScoredByThePipeline() throws Exception {
+        pipeline = new ScoringPipeline(ui);
+        ReplayRecognizer recognizer = new ReplayRecognizer(ReplayScript.parse(new StringReader(
+                "A 1\nF Fischers Fritzi fischt frische Fische\nA 0\n")));
+        GameSession session = new GameSession(recognizer, "de-de");
+        session.setScoringPipeline(pipeline);
+        final List<RoundResult> results = new ArrayList<>();
+        session.setListener(new GameSession.Listener() {
+            @Override
+            public void onStateChanged(GameSession.State state) {
+            }
+
+            @Override
+            public void onLiveScore(String partial, int distance) {
+            }
+
+            @Override
+            public void onRoundScored(RoundResult result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onScoringFailed(String twister, RuntimeException error) {
+            }
+
+            @Override
+            public void onError(int errorCode, String text) {
+            }
+
+            @Override
+            public void onAudioEvent(boolean recording) {
+            }
+        });
+
+        session.setTwister(TWISTER);
+        session.startRecording();
+        // scored on the worker, nothing reported on the recognizer's thread
+        assertTrue(results.isEmpty());
+
+        uiTasks.take().run();
+        assertEquals(1, results.size());
+        assertEquals(99, results.get(0).getScore());
+    }
+
+    private static ScoringJob job(String text) {
+        return new ScoringJob("de-de", TWISTER, TwisterCorpus.NO_ID, PROFILE, new Hypothesis[]{new Hypothesis(text, "High")}, System.nanoTime());
+    }
+}
@@ -0,0 +1,96 @@
+package com.microsoft.android.fischersfritze.history;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void offer_keepsTheBestKPlayers() {
+        Leaderboards leaderboards = new Leaderboards(3);
+        for (int i = 0; i < 10; i++) {
+            leaderboards.offer(new ScoreRecord("p" + i, "de-de", i % 2, i * 10, i));
+        }
+
+        List<ScoreRecord> top = leaderboards.getSnapshot().getLanguage("de-de");
+        assertEquals(Arrays.asList("p9", "p8", "p7"), players(top));
+        assertEquals(Arrays.asList("p9", "p7", "p5"), players(leaderboards.getSnapshot().getTwister("de-de", 1)));
+        assertEquals(Arrays.asList(0, 1), leaderboards.getSnapshot().getTwisterIds("de-de"));
+        assertTrue(leaderboards.getSnapshot().getLanguage("fr-fr").isEmpty());
+    }
+
+    @Test
+    public void offer_listsEveryPlayerOnceWithTheirBest() {
+        Leaderboards leaderboards = new Leaderboards(3);
+        leaderboards.offer(new ScoreRecord("anna", "de-de", 0, 50, 1));
+        leaderboards.offer(new ScoreRecord("ben", "de-de", 0, 60, 2));
+        leaderboards.offer(new ScoreRecord("anna", "de-de", 0, 90, 3));
+        leaderboards.offer(new ScoreRecord("anna", "de-de", 0, 40, 4));
+        // an equal score later ranks behind
+        leaderboards.offer(new ScoreRecord("carla", "de-de", 0, 60, 5));
+
+        List<ScoreRecord> top = leaderboards.getSnapshot().getLanguage("de-de");
+        assertEquals(Arrays.asList("anna", "ben", "carla"), players(top));
+        assertEquals(90, top.get(0).getScore());
+    }
+
+    @Test
+    public void snapshot_isNotChangedByLaterScores() {
+        Leaderboards leaderboards = new Leaderboards(3);
+        leaderboards.offer(new ScoreRecord("anna", "de-de", 0, 50, 1));
+        Leaderboards.Snapshot before = leaderboards.getSnapshot();
+
+        leaderboards.offer(new ScoreRecord("ben", "de-de", 0, 60, 2));
+        leaderboards.offer(new ScoreRecord("anna", "fr-fr", 0, 60, 3));
+
+        assertEquals(Arrays.asList("anna"), players(before.getLanguage("de-de")));
+        assertEquals(Arrays.asList("de-de"), before.getLanguages());
+        assertEquals(Arrays.asList("ben", "anna"), players(leaderboards.getSnapshot().getLanguage("de-de")));
+        // the unchanged board is shared, not rebuilt
+        assertSame(leaderboards.getSnapshot().getLanguage("de-de"), snapshotAfterFrench(leaderboards));
+    }
+
+    @Test
+    public void load_mergesTheHistoryWithNewScores() throws Exception {
+        ScoreHistory history = ScoreHistory.open(folder.getRoot(), 4);
+        for (int i = 0; i < 10; i++) {
+            history.record(new ScoreRecord("p" + i, "en-us", 0, i, i));
+        }
+        history.flush();
+
+        Leaderboards leaderboards = new Leaderboards(2);
+        leaderboards.offer(new ScoreRecord("p3", "en-us", 0, 95, 100));
+        assertFalse(leaderboards.getSnapshot().isLoaded());
+
+        leaderboards.load(history);
+        assertTrue(leaderboards.getSnapshot().isLoaded());
+        assertEquals(Arrays.asList("p3", "p9"), players(leaderboards.getSnapshot().getLanguage("en-us")));
+
+        // loading again changes nothing
+        leaderboards.load(history);
+        assertEquals(Arrays.asList("p3", "p9"), players(leaderboards.getSnapshot().getLanguage("en-us")));
+        history.close();
+    }
+
+    private static List<ScoreRecord> snapshotAfterFrench(Leaderboards leaderboards) {
+        leaderboards.offer(new ScoreRecord("carla", "fr-fr", 1, 70, 4));
+        return leaderboards.getSnapshot().getLanguage("de-de");
+    }
+
+    private static List<String> players(List<ScoreRecord> ranking) {
+        String[] players = new String[ranking.size()];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = ranking.get(i).getPlayer();
+        }
+        return Arrays.asList(players);
+    }
+}
@@ -0,0 +1,52 @@
+package com.microsoft.android.fischersfritze.history;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PersistentMapTest {
+
+    @Test
+    public void put_leavesTheOlderMapsAlone() {
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+        List<PersistentMap<String, Integer>> versions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            map = map.put("en-us/" + i, i);
+            versions.add(map);
+        }
+        PersistentMap<String, Integer> replaced = map.put("en-us/42", -42);
+
+        assertEquals(1000, map.size());
+        assertEquals(1000, replaced.size());
+        assertEquals(Integer.valueOf(42), map.get("en-us/42"));
+        assertEquals(Integer.valueOf(-42), replaced.get("en-us/42"));
+        assertEquals(500, versions.get(499).size());
+        assertEquals(Integer.valueOf(499), versions.get(499).get("en-us/499"));
+        assertNull(versions.get(499).get("en-us/500"));
+        assertNull(PersistentMap.empty().get("en-us/0"));
+    }
+
+    @Test
+    public void put_keepsKeysWithTheSameHashApart() {
+        // "Aa" and "BB" share a hash code, "C#" does not
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty()
+                .put("Aa", 1).put("BB", 2).put("C#", 3).put("Aa", 4);
+
+        assertEquals(3, map.size());
+        assertEquals(Integer.valueOf(4), map.get("Aa"));
+        assertEquals(Integer.valueOf(2), map.get("BB"));
+        assertEquals(Integer.valueOf(3), map.get("C#"));
+
+        List<String> keys = map.keys();
+        assertEquals(3, keys.size());
+        assertEquals(new HashSet<>(keys), new HashSet<>(Arrays.asList("Aa", "BB", "C#")));
+        assertEquals(Collections.emptyList(), PersistentMap.empty().keys());
+    }
+}
@@ -0,0 +1,134 @@
+package com.microsoft.android.fischersfritze.history;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ScoreHistoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void queries_seeLoggedAndCompactedRecords() throws Exception {
+        // a small threshold so some records are compacted and some are still in the log
+        ScoreHistory history = ScoreHistory.open(folder.getRoot(), 8);
+        for (int i = 0; i < 30; i++) {
+            history.record(new ScoreRecord(i % 2 == 0 ? "anna" : "ben", i % 3 == 0 ? "fr-fr" : "de-de", i % 4, i, 1000L + i));
+        }
+        history.flush();
+
+        assertEquals(30, history.size());
+        List<ScoreRecord> last = history.lastAttempts("anna", 3);
+        assertEquals(3, last.size());
+        assertEquals(28, last.get(0).getScore());
+        assertEquals(26, last.get(1).getScore());
+        assertEquals(24, last.get(2).getScore());
+        assertEquals(15, history.lastAttempts("ben", 100).size());
+        assertTrue(history.lastAttempts("carla", 5).isEmpty());
+
+        // de-de is every i not divisible by 3, twister 1 is i % 4 == 1
+        List<ScoreRecord> onTwister = history.attemptsOn("de-de", 1);
+        int[] expected = {1, 5, 13, 17, 25, 29};
+        assertEquals(expected.length, onTwister.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(new ScoreRecord(expected[i] % 2 == 0 ? "anna" : "ben", "de-de", 1, expected[i], 1000L + expected[i]),
+                    onTwister.get(i));
+        }
+        history.close();
+    }
+
+    @Test
+    public void flush_reportsRecordsThatCouldNotBeStored() throws Exception {
+        ScoreHistory history = ScoreHistory.open(folder.getRoot(), 2);
+        // the data file cannot be written, so the compaction after the second record fails
+        assertTrue(new File(folder.getRoot(), "scores.dat").mkdir());
+        history.record(new ScoreRecord("anna", "de-de", 0, 70, 1L));
+        history.record(new ScoreRecord("anna", "de-de", 0, 80, 2L));
+
+        try {
+            history.flush();
+            fail("flush must report the failed write");
+        } catch (IOException e) {
+            assertNotNull(e.getCause());
+        }
+        // reported once, and the logged records are still there
+        history.flush();
+        assertEquals(2, history.size());
+        history.close();
+    }
+
+    @Test
+    public void open_replaysTheLog() throws Exception {
+        ScoreHistory history = ScoreHistory.open(folder.getRoot());
+        history.record(new ScoreRecord("anna", "de-de", 0, 70, 1L));
+        history.record(new ScoreRecord("anna", "de-de", 0, 80, 2L));
+        history.close();
+
+        history = ScoreHistory.open(folder.getRoot());
+        assertEquals(2, history.size());
+        assertEquals(80, history.lastAttempts("anna", 1).get(0).getScore());
+
+        history.compact();
+        history.record(new ScoreRecord("anna", "de-de", 0, 90, 3L));
+        history.close();
+
+        history = ScoreHistory.open(folder.getRoot());
+        assertEquals(3, history.size());
+        assertEquals(3, history.attemptsOn("de-de", 0).size());
+        assertEquals(90, history.lastAttempts("anna", 1).get(0).getScore());
+        history.close();
+    }
+
+    @Test
+    public void open_dropsTornLogTail() throws Exception {
+        ScoreHistory history = ScoreHistory.open(folder.getRoot());
+        history.record(new ScoreRecord("anna", "de-de", 0, 70, 1L));
+        history.record(new ScoreRecord("anna", "de-de", 0, 80, 2L));
+        history.close();
+
+        RandomAccessFile wal = new RandomAccessFile(new File(folder.getRoot(), "scores.wal"), "rw");
+        wal.setLength(wal.length() - 3);
+        wal.close();
+
+        history = ScoreHistory.open(folder.getRoot());
+        assertEquals(1, history.size());
+        history.record(new ScoreRecord("anna", "de-de", 0, 90, 3L));
+        history.flush();
+        assertEquals(2, history.size());
+        assertEquals(90, history.lastAttempts("anna", 1).get(0).getScore());
+        history.close();
+    }
+
+    @Test
+    public void open_doesNotCountCompactedRecordsTwice() throws Exception {
+        ScoreHistory history = ScoreHistory.open(folder.getRoot());
+        history.record(new ScoreRecord("anna", "de-de", 0, 70, 1L));
+        history.record(new ScoreRecord("ben", "de-de", 0, 80, 2L));
+        history.close();
+
+        // a crash after the indexes were swapped but before the log was reset
+        File wal = new File(folder.getRoot(), "scores.wal");
+        byte[] log = Files.readAllBytes(wal.toPath());
+        history = ScoreHistory.open(folder.getRoot());
+        history.compact();
+        history.close();
+        Files.write(wal.toPath(), log);
+
+        history = ScoreHistory.open(folder.getRoot());
+        assertEquals(2, history.size());
+        assertEquals(2, history.attemptsOn("de-de", 0).size());
+        history.compact();
+        assertEquals(2, history.size());
+        assertEquals(1, history.lastAttempts("anna", 10).size());
+        history.close();
+    }
+}
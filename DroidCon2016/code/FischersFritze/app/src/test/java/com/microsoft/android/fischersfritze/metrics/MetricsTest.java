@@ -0,0 +1,74 @@
+package com.microsoft.android.fischersfritze.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void buckets_coverEveryValueWithinTheirError() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket < LatencyHistogram.BUCKETS);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(value + " <= " + upper, value <= upper);
+            assertTrue(value + " within 1/16 of " + upper, upper - value <= value / LatencyHistogram.SUB_BUCKETS);
+            if (bucket > 0) assertTrue(LatencyHistogram.upperBoundOf(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    public void percentiles_areCloseToTheTrueValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000000L, histogram.getMax());
+        assertEquals(500500000L, histogram.getMean());
+        assertEquals(500e6, histogram.getPercentile(0.5), 500e6 / 16);
+        assertEquals(990e6, histogram.getPercentile(0.99), 990e6 / 16);
+        assertEquals(1000000000L, histogram.getPercentile(1.0));
+        assertEquals(0, new LatencyHistogram().getPercentile(0.5));
+    }
+
+    @Test
+    public void record_losesNothingUnderContention() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        histogram.record(i + offset);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(400000, histogram.getCount());
+        assertEquals(99999 + 3, histogram.getMax());
+    }
+
+    @Test
+    public void dump_listsTimersAndCountersByName() {
+        Metrics metrics = new Metrics();
+        metrics.timer("recognition.final").record(2000000);
+        metrics.increment("error.LoginFailed");
+        metrics.increment("error.LoginFailed");
+        assertSame(metrics.timer("recognition.final"), metrics.timer("recognition.final"));
+
+        String dump = metrics.dump();
+        assertTrue(dump, dump.contains("recognition.final: n=1 p50=2.0ms p99=2.0ms max=2.0ms"));
+        assertTrue(dump, dump.contains("error.LoginFailed: 2"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AlignmentTest {
+
+    @Test
+    public void align_producesMergedSpans() throws Exception {
+        EditScript script = Alignment.align("Fischers Fritze", "Fishers Fritzi!");
+
+        assertEquals(Helper.referenceLevenshteinDistance("Fischers Fritze", "Fishers Fritzi!"), script.getDistance());
+        EditScript.Span first = script.getSpans().get(0);
+        assertEquals(EditScript.Op.Match, first.getOp());
+        assertEquals(0, first.getReferenceStart());
+        assertEquals(3, first.getReferenceEnd());
+        assertEquals(EditScript.Op.Delete, script.getSpans().get(1).getOp());
+        EditScript.Span second = script.getSpans().get(2);
+        assertEquals(EditScript.Op.Match, second.getOp());
+        assertEquals(4, second.getReferenceStart());
+        assertEquals(3, second.getHypothesisStart());
+        assertEquals(10, second.getReferenceEnd() - second.getReferenceStart());
+        assertEquals(5, script.getSpans().size());
+    }
+
+    @Test
+    public void align_isOptimalAndReplaysOnRandomInput() throws Exception {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            // long enough to go through several levels of splitting
+            int[] reference = randomTokens(random, random.nextInt(150));
+            int[] hypothesis = randomTokens(random, random.nextInt(150));
+
+            EditScript script = Alignment.align(reference, hypothesis);
+
+            assertEquals(WordLevenshtein.distance(reference, hypothesis), script.getDistance());
+            assertReplays(reference, hypothesis, script);
+        }
+    }
+
+    @Test
+    public void alignWords_showsWrongMissingAndExtraWords() throws Exception {
+        ReferenceProfile profile = new ReferenceProfile("de-de", "Fischers Fritze fischt frische Fische.");
+
+        WordAlignment alignment = WordAlignment.align(profile, "Fischers Fritzi fischt äh Fische");
+
+        assertEquals(2, alignment.getWordErrors());
+        assertEquals("fischers [fritzi->fritze] fischt [aeh->frische] fische", alignment.toDiff());
+        assertEquals("fischers fritze -fischt- frische fische +heute+",
+                WordAlignment.align(profile, "Fischers Fritze frische Fische heute").toDiff());
+    }
+
+    @Test
+    public void alignWords_foldsLikeTheCharScore() throws Exception {
+        ReferenceProfile german = new ReferenceProfile("de-de", "Denen Dänen, denen Dänen Dänen dehnen");
+        ReferenceProfile french = new ReferenceProfile("fr-fr", "Le pêcheur pêche");
+
+        assertEquals(0, WordAlignment.align(german, "denen Daenen denen Daenen Dänen dehnen").getWordErrors());
+        assertEquals("le pecheur peche", WordAlignment.align(french, "le pecheur pêche").toDiff());
+        assertEquals(0, german.getWordScorer().score("Denen Daenen denen Daenen Daenen dehnen").getWordErrors());
+    }
+
+    private static void assertReplays(int[] reference, int[] hypothesis, EditScript script) {
+        int referenceAt = 0;
+        int hypothesisAt = 0;
+        for (EditScript.Span span : script.getSpans()) {
+            assertEquals(referenceAt, span.getReferenceStart());
+            assertEquals(hypothesisAt, span.getHypothesisStart());
+            for (int k = 0; k < span.getReferenceEnd() - span.getReferenceStart() && span.getOp() == EditScript.Op.Match; k++) {
+                assertEquals(reference[span.getReferenceStart() + k], hypothesis[span.getHypothesisStart() + k]);
+            }
+            referenceAt = span.getReferenceEnd();
+            hypothesisAt = span.getHypothesisEnd();
+        }
+        assertEquals(reference.length, referenceAt);
+        assertEquals(hypothesis.length, hypothesisAt);
+    }
+
+    private static int[] randomTokens(Random random, int length) {
+        int[] tokens = new int[length];
+        for (int i = 0; i < length; i++) {
+            tokens[i] = random.nextInt(5);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,104 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HelperTest {
+    private static final String ALPHABET = "abcdeäöü ,.";
+
+    @Test
+    public void levenshteinDistance_handlesNullAndEmpty() throws Exception {
+        assertEquals(0, Helper.levenshteinDistance(null, null));
+        assertEquals(3, Helper.levenshteinDistance(null, "abc"));
+        assertEquals(3, Helper.levenshteinDistance("abc", null));
+        assertEquals(3, Helper.levenshteinDistance("", "abc"));
+        assertEquals(3, Helper.levenshteinDistance("abc", ""));
+    }
+
+    @Test
+    public void levenshteinDistance_knownValues() throws Exception {
+        assertEquals(3, Helper.levenshteinDistance("kitten", "sitting"));
+        assertEquals(2, Helper.levenshteinDistance("Fischers Fritze", "Fischers Fritzi!"));
+        assertEquals(0, Helper.levenshteinDistance("Fischers Fritze", "Fischers Fritze"));
+    }
+
+    @Test
+    public void levenshteinDistance_matchesReferenceOnRandomInput() throws Exception {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            // cover the single word path as well as one, two and three blocks
+            String lhs = randomString(random, random.nextInt(200));
+            String rhs = randomString(random, random.nextInt(200));
+
+            assertEquals(lhs + " / " + rhs,
+                    Helper.referenceLevenshteinDistance(lhs, rhs),
+                    Helper.levenshteinDistance(lhs, rhs));
+        }
+    }
+
+    @Test
+    public void levenshteinDistance_matchesReferenceAtBlockBoundaries() throws Exception {
+        Random random = new Random(7);
+        int[] lengths = {63, 64, 65, 127, 128, 129};
+        for (int lhsLength : lengths) {
+            for (int rhsLength : lengths) {
+                String lhs = randomString(random, lhsLength);
+                String rhs = randomString(random, rhsLength);
+
+                assertEquals(Helper.referenceLevenshteinDistance(lhs, rhs), Helper.levenshteinDistance(lhs, rhs));
+            }
+        }
+    }
+
+    @Test
+    public void levenshteinDistance_switchingReferences() throws Exception {
+        // the last compiled reference is reused, a different one must not be
+        String[] references = {"Fischers Fritze", "Fischers Fritzi", "Fischers Fritze", "", "Fischers Fritze"};
+        for (String reference : references) {
+            for (String hypothesis : new String[]{"Fischers Fritz", "frische Fische", ""}) {
+                assertEquals(Helper.referenceLevenshteinDistance(reference, hypothesis), Helper.levenshteinDistance(reference, hypothesis));
+            }
+        }
+        // a long reference over few chars
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) sb.append((char) ('a' + i % 3));
+        assertEquals(2, Helper.levenshteinDistance(sb, sb.substring(1, 4999)));
+    }
+
+    @Test
+    public void boundedLevenshteinDistance_isExactWithinBound() throws Exception {
+        Random random = new Random(11);
+        for (int round = 0; round < 2000; round++) {
+            String lhs = randomString(random, random.nextInt(80));
+            String rhs = randomString(random, random.nextInt(80));
+            int maxDistance = random.nextInt(60);
+
+            int expected = Helper.referenceLevenshteinDistance(lhs, rhs);
+            int bounded = Helper.levenshteinDistance(lhs, rhs, maxDistance);
+            if (expected <= maxDistance) {
+                assertEquals(lhs + " / " + rhs, expected, bounded);
+            } else {
+                assertEquals(lhs + " / " + rhs, maxDistance + 1, bounded);
+            }
+        }
+    }
+
+    @Test
+    public void boundedLevenshteinDistance_cutsOffOnLengthDifference() throws Exception {
+        assertEquals(3, Helper.levenshteinDistance("abcdef", "a", 2));
+        assertEquals(2, Helper.levenshteinDistance(null, "ab", 2));
+        assertEquals(1, Helper.levenshteinDistance("ab", null, 0));
+        assertEquals(0, Helper.levenshteinDistance("kitten", "kitten", 0));
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+}
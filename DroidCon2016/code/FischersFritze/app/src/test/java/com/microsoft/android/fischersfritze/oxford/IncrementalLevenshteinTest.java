@@ -0,0 +1,49 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IncrementalLevenshteinTest {
+    private static final String REFERENCE = "Six sick hicks nick six slick bricks with picks and sticks.";
+
+    @Test
+    public void update_onlyComputesTextAfterSharedPrefix() throws Exception {
+        IncrementalLevenshtein session = new IncrementalLevenshtein(REFERENCE);
+
+        assertEquals(Helper.referenceLevenshteinDistance(REFERENCE, "six"), session.update("six"));
+        assertEquals(3, session.getLastComputed());
+
+        assertEquals(Helper.referenceLevenshteinDistance(REFERENCE, "six sick"), session.update("six sick"));
+        assertEquals(5, session.getLastComputed());
+
+        // the recognizer revised the last word
+        assertEquals(Helper.referenceLevenshteinDistance(REFERENCE, "six sick hits"), session.update("six sick hits"));
+        assertEquals(5, session.getLastComputed());
+        assertEquals(Helper.referenceLevenshteinDistance(REFERENCE, "six sick hicks"), session.update("six sick hicks"));
+        assertEquals(3, session.getLastComputed());
+    }
+
+    @Test
+    public void update_growsBeyondInitialCapacity() throws Exception {
+        IncrementalLevenshtein session = new IncrementalLevenshtein(REFERENCE);
+        StringBuilder partial = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            partial.append(REFERENCE).append(' ');
+            assertEquals(Helper.referenceLevenshteinDistance(REFERENCE, partial), session.update(partial));
+        }
+    }
+
+    @Test
+    public void update_handlesShorterPartialAndReset() throws Exception {
+        IncrementalLevenshtein session = new IncrementalLevenshtein(REFERENCE);
+        session.update("six sick hicks");
+
+        assertEquals(Helper.referenceLevenshteinDistance(REFERENCE, "six"), session.update("six"));
+        assertEquals(0, session.getLastComputed());
+
+        session.reset();
+        assertEquals(REFERENCE.length(), session.getDistance());
+        assertEquals(Helper.referenceLevenshteinDistance(REFERENCE, "sick"), session.update("sick"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NBestScorerTest {
+    private static final String REFERENCE = "How can a clam cram in a clean cream can?";
+
+    @Test
+    public void score_returnsAllDistancesAndBestIndex() throws Exception {
+        NBestScorer scorer = new NBestScorer(REFERENCE);
+        String[] candidates = {
+                "How can a clam cram in a clean cream can",
+                "how can a clam cram in a clean cream can?",
+                "How can a clam cram in a clean cream can?",
+                "Who can clam cream?"
+        };
+
+        NBestScore score = scorer.score(candidates);
+
+        assertEquals(candidates.length, score.size());
+        // the top candidate gives the score and is always exact, as is the best one
+        for (int i : new int[]{0, 2}) {
+            assertTrue(score.isExact(i));
+            assertEquals(Helper.referenceLevenshteinDistance(REFERENCE, candidates[i]), score.getDistance(i));
+        }
+        assertEquals(2, score.getBestIndex());
+        assertEquals(0, score.getBestDistance());
+        // cut off once they could not beat the best candidate so far
+        for (int i : new int[]{1, 3}) {
+            assertFalse(score.isExact(i));
+            assertTrue(score.getDistance(i) <= Helper.referenceLevenshteinDistance(REFERENCE, candidates[i]));
+        }
+    }
+
+    @Test
+    public void boundedDistance_isExactWithinBound() throws Exception {
+        Random random = new Random(5);
+        for (int round = 0; round < 2000; round++) {
+            // single word and block paths
+            String lhs = randomText(random, random.nextInt(150));
+            String rhs = randomText(random, random.nextInt(150));
+            int maxDistance = random.nextInt(100);
+
+            int expected = Helper.referenceLevenshteinDistance(lhs, rhs);
+            int bounded = new BitParallelLevenshtein(lhs).distance(rhs, maxDistance);
+            assertEquals(lhs + " / " + rhs, Math.min(expected, maxDistance + 1), bounded);
+        }
+    }
+
+    @Test
+    public void score_tiesGoToLaterCandidate() throws Exception {
+        NBestScore score = new NBestScorer("abc").score(new String[]{"abd", "xbc", "abcd"});
+
+        assertEquals(2, score.getBestIndex());
+        assertEquals(1, score.getBestDistance());
+    }
+
+    @Test
+    public void score_largeListsMatchSequentialScoring() throws Exception {
+        NBestScorer scorer = new NBestScorer(REFERENCE);
+        String[] candidates = new String[NBestScorer.PARALLEL_THRESHOLD * 4 + 3];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = REFERENCE.substring(i % REFERENCE.length());
+        }
+
+        NBestScore score = scorer.score(candidates);
+
+        for (int i = 0; i < candidates.length; i++) {
+            int exact = scorer.score(candidates[i]);
+            if (score.isExact(i)) {
+                assertEquals(exact, score.getDistance(i));
+            } else {
+                // a lower bound that still loses against the best candidate
+                assertTrue(score.getDistance(i) <= exact);
+                assertTrue(score.getDistance(i) > score.getBestDistance());
+            }
+        }
+        assertEquals(candidates.length - 1 - ((candidates.length - 1) % REFERENCE.length()), score.getBestIndex());
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(4)));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void score_emptyList() throws Exception {
+        NBestScore score = new NBestScorer(REFERENCE).score(new String[0]);
+
+        assertEquals(-1, score.getBestIndex());
+        assertEquals(-1, score.getBestDistance());
+    }
+}
@@ -0,0 +1,90 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PhoneticScorerTest {
+
+    @Test
+    public void koelnerPhonetik_matchesTheReferenceExamples() {
+        PhoneticEncoder encoder = new KoelnerPhonetik();
+        assertEquals("65752682", code(encoder, "müller") + code(encoder, "lüdenscheidt"));
+        assertEquals("3412", code(encoder, "wikipedia"));
+        assertEquals("0", code(encoder, "aa"));
+        assertEquals("05", code(encoder, "alle"));
+        assertEquals("5", code(encoder, "hallo"));
+        assertEquals("2", code(encoder, "hut"));
+        assertEquals(code(encoder, "fritze"), code(encoder, "fritzi"));
+        assertEquals(code(encoder, "meier"), code(encoder, "mayr"));
+    }
+
+    @Test
+    public void doubleMetaphone_encodesEnglishSpellingsAlike() {
+        PhoneticEncoder encoder = new DoubleMetaphone();
+        assertEquals("SM0", code(encoder, "smith"));
+        assertEquals("SM0", code(encoder, "smyth"));
+        assertEquals("NT", code(encoder, "knight"));
+        assertEquals("FN", code(encoder, "phone"));
+        assertEquals("PKT", code(encoder, "picked"));
+        assertEquals("KMST", code(encoder, "chemist"));
+        assertEquals("TF", code(encoder, "tough"));
+        assertEquals(code(encoder, "peck"), code(encoder, "pek"));
+    }
+
+    @Test
+    public void doubleMetaphone_matchesTheReferenceCodesOfCorpusWords() {
+        // primary codes of commons-codec's DoubleMetaphone with a max code length of 8
+        String[][] expected = {
+                {"through", "0R"}, {"throughout", "0RT"}, {"thought", "0T"}, {"thirty", "0RT"},
+                {"three", "0R"}, {"thieves", "0FS"}, {"thrilled", "0RLT"}, {"throne", "0RN"},
+                {"thursday", "0RST"}, {"shoe", "X"}, {"shine", "XN"}, {"shop", "XP"},
+                {"sits", "STS"}, {"susie", "SS"}, {"clam", "KLM"}, {"cram", "KRM"},
+                {"cream", "KRM"}, {"could", "KLT"}, {"mongols", "MNKLS"}, {"hordes", "HRTS"},
+                {"bored", "PRT"}, {"hugh", "H"}, {"dough", "T"}, {"bough", "P"}, {"laugh", "LF"},
+        };
+        PhoneticEncoder encoder = new DoubleMetaphone();
+        for (String[] word : expected) {
+            assertEquals(word[0], word[1], code(encoder, word[0]));
+        }
+        // the reference reads a final "-uch" as Germanic (MK), which this encoder leaves out
+        assertEquals("MX", code(encoder, "much"));
+    }
+
+    @Test
+    public void frenchPhonetic_dropsMuteLettersAndAccents() {
+        PhoneticEncoder encoder = new FrenchPhonetic();
+        assertEquals("PEX2R", code(encoder, "pêcheurs"));
+        assertEquals("PEX2R", code(encoder, "pecheur"));
+        assertEquals("GR@", code(encoder, "grand"));
+        assertEquals("BON", code(encoder, "bonne"));
+        assertEquals(code(encoder, "seau"), code(encoder, "sot"));
+        assertEquals(code(encoder, "chasseur"), code(encoder, "chaceur"));
+        // a single s between vowels is voiced
+        assertEquals("XAZ2R", code(encoder, "chaseur"));
+    }
+
+    @Test
+    public void distance_ignoresSpellingsThatSoundAlike() {
+        PhoneticScorer scorer = new PhoneticScorer("de-de", "Fischers Fritze fischt frische Fische");
+        assertEquals(0, scorer.distance("fischers fritzi fischt frische fische"));
+        assertTrue(scorer.distance("Fischers Fritze fischt") > 0);
+        assertTrue(scorer.getReferenceCode().length() < "Fischers Fritze fischt frische Fische".length());
+
+        assertEquals(0, Helper.phoneticDistance("en-us", "Peter Piper picked a peck", "Peter Pipor pikked a pek"));
+        assertEquals(0, Helper.phoneticDistance("fr-fr", "Un chasseur sachant chasser", "un chasseur sachan chassé"));
+    }
+
+    @Test
+    public void encoderFor_picksTheEncoderByLanguage() {
+        assertTrue(PhoneticScorer.encoderFor("de-de") instanceof KoelnerPhonetik);
+        assertTrue(PhoneticScorer.encoderFor("fr-fr") instanceof FrenchPhonetic);
+        assertTrue(PhoneticScorer.encoderFor("en-us") instanceof DoubleMetaphone);
+    }
+
+    private static String code(PhoneticEncoder encoder, String word) {
+        StringBuilder out = new StringBuilder();
+        encoder.encode(word, out);
+        return out.toString();
+    }
+}
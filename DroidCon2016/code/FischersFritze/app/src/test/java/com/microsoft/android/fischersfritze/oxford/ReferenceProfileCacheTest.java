@@ -0,0 +1,47 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReferenceProfileCacheTest {
+
+    @Test
+    public void get_reusesProfilesAndCountsHits() throws Exception {
+        ReferenceProfileCache cache = new ReferenceProfileCache(2);
+
+        ReferenceProfile first = cache.get("en-us", "Can you can a can as a canner can can a can?");
+        ReferenceProfile second = cache.get("en-us", "Can you can a can as a canner can can a can?");
+
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals("can you can a can as a canner can can a can", first.getNormalized());
+        assertEquals(12, first.getTokens().length);
+    }
+
+    @Test
+    public void get_keysByLanguage() throws Exception {
+        ReferenceProfileCache cache = new ReferenceProfileCache(2);
+
+        assertNotSame(cache.get("en-us", "Fritze"), cache.get("de-de", "Fritze"));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void get_evictsLeastRecentlyUsed() throws Exception {
+        ReferenceProfileCache cache = new ReferenceProfileCache(2);
+
+        ReferenceProfile a = cache.get("de-de", "a");
+        cache.get("de-de", "b");
+        cache.get("de-de", "a");
+        cache.get("de-de", "c");
+
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get("de-de", "a"));
+        cache.get("de-de", "b");
+        assertEquals(4, cache.getMisses());
+        assertEquals(2, cache.getEvictions());
+    }
+}
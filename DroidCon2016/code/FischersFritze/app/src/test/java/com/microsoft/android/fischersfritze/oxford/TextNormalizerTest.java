@@ -0,0 +1,50 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TextNormalizerTest {
+
+    @Test
+    public void normalize_foldsCaseDiacriticsAndPunctuation() throws Exception {
+        TextNormalizer german = TextNormalizer.forLanguage("de-de");
+        TextNormalizer french = TextNormalizer.forLanguage("fr-fr");
+        TextNormalizer english = TextNormalizer.forLanguage("en-us");
+
+        assertEquals("daenen", german.normalize("Dänen"));
+        assertEquals(german.normalize("Dänen"), german.normalize("Daenen"));
+        assertEquals("strasse", german.normalize("Straße"));
+        assertEquals("strasse", german.normalize("STRAẞE"));
+        assertEquals("pecheur", french.normalize("Pêcheur"));
+        assertEquals("l eau", french.normalize("l’eau"));
+        assertEquals("oeuvre", french.normalize("Œuvre"));
+        assertEquals("dont", english.normalize("Don't"));
+        assertEquals("can you can a can", english.normalize("  Can you,\tcan a can?! "));
+        assertEquals("", english.normalize("?!"));
+    }
+
+    @Test
+    public void normalize_reusesBuffer() throws Exception {
+        TextNormalizer german = TextNormalizer.forLanguage("de-de");
+        NormalizedText buffer = new NormalizedText(4);
+
+        assertSame(buffer, german.normalize("Fischers Fritze fischt frische Fische!", buffer));
+        assertEquals("fischers fritze fischt frische fische", buffer.toString());
+        german.normalize("Brüder", buffer);
+        assertEquals("brueder", buffer.toString());
+        assertEquals(7, buffer.length());
+        german.normalize(null, buffer);
+        assertEquals(0, buffer.length());
+    }
+
+    @Test
+    public void profileScoring_ignoresWhatNormalizationFolds() throws Exception {
+        ReferenceProfile profile = new ReferenceProfile("fr-fr", "Un chasseur sachant chasser, sans son chien, est un bon chasseur.");
+        NBestScorer scorer = new NBestScorer(profile);
+
+        assertEquals(0, scorer.score("un chasseur sachant chasser sans son chien est un bon chasseur"));
+        assertEquals(1, scorer.score("Un chasseur sachant chasser sans son chien, est un bon chasseurs"));
+        assertEquals(0, new NBestScorer(new ReferenceProfile("de-de", "Zehn zahme Ziegen")).score("zehn zahme ziegen!"));
+    }
+}
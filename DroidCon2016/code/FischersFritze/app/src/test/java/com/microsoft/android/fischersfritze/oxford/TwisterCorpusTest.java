@@ -0,0 +1,94 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class TwisterCorpusTest {
+
+    private static TwisterCorpusWriter sampleWriter() throws Exception {
+        return new TwisterCorpusWriter()
+                .addSource("de-de", new StringReader("# comment\nDenen Dänen, denen Dänen Dänen dehnen\n\nHaifischschwanzflossenfleischsuppe\n"))
+                .addSource("fr-fr", new StringReader("Un dragon gradé dégrade un gradé dragon.\n"))
+                .add("en-us", "How can a clam cram in a clean cream can?");
+    }
+
+    @Test
+    public void wrap_readsEveryTwisterBack() throws Exception {
+        TwisterCorpus corpus = TwisterCorpus.wrap(sampleWriter().toByteBuffer());
+
+        assertEquals(3, corpus.getLanguages().size());
+        assertEquals(2, corpus.count("de-de"));
+        assertEquals("Denen Dänen, denen Dänen Dänen dehnen", corpus.get("de-de", 0));
+        assertEquals("Haifischschwanzflossenfleischsuppe", corpus.get("de-de", 1));
+        assertEquals("Un dragon gradé dégrade un gradé dragon.", corpus.get("fr-fr", 0));
+        assertEquals("How can a clam cram in a clean cream can?", corpus.get("en-us", 0));
+        assertEquals("Un dragon gradé dégrade un gradé dragon.".getBytes("UTF-8").length, corpus.byteLength("fr-fr", 0));
+        assertEquals(0, corpus.count("it-it"));
+    }
+
+    @Test
+    public void indexOfId_findsTheTwister() throws Exception {
+        TwisterCorpus corpus = TwisterCorpus.wrap(sampleWriter().toByteBuffer());
+        int id = TwisterCorpus.idOf("Haifischschwanzflossenfleischsuppe");
+
+        assertEquals(id, corpus.getId("de-de", 1));
+        assertEquals(1, corpus.indexOfId("de-de", id));
+        assertEquals(-1, corpus.indexOfId("de-de", TwisterCorpus.idOf("Fischers Fritze")));
+        assertEquals(-1, corpus.indexOfId("it-it", id));
+    }
+
+    @Test
+    public void getId_survivesReorderingTheCorpus() throws Exception {
+        TwisterCorpusWriter writer = new TwisterCorpusWriter();
+        writer.add("de-de", "Haifischschwanzflossenfleischsuppe");
+        writer.add("de-de", "Denen Dänen, denen Dänen Dänen dehnen");
+        TwisterCorpus reordered = TwisterCorpus.wrap(writer.toByteBuffer());
+        TwisterCorpus corpus = TwisterCorpus.wrap(sampleWriter().toByteBuffer());
+
+        assertEquals(corpus.getId("de-de", 0), reordered.getId("de-de", 1));
+        assertEquals(corpus.getId("de-de", 1), reordered.getId("de-de", 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_rejectsTheSameTwisterTwice() {
+        TwisterCorpusWriter writer = new TwisterCorpusWriter();
+        writer.add("de-de", "Haifischschwanzflossenfleischsuppe");
+        writer.add("de-de", "Haifischschwanzflossenfleischsuppe");
+    }
+
+    @Test
+    public void open_mapsCorpusFile() throws Exception {
+        File file = File.createTempFile("twisters", ".ttc");
+        try {
+            sampleWriter().writeTo(file);
+            TwisterCorpus corpus = TwisterCorpus.open(file);
+
+            assertEquals("Haifischschwanzflossenfleischsuppe", corpus.get("de-de", 1));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_rejectsIndexOutOfRange() throws Exception {
+        TwisterCorpus.wrap(sampleWriter().toByteBuffer()).get("fr-fr", 1);
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void wrap_rejectsForeignData() throws Exception {
+        TwisterCorpus.wrap(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}));
+    }
+
+    @Test
+    public void helper_fallsBackToEnglish() throws Exception {
+        Helper.setCorpus(TwisterCorpus.wrap(sampleWriter().toByteBuffer()));
+
+        assertArrayEquals(new String[]{"How can a clam cram in a clean cream can?"}, Helper.getTongueTwisters("it-it"));
+        assertEquals(2, Helper.getTongueTwisters("de-de").length);
+    }
+}
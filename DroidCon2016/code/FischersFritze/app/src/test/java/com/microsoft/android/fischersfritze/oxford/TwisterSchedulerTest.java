@@ -0,0 +1,90 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TwisterSchedulerTest {
+
+    // Helper is global, the test that feeds it puts back whatever was there before
+    private TwisterCorpus helperCorpus;
+
+    @Before
+    public void saveHelper() {
+        helperCorpus = Helper.hasCorpus() ? Helper.getCorpus() : null;
+    }
+
+    @After
+    public void restoreHelper() {
+        Helper.setCorpus(helperCorpus);
+    }
+
+    private static TwisterCorpus corpus(int twisters) throws Exception {
+        TwisterCorpusWriter writer = new TwisterCorpusWriter();
+        for (int i = 0; i < twisters; i++) {
+            writer.add("de-de", "Zungenbrecher " + i);
+        }
+        return TwisterCorpus.wrap(writer.toByteBuffer());
+    }
+
+    @Test
+    public void shuffle_drawsEveryTwisterOncePerRoundWithoutBackToBackRepeats() throws Exception {
+        TwisterScheduler scheduler = new TwisterScheduler(corpus(7), "de-de", TwisterScheduler.Mode.Shuffle, new Random(3));
+
+        int previous = -1;
+        for (int round = 0; round < 50; round++) {
+            boolean[] seen = new boolean[7];
+            for (int draw = 0; draw < 7; draw++) {
+                int index = scheduler.nextIndex();
+                assertFalse(seen[index]);
+                assertNotEquals(previous, index);
+                seen[index] = true;
+                previous = index;
+            }
+        }
+    }
+
+    @Test
+    public void weighted_drawsInProportionToDifficulty() throws Exception {
+        int[] difficulties = {1, 2, 3, 4, 10};
+        TwisterScheduler scheduler = new TwisterScheduler(corpus(5), "de-de", TwisterScheduler.Mode.Weighted, new Random(5), difficulties);
+
+        int draws = 200000;
+        int[] counts = new int[difficulties.length];
+        for (int i = 0; i < draws; i++) {
+            counts[scheduler.nextIndex()]++;
+        }
+
+        for (int i = 0; i < difficulties.length; i++) {
+            assertEquals(difficulties[i] / 20.0, counts[i] / (double) draws, 0.01);
+        }
+    }
+
+    @Test
+    public void helper_reachesTheLastTwister() throws Exception {
+        Helper.setCorpus(corpus(3));
+
+        boolean[] seen = new boolean[3];
+        for (int i = 0; i < 3; i++) {
+            String twister = Helper.getRandomTongueTwister("de-de");
+            seen[Integer.parseInt(twister.substring(twister.indexOf(' ') + 1))] = true;
+        }
+        assertTrue(seen[0] && seen[1] && seen[2]);
+    }
+
+    @Test
+    public void shuffle_needsNoDifficulties() throws Exception {
+        TwisterScheduler scheduler = new TwisterScheduler(corpus(2), "de-de", TwisterScheduler.Mode.Shuffle, new Random(1), null);
+        assertEquals(2, scheduler.size());
+        assertNotEquals(scheduler.nextIndex(), scheduler.nextIndex());
+    }
+
+    @Test
+    public void difficulty_growsWithTheTwister() {
+        assertTrue(TwisterDifficulty.of("de-de", "Fischers Fritze fischt frische Fische") > TwisterDifficulty.of("de-de", "Fischers Fritze"));
+    }
+}
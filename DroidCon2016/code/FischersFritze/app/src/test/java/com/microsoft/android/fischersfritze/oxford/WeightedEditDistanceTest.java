@@ -0,0 +1,60 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class WeightedEditDistanceTest {
+
+    @Test
+    public void distance_knownValues() throws Exception {
+        WeightedEditDistance levenshtein = WeightedEditDistance.LEVENSHTEIN;
+        WeightedEditDistance osa = WeightedEditDistance.OPTIMAL_STRING_ALIGNMENT;
+
+        assertEquals(3, levenshtein.distance("kitten", "sitting"));
+        assertEquals(0, levenshtein.distance(null, null));
+        assertEquals(3, levenshtein.distance("", "abc"));
+        assertEquals(2, levenshtein.distance("ca", "ac"));
+        assertEquals(1, osa.distance("ca", "ac"));
+        assertEquals(1, osa.distance("Fischers", "Fishcers"));
+        // optimal string alignment edits no substring twice
+        assertEquals(3, osa.distance("ca", "abc"));
+
+        WeightedEditDistance cheapDeletes = new WeightedEditDistance(5, 2, 1, WeightedEditDistance.NO_TRANSPOSITION);
+        assertEquals(3, cheapDeletes.distance("abc", ""));
+        assertEquals(4, cheapDeletes.distance("", "ab"));
+        // deleting and inserting is cheaper than substituting
+        assertEquals(3, cheapDeletes.distance("a", "b"));
+    }
+
+    @Test
+    public void distanceByDiagonals_matchesRowDpOnRandomInput() throws Exception {
+        Random random = new Random(7);
+        WeightedEditDistance[] models = {
+                WeightedEditDistance.LEVENSHTEIN,
+                WeightedEditDistance.OPTIMAL_STRING_ALIGNMENT,
+                new WeightedEditDistance(2, 1, 3, 1),
+                new WeightedEditDistance(5, 2, 2, WeightedEditDistance.NO_TRANSPOSITION),
+                new WeightedEditDistance(1, 4, 1, 0)
+        };
+
+        for (int round = 0; round < 300; round++) {
+            String lhs = randomText(random, random.nextInt(90));
+            String rhs = randomText(random, random.nextInt(90));
+            assertEquals(Helper.referenceLevenshteinDistance(lhs, rhs), WeightedEditDistance.LEVENSHTEIN.distance(lhs, rhs));
+            for (WeightedEditDistance model : models) {
+                assertEquals(lhs + " / " + rhs, model.distance(lhs, rhs), model.distanceByDiagonals(lhs, rhs));
+            }
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(4)));
+        }
+        return sb.toString();
+    }
+}
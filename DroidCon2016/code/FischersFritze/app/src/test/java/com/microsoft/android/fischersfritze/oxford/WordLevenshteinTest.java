@@ -0,0 +1,49 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WordLevenshteinTest {
+
+    @Test
+    public void tokenize_dropsPunctuationCaseAndWhitespace() throws Exception {
+        assertArrayEquals(new String[]{"fischers", "fritze", "fischt", "frische", "fische"},
+                WordTokenizer.tokenize("Fischers  Fritze fischt frische Fische; "));
+        assertArrayEquals(new String[]{"qu", "est", "ce", "que"}, WordTokenizer.tokenize("qu'est-ce que?"));
+        assertEquals(0, WordTokenizer.tokenize(" ,.; ").length);
+    }
+
+    @Test
+    public void score_ignoresPunctuationAndCase() throws Exception {
+        WordLevenshtein scorer = new WordLevenshtein(TokenDictionary.forLanguage("en-us"),
+                "How can a clam cram in a clean cream can?");
+
+        WordScore score = scorer.score("how can a clam cram in a clean cream can");
+
+        assertEquals(0, score.getWordErrors());
+        assertEquals(10, score.getReferenceWords());
+    }
+
+    @Test
+    public void score_countsWordErrors() throws Exception {
+        WordLevenshtein scorer = new WordLevenshtein(TokenDictionary.forLanguage("de-de"),
+                "Fischers Fritze fischt frische Fische");
+
+        // one substitution with an unknown word, one dropped word
+        WordScore score = scorer.score("Fischers Fritzi fischt Fische");
+
+        assertEquals(2, score.getWordErrors());
+        assertEquals(0.4, score.getWordErrorRate(), 1e-9);
+    }
+
+    @Test
+    public void unknownWords_neverMatch() throws Exception {
+        TokenDictionary dictionary = TokenDictionary.forLanguage("fr-fr");
+        int[] reference = dictionary.internTokens("un dragon gradé");
+        int[] hypothesis = dictionary.lookupTokens("un dragon gradée");
+
+        assertEquals(TokenDictionary.UNKNOWN, hypothesis[2]);
+        assertEquals(1, WordLevenshtein.distance(reference, hypothesis));
+    }
+}
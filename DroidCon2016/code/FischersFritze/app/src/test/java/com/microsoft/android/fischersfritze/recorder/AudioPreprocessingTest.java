@@ -0,0 +1,191 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AudioPreprocessingTest {
+
+    @Test
+    public void downmixer_averagesChannels() throws Exception {
+        Collector collector = new Collector();
+        Downmixer downmixer = new Downmixer(collector);
+        downmixer.onStart(new PcmFormat(16000, 2));
+
+        downmixer.onFrame(frame(new short[]{1000, -1000, 300, 100}));
+
+        assertEquals(new PcmFormat(16000, 1), collector.format);
+        assertArrayEquals(new short[]{0, 200}, collector.samples());
+        // half of the 64000 bytes a second of stereo takes
+        assertEquals(32000, downmixer.getBytesPerSecond(), 1e-6);
+    }
+
+    @Test
+    public void resampler_keepsTonesBelowTheOutputNyquistRate() throws Exception {
+        short[] output = resample(44100, 1000, 10000, 1000);
+
+        assertEquals(16000, output.length, 1);
+        // skip the filter delay, then compare against the ideal tone at the output rate
+        double amplitude = toneAmplitude(output, 16000, 1000, 1000);
+        assertEquals(10000, amplitude, 300);
+    }
+
+    @Test
+    public void resampler_isFlatInThePassBand() throws Exception {
+        for (int frequency : new int[]{100, 1000, 3000, 5000, 6000, 7000}) {
+            short[] output = resample(44100, frequency, 10000, 1000);
+
+            // within 0.1 dB up to 7/8 of the output Nyquist rate
+            double amplitude = toneAmplitude(output, 16000, frequency, 1000);
+            assertEquals(frequency + " Hz", 10000, amplitude, 120);
+        }
+    }
+
+    @Test
+    public void resampler_suppressesAliases() throws Exception {
+        // 8 kHz and up cannot be represented at 16 kHz and must not fold back below it
+        for (int frequency : new int[]{8500, 9000, 10000, 12000, 20000}) {
+            short[] output = resample(44100, frequency, 10000, 1000);
+
+            // at least 70 dB down from 17/16 of the output Nyquist rate on
+            assertTrue(frequency + " Hz, rms " + rms(output, 1000), rms(output, 1000) < 10000 / Math.sqrt(2) * 3.2e-4);
+        }
+    }
+
+    @Test
+    public void resampler_passesMatchingRatesThrough() throws Exception {
+        Collector collector = new Collector();
+        PolyphaseResampler resampler = new PolyphaseResampler(16000, collector);
+        resampler.onStart(PcmFormat.SPEECH);
+        resampler.onFrame(frame(new short[]{1, 2, 3}));
+
+        assertArrayEquals(new short[]{1, 2, 3}, collector.samples());
+    }
+
+    @Test
+    public void adpcm_compressesFourToOneAndDecodesClose() throws Exception {
+        final List<byte[]> blocks = new ArrayList<>();
+        ImaAdpcmEncoder encoder = new ImaAdpcmEncoder(new EncodedAudioSink() {
+            @Override
+            public void onStart(PcmFormat format) {
+            }
+
+            @Override
+            public void onPacket(ByteBuffer packet) {
+                byte[] copy = new byte[packet.remaining()];
+                packet.get(copy);
+                blocks.add(copy);
+            }
+
+            @Override
+            public void onEnd() {
+            }
+        });
+        encoder.onStart(PcmFormat.SPEECH);
+
+        short[] tone = new short[16000];
+        for (int i = 0; i < tone.length; i++) {
+            tone[i] = (short) (8000 * Math.sin(2 * Math.PI * 440 * i / 16000) + 3000 * Math.sin(2 * Math.PI * 1250 * i / 16000));
+        }
+        for (int offset = 0; offset < tone.length; offset += 320) {
+            short[] chunk = new short[320];
+            System.arraycopy(tone, offset, chunk, 0, 320);
+            encoder.onFrame(frame(chunk));
+        }
+        encoder.onEnd();
+
+        assertEquals(50, blocks.size());
+        assertEquals(ImaAdpcmEncoder.blockBytes(320), blocks.get(0).length);
+        assertEquals(50 * (4 + 160), encoder.getBytesPerSecond(), 1e-6);
+
+        short[] decoded = new short[tone.length];
+        int offset = 0;
+        for (byte[] block : blocks) {
+            offset += ImaAdpcmEncoder.decodeBlock(ByteBuffer.wrap(block), decoded, offset);
+        }
+        assertEquals(tone.length, offset);
+
+        double signal = 0;
+        double noise = 0;
+        for (int i = 0; i < tone.length; i++) {
+            signal += (double) tone[i] * tone[i];
+            noise += (double) (tone[i] - decoded[i]) * (tone[i] - decoded[i]);
+        }
+        double snr = 10 * Math.log10(signal / noise);
+        assertTrue("snr " + snr, snr > 20);
+    }
+
+    private static short[] resample(int inputRate, double frequency, int amplitude, int millis) {
+        Collector collector = new Collector();
+        PolyphaseResampler resampler = new PolyphaseResampler(16000, collector);
+        resampler.onStart(new PcmFormat(inputRate, 1));
+
+        int frameSamples = inputRate / 50;
+        int total = inputRate * millis / 1000;
+        for (int offset = 0; offset < total; offset += frameSamples) {
+            short[] chunk = new short[frameSamples];
+            for (int i = 0; i < frameSamples; i++) {
+                chunk[i] = (short) (amplitude * Math.sin(2 * Math.PI * frequency * (offset + i) / inputRate));
+            }
+            resampler.onFrame(frame(chunk));
+        }
+        assertTrue(resampler.getNanosPerFrame() > 0);
+        return collector.samples();
+    }
+
+    private static double rms(short[] samples, int skip) {
+        double sum = 0;
+        for (int i = skip; i < samples.length; i++) sum += (double) samples[i] * samples[i];
+        return Math.sqrt(sum / (samples.length - skip));
+    }
+
+    // amplitude of the given tone, by correlation with sine and cosine
+    private static double toneAmplitude(short[] samples, int rate, double frequency, int skip) {
+        double sin = 0;
+        double cos = 0;
+        for (int i = skip; i < samples.length; i++) {
+            sin += samples[i] * Math.sin(2 * Math.PI * frequency * i / rate);
+            cos += samples[i] * Math.cos(2 * Math.PI * frequency * i / rate);
+        }
+        int n = samples.length - skip;
+        return 2 * Math.sqrt(sin * sin + cos * cos) / n;
+    }
+
+    private static ByteBuffer frame(short[] samples) {
+        ByteBuffer frame = ByteBuffer.allocateDirect(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (short sample : samples) frame.putShort(sample);
+        frame.flip();
+        return frame;
+    }
+
+    private static class Collector implements PcmConsumer {
+        PcmFormat format;
+        final List<Short> collected = new ArrayList<>();
+
+        @Override
+        public void onStart(PcmFormat format) {
+            this.format = format;
+        }
+
+        @Override
+        public void onFrame(ByteBuffer frame) {
+            ByteBuffer view = frame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            while (view.remaining() >= 2) collected.add(view.getShort());
+        }
+
+        @Override
+        public void onEnd() {
+        }
+
+        short[] samples() {
+            short[] result = new short[collected.size()];
+            for (int i = 0; i < result.length; i++) result[i] = collected.get(i);
+            return result;
+        }
+    }
+}
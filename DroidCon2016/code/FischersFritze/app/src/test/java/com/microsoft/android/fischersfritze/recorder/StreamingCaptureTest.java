@@ -0,0 +1,112 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamingCaptureTest {
+
+    @Test
+    public void stream_deliversEverySampleInOrder() throws Exception {
+        SyntheticPcmSource source = new SyntheticPcmSource(PcmFormat.SPEECH, 440, (short) 12000, 1000);
+        CollectingConsumer consumer = new CollectingConsumer(0);
+
+        // the synthetic source is not paced, so the ring holds the whole second
+        StreamingCapture capture = new StreamingCapture(source, consumer, 20, 64);
+        capture.start();
+        assertTrue(capture.awaitTermination(5000));
+
+        assertNull(capture.getFailure());
+        assertEquals(PcmFormat.SPEECH, consumer.format);
+        assertTrue(consumer.ended);
+        assertEquals(50, capture.getDeliveredFrames());
+        assertEquals(0, capture.getDroppedFrames());
+        assertEquals(source.getTotalFrames(), consumer.samples.size());
+        for (int i = 0; i < consumer.samples.size(); i++) {
+            assertEquals(source.sampleAt(i), (short) consumer.samples.get(i));
+        }
+    }
+
+    @Test
+    public void stream_dropsFramesInsteadOfBlockingOnASlowConsumer() throws Exception {
+        SyntheticPcmSource source = new SyntheticPcmSource(PcmFormat.SPEECH, 440, (short) 12000, 2000);
+        CollectingConsumer consumer = new CollectingConsumer(2);
+
+        StreamingCapture capture = new StreamingCapture(source, consumer, 10, 4);
+        capture.start();
+        assertTrue(capture.awaitTermination(10000));
+
+        assertEquals(200, capture.getCapturedFrames());
+        assertTrue(capture.getDroppedFrames() > 0);
+        assertEquals(capture.getCapturedFrames() - capture.getDroppedFrames(), capture.getDeliveredFrames());
+        assertTrue(consumer.ended);
+    }
+
+    @Test
+    public void channelSource_readsWavFormatAndSkipsHeader() throws Exception {
+        PcmFormat stereo = new PcmFormat(8000, 2);
+        File file = File.createTempFile("capture", ".wav");
+        file.deleteOnExit();
+
+        ByteBuffer wav = ByteBuffer.allocate(WavHeader.SIZE + 8).order(ByteOrder.LITTLE_ENDIAN);
+        WavHeader.write(wav, stereo, 8);
+        wav.putShort((short) 1).putShort((short) -1).putShort((short) 2).putShort((short) -2);
+        wav.flip();
+        FileChannel out = new FileOutputStream(file).getChannel();
+        out.write(wav);
+        out.close();
+
+        ChannelPcmSource source = new ChannelPcmSource(file, PcmFormat.SPEECH);
+        CollectingConsumer consumer = new CollectingConsumer(0);
+        StreamingCapture capture = new StreamingCapture(source, consumer);
+        capture.start();
+        assertTrue(capture.awaitTermination(5000));
+
+        assertEquals(stereo, consumer.format);
+        assertEquals(4, consumer.samples.size());
+        assertEquals(-2, (short) consumer.samples.get(3));
+    }
+
+    private static class CollectingConsumer implements PcmConsumer {
+        private final long delayMillis;
+        final List<Short> samples = new ArrayList<>();
+        volatile PcmFormat format;
+        volatile boolean ended;
+
+        CollectingConsumer(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void onStart(PcmFormat format) {
+            this.format = format;
+        }
+
+        @Override
+        public void onFrame(ByteBuffer frame) {
+            while (frame.remaining() >= 2) {
+                samples.add(frame.getShort());
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void onEnd() {
+            ended = true;
+        }
+    }
+}
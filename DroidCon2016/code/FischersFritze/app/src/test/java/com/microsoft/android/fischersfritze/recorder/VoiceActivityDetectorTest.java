@@ -0,0 +1,133 @@
+package com.microsoft.android.fischersfritze.recorder;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VoiceActivityDetectorTest {
+    private static final int FRAME_MILLIS = 20;
+    private static final int FRAME_SAMPLES = PcmFormat.SPEECH.getSampleRate() * FRAME_MILLIS / 1000;
+
+    private final Random random = new Random(3);
+    private final ByteBuffer frame = ByteBuffer.allocateDirect(FRAME_SAMPLES * 2).order(ByteOrder.LITTLE_ENDIAN);
+
+    @Test
+    public void trimsSilenceAroundSpeechAndSignalsTheEnd() throws Exception {
+        CountingConsumer downstream = new CountingConsumer();
+        Events events = new Events();
+        VoiceActivityDetector vad = new VoiceActivityDetector(downstream, events, FRAME_MILLIS, 100, 200, 40);
+        vad.onStart(PcmFormat.SPEECH);
+
+        feedNoise(vad, 30, 50);
+        assertEquals(0, downstream.frames);
+        assertEquals(VoiceActivityDetector.State.Silence, vad.getState());
+
+        feedTone(vad, 40, 8000);
+        assertEquals(1, events.starts);
+        assertEquals(VoiceActivityDetector.State.Speech, vad.getState());
+
+        feedNoise(vad, 50, 50);
+        assertEquals(1, events.ends);
+        assertEquals(VoiceActivityDetector.State.Ended, vad.getState());
+        vad.onEnd();
+
+        // pre-roll of 5 frames plus the speech, the hangover silence is not sent
+        assertEquals(45, downstream.frames);
+        assertEquals(45, vad.getForwardedFrames());
+        assertEquals(120 - 45, vad.getTrimmedFrames());
+        assertTrue(downstream.ended);
+    }
+
+    @Test
+    public void keepsShortPausesInsideTheUtterance() throws Exception {
+        CountingConsumer downstream = new CountingConsumer();
+        Events events = new Events();
+        VoiceActivityDetector vad = new VoiceActivityDetector(downstream, events, FRAME_MILLIS, 0, 200, 20);
+        vad.onStart(PcmFormat.SPEECH);
+
+        feedNoise(vad, 10, 50);
+        feedTone(vad, 10, 8000);
+        feedNoise(vad, 5, 50);
+        feedTone(vad, 10, 8000);
+        vad.onEnd();
+
+        assertEquals(0, events.ends);
+        assertEquals(25, downstream.frames);
+    }
+
+    @Test
+    public void detectsQuietFricatives() throws Exception {
+        CountingConsumer downstream = new CountingConsumer();
+        Events events = new Events();
+        VoiceActivityDetector vad = new VoiceActivityDetector(downstream, events, FRAME_MILLIS, 0, 200, 40);
+        vad.onStart(PcmFormat.SPEECH);
+
+        feedNoise(vad, 20, 200);
+        // only 3x the energy of the background, but hissing
+        feedNoise(vad, 10, 350);
+
+        assertEquals(1, events.starts);
+        assertTrue(vad.getLastZeroCrossingRate() > 0.25);
+    }
+
+    private void feedNoise(VoiceActivityDetector vad, int frames, int amplitude) {
+        for (int f = 0; f < frames; f++) {
+            frame.clear();
+            for (int i = 0; i < FRAME_SAMPLES; i++) {
+                frame.putShort((short) (random.nextInt(2 * amplitude + 1) - amplitude));
+            }
+            frame.flip();
+            vad.onFrame(frame);
+        }
+    }
+
+    private void feedTone(VoiceActivityDetector vad, int frames, int amplitude) {
+        for (int f = 0; f < frames; f++) {
+            frame.clear();
+            for (int i = 0; i < FRAME_SAMPLES; i++) {
+                frame.putShort((short) (amplitude * Math.sin(2 * Math.PI * 220 * i / PcmFormat.SPEECH.getSampleRate())));
+            }
+            frame.flip();
+            vad.onFrame(frame);
+        }
+    }
+
+    private static class CountingConsumer implements PcmConsumer {
+        int frames;
+        boolean ended;
+
+        @Override
+        public void onStart(PcmFormat format) {
+        }
+
+        @Override
+        public void onFrame(ByteBuffer frame) {
+            assertEquals(FRAME_SAMPLES * 2, frame.remaining());
+            frames++;
+        }
+
+        @Override
+        public void onEnd() {
+            ended = true;
+        }
+    }
+
+    private static class Events implements VoiceActivityDetector.Listener {
+        int starts;
+        int ends;
+
+        @Override
+        public void onSpeechStart() {
+            starts++;
+        }
+
+        @Override
+        public void onEndOfSpeech() {
+            ends++;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.microsoft.android.fischersfritze.ui;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class ResultLogTest {
+
+    @Test
+    public void snapshot_showsOnlyTheTail() throws Exception {
+        ResultLog log = new ResultLog(4);
+        for (int i = 0; i < 10; i++) log.append("line " + i);
+
+        StringBuilder sb = new StringBuilder();
+        assertEquals(4, log.snapshot(sb, 100));
+        assertEquals("line 6\nline 7\nline 8\nline 9\n", sb.toString());
+
+        sb.setLength(0);
+        assertEquals(2, log.snapshot(sb, 2));
+        assertEquals("line 8\nline 9\n", sb.toString());
+    }
+
+    @Test
+    public void clear_hidesEarlierLines() throws Exception {
+        ResultLog log = new ResultLog(8);
+        log.append("old");
+        log.clear();
+        log.append("new");
+
+        StringBuilder sb = new StringBuilder();
+        log.snapshot(sb, 8);
+        assertEquals("new\n", sb.toString());
+        assertEquals(2, log.getVersion());
+    }
+
+    @Test
+    public void append_fromManyThreads() throws Exception {
+        final ResultLog log = new ResultLog(1024);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 10000; i++) log.append("x");
+                }
+            });
+            writers[t].start();
+        }
+        start.countDown();
+        for (Thread writer : writers) writer.join();
+
+        StringBuilder sb = new StringBuilder();
+        assertEquals(40000, log.getVersion());
+        assertEquals(1024, log.snapshot(sb, 5000));
+    }
+
+    @Test
+    public void snapshot_neverShowsANewerLineInAnOlderSlot() throws Exception {
+        // a tiny ring, so the writers overwrite the slots the reader is looking at
+        final ResultLog log = new ResultLog(4);
+        final int lines = 20000;
+        Thread[] writers = new Thread[2];
+        for (int t = 0; t < writers.length; t++) {
+            final int thread = t;
+            writers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < lines; i++) log.append(thread + " " + i);
+                }
+            });
+            writers[t].start();
+        }
+
+        StringBuilder sb = new StringBuilder();
+        while (log.getVersion() < lines * writers.length) {
+            sb.setLength(0);
+            log.snapshot(sb, 4);
+            // lines of one writer come out in the order it appended them
+            int[] last = {-1, -1};
+            for (String line : sb.toString().split("\n")) {
+                if (line.isEmpty()) continue;
+                String[] parts = line.split(" ");
+                int thread = Integer.parseInt(parts[0]);
+                int i = Integer.parseInt(parts[1]);
+                assertTrue(line, i > last[thread]);
+                last[thread] = i;
+            }
+        }
+        for (Thread writer : writers) writer.join();
+    }
+}
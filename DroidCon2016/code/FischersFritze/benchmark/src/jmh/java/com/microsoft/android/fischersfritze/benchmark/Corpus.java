@@ -0,0 +1,40 @@
+package com.microsoft.android.fischersfritze.benchmark;
+
+import com.microsoft.android.fischersfritze.oxford.Helper;
+import com.microsoft.android.fischersfritze.oxford.TwisterCorpus;
+import com.microsoft.android.fischersfritze.oxford.TwisterCorpusWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * Compiles the app's twister sources (on the jmh classpath) into an in-memory corpus.
+ */
+final class Corpus {
+    private static final String[] LANGUAGES = {"de-de", "en-us", "fr-fr"};
+
+    private Corpus() {
+    }
+
+    static synchronized void install() {
+        try {
+            TwisterCorpusWriter writer = new TwisterCorpusWriter();
+            for (String language : LANGUAGES) {
+                InputStream in = Corpus.class.getResourceAsStream("/" + language + ".txt");
+                if (in == null) throw new IllegalStateException("missing twister source " + language);
+
+                Reader reader = new InputStreamReader(in, "UTF-8");
+                try {
+                    writer.addSource(language, reader);
+                } finally {
+                    reader.close();
+                }
+            }
+            Helper.setCorpus(TwisterCorpus.wrap(writer.toByteBuffer()));
+        } catch (IOException e) {
+            throw new IllegalStateException("loading twister sources failed", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.microsoft.android.fischersfritze.benchmark;
+
+import java.util.Random;
+
+/**
+ * Synthetic recognizer output: the expected sentence with a given share of its characters
+ * substituted, dropped or duplicated.
+ */
+final class Hypotheses {
+    private static final String NOISE = "abcdefghijklmnopqrstuvwxyzäöüéè ,.";
+
+    private Hypotheses() {
+    }
+
+    static String mutate(String expected, double noise, Random random) {
+        StringBuilder sb = new StringBuilder(expected.length() + 8);
+        for (int i = 0; i < expected.length(); i++) {
+            char c = expected.charAt(i);
+            if (random.nextDouble() >= noise) {
+                sb.append(c);
+                continue;
+            }
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    sb.append(NOISE.charAt(random.nextInt(NOISE.length())));
+                    break;
+                case 1:
+                    // dropped
+                    break;
+                default:
+                    sb.append(c).append(c);
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    static String[] nBest(String expected, int count, double noise, Random random) {
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            // later candidates of an n-best list tend to be worse
+            result[i] = mutate(expected, Math.min(1.0, noise * (1.0 + i * 0.1)), random);
+        }
+        return result;
+    }
+}
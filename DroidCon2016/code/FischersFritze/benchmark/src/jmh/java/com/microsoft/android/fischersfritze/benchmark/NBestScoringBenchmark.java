@@ -0,0 +1,72 @@
+package com.microsoft.android.fischersfritze.benchmark;
+
+import com.microsoft.android.fischersfritze.oxford.Helper;
+import com.microsoft.android.fischersfritze.oxford.NBestScorer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the best match out of a synthetic n-best list, mirroring the loop in
+ * GameFragment.onFinalResponseReceived.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NBestScoringBenchmark {
+    // the longest twister we ship, 120 chars
+    private static final String EXPECTED_LANGUAGE = "de-de";
+    private static final int EXPECTED_INDEX = 6;
+
+    @Param({"1", "5", "10", "25", "50"})
+    public int candidates;
+
+    @Param({"0.05", "0.2", "0.5"})
+    public double noise;
+
+    private String expected;
+    private String[] nBest;
+
+    @Setup
+    public void setUp() {
+        Corpus.install();
+        expected = Helper.getTongueTwisters(EXPECTED_LANGUAGE)[EXPECTED_INDEX];
+        nBest = Hypotheses.nBest(expected, candidates, noise, new Random(42));
+    }
+
+    @Benchmark
+    public int fullDistance() {
+        int bestMatchScore = 100;
+        for (String candidate : nBest) {
+            int score = Helper.levenshteinDistance(expected, candidate);
+            if (score <= bestMatchScore) bestMatchScore = score;
+        }
+        return bestMatchScore;
+    }
+
+    @Benchmark
+    public int boundedDistance() {
+        int bestMatchScore = 100;
+        for (String candidate : nBest) {
+            int score = Helper.levenshteinDistance(expected, candidate, bestMatchScore);
+            if (score <= bestMatchScore) bestMatchScore = score;
+        }
+        return bestMatchScore;
+    }
+
+    @Benchmark
+    public int batchScorer() {
+        return new NBestScorer(expected).score(nBest).getBestDistance();
+    }
+
+    @Benchmark
+    public int referenceDistance() {
+        int bestMatchScore = 100;
+        for (String candidate : nBest) {
+            int score = Helper.referenceLevenshteinDistance(expected, candidate);
+            if (score <= bestMatchScore) bestMatchScore = score;
+        }
+        return bestMatchScore;
+    }
+}
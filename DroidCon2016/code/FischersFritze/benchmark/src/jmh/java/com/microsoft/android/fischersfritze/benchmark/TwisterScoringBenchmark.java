@@ -0,0 +1,60 @@
+package com.microsoft.android.fischersfritze.benchmark;
+
+import com.microsoft.android.fischersfritze.oxford.Helper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores a noisy hypothesis against every twister of a language, the way a single
+ * recognition result is scored in GameFragment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TwisterScoringBenchmark {
+
+    @Param({"de-de", "en-us", "fr-fr"})
+    public String language;
+
+    @Param({"0.0", "0.1", "0.3"})
+    public double noise;
+
+    private String[] twisters;
+    private String[] hypotheses;
+
+    @Setup
+    public void setUp() {
+        Corpus.install();
+        Random random = new Random(42);
+        twisters = Helper.getTongueTwisters(language);
+        hypotheses = new String[twisters.length];
+        for (int i = 0; i < twisters.length; i++) {
+            hypotheses[i] = Hypotheses.mutate(twisters[i], noise, random);
+        }
+    }
+
+    @Benchmark
+    public void levenshteinDistance(Blackhole bh) {
+        for (int i = 0; i < twisters.length; i++) {
+            bh.consume(Helper.levenshteinDistance(twisters[i], hypotheses[i]));
+        }
+    }
+
+    // reference codes come from the warm profile cache, like in the game
+    @Benchmark
+    public void phoneticDistance(Blackhole bh) {
+        for (int i = 0; i < twisters.length; i++) {
+            bh.consume(Helper.phoneticDistance(language, twisters[i], hypotheses[i]));
+        }
+    }
+
+    @Benchmark
+    public void referenceLevenshteinDistance(Blackhole bh) {
+        for (int i = 0; i < twisters.length; i++) {
+            bh.consume(Helper.referenceLevenshteinDistance(twisters[i], hypotheses[i]));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.microsoft.android.fischersfritze.benchmark;
+
+import com.microsoft.android.fischersfritze.oxford.Helper;
+import com.microsoft.android.fischersfritze.oxford.TwisterScheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TwisterSelectionBenchmark {
+
+    @Param({"de-de", "en-us", "fr-fr"})
+    public String language;
+
+    @Setup
+    public void setUp() {
+        Corpus.install();
+    }
+
+    @Benchmark
+    public String getRandomTongueTwister() {
+        return Helper.getRandomTongueTwister(language);
+    }
+
+    @Benchmark
+    public String weightedTongueTwister() {
+        return Helper.nextTongueTwister(language, TwisterScheduler.Mode.Weighted);
+    }
+}
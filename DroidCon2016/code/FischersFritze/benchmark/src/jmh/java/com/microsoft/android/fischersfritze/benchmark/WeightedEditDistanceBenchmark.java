@@ -0,0 +1,54 @@
+package com.microsoft.android.fischersfritze.benchmark;
+
+import com.microsoft.android.fischersfritze.oxford.Helper;
+import com.microsoft.android.fischersfritze.oxford.WeightedEditDistance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Weighted edit distance between a long dictation transcript, stitched together from the
+ * German twisters, and a noisy copy of it: row DP against the scalar anti-diagonal fill.
+ * The vector kernel is timed by the tools module, it needs a newer JDK than JMH runs on here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WeightedEditDistanceBenchmark {
+
+    @Param({"120", "1000", "5000"})
+    public int length;
+
+    @Param({"false", "true"})
+    public boolean transpositions;
+
+    private WeightedEditDistance costs;
+    private String transcript;
+    private String hypothesis;
+
+    @Setup
+    public void setUp() {
+        Corpus.install();
+        String[] twisters = Helper.getTongueTwisters("de-de");
+        StringBuilder sb = new StringBuilder(length + 128);
+        for (int i = 0; sb.length() < length; i++) {
+            sb.append(twisters[i % twisters.length]).append(' ');
+        }
+        sb.setLength(length);
+
+        costs = new WeightedEditDistance(2, 1, 1, transpositions ? 1 : WeightedEditDistance.NO_TRANSPOSITION);
+        transcript = sb.toString();
+        hypothesis = Hypotheses.mutate(transcript, 0.1, new Random(42));
+    }
+
+    @Benchmark
+    public int rows() {
+        return costs.distance(transcript, hypothesis);
+    }
+
+    @Benchmark
+    public int diagonals() {
+        return costs.distanceByDiagonals(transcript, hypothesis);
+    }
+}
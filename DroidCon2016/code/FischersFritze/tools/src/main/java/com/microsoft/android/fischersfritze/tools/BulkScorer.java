@@ -0,0 +1,304 @@
+package com.microsoft.android.fischersfritze.tools;
+
+import com.microsoft.android.fischersfritze.oxford.NormalizedText;
+import com.microsoft.android.fischersfritze.oxford.ReferenceProfile;
+import com.microsoft.android.fischersfritze.oxford.ReferenceProfileCache;
+import com.microsoft.android.fischersfritze.oxford.WordScore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-scores a transcript log with the app's scorers, e.g. after the scoring rules changed.
+ *
+ * Usage: BulkScorer &lt;transcript log&gt; &lt;scores csv&gt; [threads] [batch size]
+ *
+ * The log is read with a {@link TranscriptReader} (JSON lines or CSV) and cut into batches;
+ * each batch is scored on a fork-join pool exactly like a final result in the game: the
+ * normalized char distance gives the score, plus word errors and the phonetic score. At
+ * most two batches per thread are in flight, and scored batches are written out in input
+ * order as soon as they are done, so memory does not grow with the log.
+ *
+ * Prints records/sec while it runs, then the per-language and per-twister averages.
+ */
+public class BulkScorer {
+    private static final int DEFAULT_BATCH_SIZE = 4096;
+    private static final int LEAF_SIZE = 256;
+    // every distinct twister in the log gets a profile; far more than the game needs
+    private static final int PROFILE_CACHE_SIZE = 4096;
+    private static final int BUFFER_CHARS = 1 << 16;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int MAX_TWISTER_COLUMN = 48;
+
+    private final ReferenceProfileCache profiles = new ReferenceProfileCache(PROFILE_CACHE_SIZE);
+    private final Map<String, Aggregate> byLanguage = new HashMap<>();
+    private final Map<String, Aggregate> byTwister = new HashMap<>();
+    private long records;
+    private long failed;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("usage: BulkScorer <transcript log> <scores csv> [threads] [batch size]");
+            System.exit(1);
+        }
+
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BATCH_SIZE;
+
+        new BulkScorer().run(input, output, threads, batchSize);
+    }
+
+    void run(Path input, Path output, int threads, int batchSize) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Deque<Batch> inFlight = new ArrayDeque<>();
+        int window = threads * 2;
+
+        long start = System.nanoTime();
+        long lastProgress = start;
+        TranscriptReader reader = new TranscriptReader(input);
+        Writer out = new BufferedWriter(Channels.newWriter(FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), StandardCharsets.UTF_8.newEncoder(), -1), BUFFER_CHARS);
+        try {
+            out.write("record,language,twister,score,distance,word_errors,reference_words,phonetic_score\n");
+
+            Batch batch = new Batch(batchSize);
+            String[] record;
+            while ((record = reader.next()) != null) {
+                batch.add(record);
+                if (!batch.isFull()) continue;
+
+                pool.execute(batch);
+                inFlight.add(batch);
+                batch = new Batch(batchSize);
+                while (inFlight.size() >= window) {
+                    write(inFlight.poll(), out);
+                }
+
+                long now = System.nanoTime();
+                if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                    lastProgress = now;
+                    System.err.println(String.format("%d records, %.0f records/sec", records, records / ((now - start) / 1e9)));
+                }
+            }
+            if (batch.size() > 0) {
+                pool.execute(batch);
+                inFlight.add(batch);
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), out);
+            }
+        } finally {
+            out.close();
+            reader.close();
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%d records (%s) on %d threads in %.1f s: %.0f records/sec",
+                records, reader.getFormat(), threads, elapsed / 1e9, records / (elapsed / 1e9)));
+        System.out.println(String.format("%d malformed, %d failed to score, %s", reader.getMalformed(), failed, profiles));
+        System.out.println();
+        printAggregates("language", byLanguage);
+        System.out.println();
+        printAggregates("twister", byTwister);
+    }
+
+    // waits for the batch, then writes it and folds it into the averages; main thread only
+    private void write(Batch batch, Writer out) throws IOException {
+        batch.join();
+
+        StringBuilder sb = new StringBuilder(128);
+        for (int i = 0; i < batch.size(); i++) {
+            long number = ++records;
+            String[] record = batch.records[i];
+            if (batch.distances[i] < 0) {
+                failed++;
+                continue;
+            }
+
+            int score = 100 - batch.distances[i];
+            int phoneticScore = 100 - batch.phoneticDistances[i];
+            sb.setLength(0);
+            sb.append(number).append(',');
+            appendCsv(sb, record[0]).append(',');
+            appendCsv(sb, record[1]).append(',');
+            sb.append(score).append(',')
+                    .append(batch.distances[i]).append(',')
+                    .append(batch.wordErrors[i]).append(',')
+                    .append(batch.referenceWords[i]).append(',')
+                    .append(phoneticScore).append('\n');
+            out.append(sb);
+
+            aggregate(byLanguage, record[0]).add(score, batch.wordErrors[i], batch.referenceWords[i], phoneticScore);
+            aggregate(byTwister, record[0] + ',' + record[1]).add(score, batch.wordErrors[i], batch.referenceWords[i], phoneticScore);
+        }
+    }
+
+    private static Aggregate aggregate(Map<String, Aggregate> aggregates, String key) {
+        Aggregate aggregate = aggregates.get(key);
+        if (aggregate == null) {
+            aggregate = new Aggregate(key);
+            aggregates.put(key, aggregate);
+        }
+        return aggregate;
+    }
+
+    private static void printAggregates(String title, Map<String, Aggregate> aggregates) {
+        List<Aggregate> sorted = new ArrayList<>(aggregates.values());
+        // most attempted first
+        Collections.sort(sorted, new Comparator<Aggregate>() {
+            @Override
+            public int compare(Aggregate lhs, Aggregate rhs) {
+                if (lhs.count != rhs.count) return lhs.count > rhs.count ? -1 : 1;
+                return lhs.key.compareTo(rhs.key);
+            }
+        });
+
+        System.out.println(String.format("%-" + MAX_TWISTER_COLUMN + "s %10s %7s %7s %7s %7s %9s", title, "records", "score", "min", "max", "wer", "phonetic"));
+        for (Aggregate aggregate : sorted) {
+            String key = aggregate.key.length() > MAX_TWISTER_COLUMN
+                    ? aggregate.key.substring(0, MAX_TWISTER_COLUMN - 3) + "..." : aggregate.key;
+            System.out.println(String.format("%-" + MAX_TWISTER_COLUMN + "s %10d %7.1f %7d %7d %7.3f %9.1f", key, aggregate.count,
+                    aggregate.scoreSum / (double) aggregate.count, aggregate.minScore, aggregate.maxScore,
+                    aggregate.referenceWordSum == 0 ? 0.0 : aggregate.wordErrorSum / (double) aggregate.referenceWordSum,
+                    aggregate.phoneticScoreSum / (double) aggregate.count));
+        }
+    }
+
+    private static StringBuilder appendCsv(StringBuilder sb, String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) {
+            return sb.append(field);
+        }
+        return sb.append('"').append(field.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Records read in one go and their scores; the scores are filled in by fork-join
+     * workers, each leaf with a normalization buffer of its own.
+     */
+    private final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final String[][] records;
+        final int[] distances;
+        final int[] wordErrors;
+        final int[] referenceWords;
+        final int[] phoneticDistances;
+        private int size;
+
+        Batch(int capacity) {
+            records = new String[capacity][];
+            distances = new int[capacity];
+            wordErrors = new int[capacity];
+            referenceWords = new int[capacity];
+            phoneticDistances = new int[capacity];
+        }
+
+        void add(String[] record) {
+            records[size++] = record;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isFull() {
+            return size == records.length;
+        }
+
+        @Override
+        protected void compute() {
+            score(0, size);
+        }
+
+        private void score(int from, int to) {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                ForkJoinTask.invokeAll(new Range(this, from, mid), new Range(this, mid, to));
+                return;
+            }
+
+            NormalizedText buffer = new NormalizedText();
+            for (int i = from; i < to; i++) {
+                String[] record = records[i];
+                try {
+                    ReferenceProfile profile = profiles.get(record[0], record[1]);
+                    String hypothesis = record[2];
+
+                    WordScore words = profile.getWordScorer().score(hypothesis);
+                    distances[i] = profile.getMatcher().distance(profile.getNormalizer().normalize(hypothesis, buffer));
+                    wordErrors[i] = words.getWordErrors();
+                    referenceWords[i] = words.getReferenceWords();
+                    phoneticDistances[i] = profile.getPhoneticScorer().distance(hypothesis);
+                } catch (RuntimeException e) {
+                    distances[i] = -1;
+                }
+            }
+        }
+    }
+
+    private static final class Range extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Batch batch;
+        private final int from;
+        private final int to;
+
+        Range(Batch batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            batch.score(from, to);
+        }
+    }
+
+    private static final class Aggregate {
+        final String key;
+        long count;
+        long scoreSum;
+        long wordErrorSum;
+        long referenceWordSum;
+        long phoneticScoreSum;
+        int minScore = Integer.MAX_VALUE;
+        int maxScore = Integer.MIN_VALUE;
+
+        Aggregate(String key) {
+            this.key = key;
+        }
+
+        void add(int score, int wordErrors, int referenceWords, int phoneticScore) {
+            count++;
+            scoreSum += score;
+            wordErrorSum += wordErrors;
+            referenceWordSum += referenceWords;
+            phoneticScoreSum += phoneticScore;
+            minScore = Math.min(minScore, score);
+            maxScore = Math.max(maxScore, score);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.microsoft.android.fischersfritze.tools;
+
+import com.microsoft.android.fischersfritze.oxford.TwisterCorpus;
+import com.microsoft.android.fischersfritze.oxford.TwisterCorpusWriter;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Compiles text sources into a binary tongue twister corpus.
+ *
+ * Usage: CorpusCompiler &lt;output file&gt; &lt;source dir&gt;
+ *
+ * Every {@code <language>.txt} in the source directory becomes one language section,
+ * named after the file (e.g. {@code de-de.txt}), one twister per line.
+ */
+public class CorpusCompiler {
+    private static final String SOURCE_SUFFIX = ".txt";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: CorpusCompiler <output file> <source dir>");
+            System.exit(1);
+        }
+
+        File output = new File(args[0]);
+        File sourceDir = new File(args[1]);
+
+        File[] sources = sourceDir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SOURCE_SUFFIX);
+            }
+        });
+        if (sources == null || sources.length == 0) {
+            throw new FileNotFoundException("no " + SOURCE_SUFFIX + " sources in " + sourceDir);
+        }
+        // stable section order, so the output only changes with its sources
+        Arrays.sort(sources);
+
+        TwisterCorpusWriter writer = new TwisterCorpusWriter();
+        for (File source : sources) {
+            String language = source.getName().substring(0, source.getName().length() - SOURCE_SUFFIX.length());
+            Reader reader = new InputStreamReader(new FileInputStream(source), "UTF-8");
+            try {
+                writer.addSource(language, reader);
+            } finally {
+                reader.close();
+            }
+        }
+
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("cannot create " + parent);
+        }
+        writer.writeTo(output);
+
+        TwisterCorpus corpus = TwisterCorpus.open(output);
+        for (String language : corpus.getLanguages()) {
+            System.out.println(language + ": " + corpus.count(language) + " twisters");
+        }
+        System.out.println("wrote " + output.length() + " bytes to " + output);
+    }
+}
@@ -0,0 +1,203 @@
+package com.microsoft.android.fischersfritze.tools;
+
+import com.microsoft.android.fischersfritze.game.GameSession;
+import com.microsoft.android.fischersfritze.game.Hypothesis;
+import com.microsoft.android.fischersfritze.game.ReplayEvent;
+import com.microsoft.android.fischersfritze.game.ReplayRecognizer;
+import com.microsoft.android.fischersfritze.game.ReplayScript;
+import com.microsoft.android.fischersfritze.game.RoundResult;
+import com.microsoft.android.fischersfritze.metrics.Metrics;
+import com.microsoft.android.fischersfritze.oxford.Helper;
+import com.microsoft.android.fischersfritze.oxford.TwisterCorpus;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Drives {@link GameSession}s with replayed recognizer events, no device or network needed.
+ *
+ * Usage: ReplayLoadTest &lt;corpus file&gt; [rounds] [threads] [interval micros]
+ *
+ * Every round replays a synthetic script for a twister of the compiled corpus: audio on,
+ * a few partials, a noisy n-best list, audio off. Each thread runs its own session; with an
+ * interval of zero the events are delivered back to back, otherwise one event per interval.
+ * Reports rounds/sec and the start-to-score latency percentiles, then the session's own
+ * timers.
+ */
+public class ReplayLoadTest {
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzäöüß ";
+    private static final int N_BEST = 5;
+    private static final int PARTIALS = 4;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println("usage: ReplayLoadTest <corpus file> [rounds] [threads] [interval micros]");
+            System.exit(1);
+        }
+
+        File corpusFile = new File(args[0]);
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        final long intervalNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 3 ? Long.parseLong(args[3]) : 0);
+
+        TwisterCorpus corpus = TwisterCorpus.open(corpusFile);
+        Helper.setCorpus(corpus);
+        final List<String[]> twisters = new ArrayList<>();
+        for (String language : corpus.getLanguages()) {
+            for (int i = 0; i < corpus.count(language); i++) {
+                twisters.add(new String[]{language, corpus.get(language, i)});
+            }
+        }
+        if (twisters.isEmpty()) {
+            throw new IOException("no twisters in " + corpusFile);
+        }
+
+        final ScheduledExecutorService pacing = intervalNanos > 0 ? Executors.newScheduledThreadPool(threads) : null;
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int share = rounds / threads + (t < rounds % threads ? 1 : 0);
+            final long seed = t;
+            futures.add(workers.submit(new Callable<long[]>() {
+                @Override
+                public long[] call() throws Exception {
+                    return runRounds(twisters, share, new Random(seed), pacing, intervalNanos);
+                }
+            }));
+        }
+
+        long[] latencies = new long[0];
+        try {
+            for (Future<long[]> future : futures) {
+                long[] part = future.get();
+                int offset = latencies.length;
+                latencies = Arrays.copyOf(latencies, offset + part.length);
+                System.arraycopy(part, 0, latencies, offset, part.length);
+            }
+        } finally {
+            // a failed thread must not leave the others keeping the JVM alive
+            workers.shutdownNow();
+            if (pacing != null) pacing.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        System.out.println(String.format("%d rounds on %d threads in %.1f ms: %.0f rounds/sec",
+                latencies.length, threads, elapsed / 1e6, latencies.length / (elapsed / 1e9)));
+        System.out.println(String.format("latency p50 %.1f us, p99 %.1f us, max %.1f us",
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3, percentile(latencies, 1.0) / 1e3));
+        System.out.print(Metrics.getDefault().dump());
+    }
+
+    private static long[] runRounds(List<String[]> twisters, int rounds, Random random,
+                                    ScheduledExecutorService pacing, long intervalNanos) throws InterruptedException {
+        final Semaphore roundDone = new Semaphore(0);
+        final long[] latencies = new long[rounds];
+        final int[] scored = new int[1];
+        // set on the scoring thread, which may be the pacing scheduler: throwing there would
+        // cancel the rest of the script and leave the round waiting forever
+        final RuntimeException[] failure = new RuntimeException[1];
+
+        String[] first = twisters.get(0);
+        ReplayRecognizer recognizer = new ReplayRecognizer(script(first[1], random), pacing, intervalNanos);
+        GameSession session = new GameSession(recognizer, first[0]);
+        session.setListener(new GameSession.Listener() {
+            @Override
+            public void onStateChanged(GameSession.State state) {
+                if (state == GameSession.State.Idle) roundDone.release();
+            }
+
+            @Override
+            public void onLiveScore(String partial, int distance) {
+            }
+
+            @Override
+            public void onRoundScored(RoundResult result) {
+                latencies[scored[0]++] = result.getLatencyNanos();
+            }
+
+            @Override
+            public void onScoringFailed(String twister, RuntimeException error) {
+                // a load test that silently skips rounds would report rates it never reached
+                failure[0] = new IllegalStateException("scoring \"" + twister + "\" failed", error);
+                roundDone.release();
+            }
+
+            @Override
+            public void onError(int errorCode, String text) {
+            }
+
+            @Override
+            public void onAudioEvent(boolean recording) {
+            }
+        });
+
+        for (int round = 0; round < rounds; round++) {
+            String[] twister = twisters.get(random.nextInt(twisters.size()));
+            session.setLanguage(twister[0]);
+            session.setTwister(twister[1]);
+            recognizer.setScript(script(twister[1], random));
+
+            session.startRecording();
+            roundDone.acquire();
+            // the semaphore orders the write of the failure before this read
+            if (failure[0] != null) throw failure[0];
+        }
+
+        return Arrays.copyOf(latencies, scored[0]);
+    }
+
+    // audio on, growing partials, a noisy n-best list with the exact twister somewhere in it, audio off
+    static ReplayScript script(String twister, Random random) {
+        List<ReplayEvent> events = new ArrayList<>();
+        events.add(ReplayEvent.audio(true));
+
+        String spoken = mutate(twister, random, 1 + random.nextInt(4));
+        for (int i = 1; i <= PARTIALS; i++) {
+            events.add(ReplayEvent.partial(spoken.substring(0, spoken.length() * i / PARTIALS)));
+        }
+
+        Hypothesis[] nBest = new Hypothesis[N_BEST];
+        nBest[0] = new Hypothesis(spoken, "High");
+        for (int i = 1; i < N_BEST; i++) {
+            nBest[i] = new Hypothesis(mutate(twister, random, random.nextInt(8)), "Low");
+        }
+        nBest[1 + random.nextInt(N_BEST - 1)] = new Hypothesis(twister, "Normal");
+        events.add(ReplayEvent.finalResult(nBest));
+
+        events.add(ReplayEvent.audio(false));
+        return new ReplayScript(events);
+    }
+
+    private static String mutate(String text, Random random, int edits) {
+        StringBuilder sb = new StringBuilder(text);
+        for (int e = 0; e < edits; e++) {
+            int position = sb.length() == 0 ? 0 : random.nextInt(sb.length());
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    sb.insert(position, c);
+                    break;
+                case 1:
+                    if (sb.length() > 0) sb.deleteCharAt(position);
+                    break;
+                default:
+                    if (sb.length() > 0) sb.setCharAt(position, c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
@@ -0,0 +1,257 @@
+package com.microsoft.android.fischersfritze.tools;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams (language, twister, hypothesis) records out of a transcript log, one at a time,
+ * so a log of any size is read in constant memory.
+ *
+ * Two formats are understood, told apart by the first non-blank char of the file:
+ * <ul>
+ *     <li>JSON lines, one flat object per line with string fields {@code language},
+ *     {@code twister} and {@code hypothesis}; other fields are ignored.</li>
+ *     <li>CSV with the three fields in that order, quoted as in RFC 4180 (quoted fields may
+ *     span lines) and an optional {@code language,twister,hypothesis} header.</li>
+ * </ul>
+ * Lines that are blank are skipped; lines that cannot be parsed are counted and skipped.
+ * The file is read through a {@link FileChannel} with a large buffer and decoded as UTF-8,
+ * malformed bytes are replaced.
+ *
+ * Not thread-safe.
+ */
+public class TranscriptReader implements Closeable {
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    public enum Format { JsonLines, Csv }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private String pending;
+    private long line;
+    private long malformed;
+    private boolean headerChecked;
+
+    public TranscriptReader(Path path) throws IOException {
+        if(path == null) throw new IllegalArgumentException("path MUST NOT be NULL");
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), -1), BUFFER_CHARS);
+        this.pending = nextNonBlankLine();
+        this.format = pending != null && pending.trim().startsWith("{") ? Format.JsonLines : Format.Csv;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * @return number of the physical line read last
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * @return number of records skipped because they could not be parsed
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * @return {language, twister, hypothesis}, or null at the end of the log
+     */
+    public String[] next() throws IOException {
+        while (true) {
+            String text = pending != null ? pending : nextNonBlankLine();
+            pending = null;
+            if (text == null) return null;
+
+            String[] record = format == Format.JsonLines ? parseJson(text) : parseCsv(text);
+            if (record == null) {
+                malformed++;
+                continue;
+            }
+            if (format == Format.Csv && !headerChecked) {
+                headerChecked = true;
+                if ("language".equalsIgnoreCase(record[0]) && "twister".equalsIgnoreCase(record[1])) continue;
+            }
+            return record;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String nextNonBlankLine() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+        } while (text != null && text.trim().isEmpty());
+        return text;
+    }
+
+    // --- JSON lines
+
+    static String[] parseJson(String text) {
+        JsonCursor cursor = new JsonCursor(text);
+        String language = null;
+        String twister = null;
+        String hypothesis = null;
+
+        if (!cursor.consume('{')) return null;
+        if (!cursor.consume('}')) {
+            do {
+                String key = cursor.string();
+                if (key == null || !cursor.consume(':')) return null;
+
+                String value;
+                if (cursor.peek() == '"') {
+                    value = cursor.string();
+                    if (value == null) return null;
+                } else {
+                    // numbers, booleans and null of fields we do not need
+                    value = null;
+                    if (!cursor.skipLiteral()) return null;
+                }
+
+                if ("language".equals(key)) language = value;
+                else if ("twister".equals(key)) twister = value;
+                else if ("hypothesis".equals(key)) hypothesis = value;
+            } while (cursor.consume(','));
+            if (!cursor.consume('}')) return null;
+        }
+
+        if (language == null || twister == null || hypothesis == null) return null;
+        return new String[]{language, twister, hypothesis};
+    }
+
+    private static final class JsonCursor {
+        private final String text;
+        private int position;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            skipWhitespace();
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        boolean consume(char c) {
+            if (peek() != c) return false;
+            position++;
+            return true;
+        }
+
+        boolean skipLiteral() {
+            skipWhitespace();
+            int start = position;
+            while (position < text.length() && ",}] \t".indexOf(text.charAt(position)) < 0) position++;
+            return position > start;
+        }
+
+        String string() {
+            if (!consume('"')) return null;
+
+            StringBuilder sb = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (position >= text.length()) return null;
+
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (position + 4 > text.length()) return null;
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            return null;
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        // \" \\ \/
+                        sb.append(escaped);
+                }
+            }
+            return null;
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) position++;
+        }
+    }
+
+    // --- CSV
+
+    private String[] parseCsv(String text) throws IOException {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) break;
+                // a quoted field goes on in the next line
+                String more = reader.readLine();
+                line++;
+                if (more == null) return null;
+                field.append('\n');
+                text = more;
+                i = 0;
+                continue;
+            }
+
+            char c = text.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+
+        if (fields.size() != 3) return null;
+        return fields.toArray(new String[3]);
+    }
+}
@@ -0,0 +1,44 @@
+package com.microsoft.android.fischersfritze.tools;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BulkScorerTest {
+    private static final int RECORDS = 500;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void run_writesScoresInInputOrder() throws Exception {
+        // many small batches on a few threads, so batches finish out of order while the window is full
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            String twister = "she sells sea shells " + i;
+            log.append("en-us,").append(twister).append(',')
+                    .append(i % 3 == 0 ? twister : "she sells shells " + i).append('\n');
+        }
+        File input = folder.newFile();
+        File output = folder.newFile();
+        Files.write(input.toPath(), log.toString().getBytes(StandardCharsets.UTF_8));
+
+        new BulkScorer().run(input.toPath(), output.toPath(), 3, 7);
+
+        List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+        assertEquals(RECORDS + 1, lines.size());
+        for (int i = 0; i < RECORDS; i++) {
+            String[] fields = lines.get(i + 1).split(",");
+            assertEquals(String.valueOf(i + 1), fields[0]);
+            assertEquals("she sells sea shells " + i, fields[2]);
+            assertEquals(i % 3 == 0, "100".equals(fields[3]));
+        }
+    }
+}
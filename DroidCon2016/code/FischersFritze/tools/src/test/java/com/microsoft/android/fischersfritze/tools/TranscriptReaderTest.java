@@ -0,0 +1,71 @@
+package com.microsoft.android.fischersfritze.tools;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class TranscriptReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void csv_readsQuotedAndMultilineFields() throws Exception {
+        TranscriptReader reader = open("language,twister,hypothesis\n"
+                + "en-us,\"How can a clam, cram\",\"she said \"\"clam\"\"\"\n"
+                + "\n"
+                + "de-de,\"Fischers\nFritze\",fischt\n");
+
+        assertEquals(TranscriptReader.Format.Csv, reader.getFormat());
+        assertArrayEquals(new String[]{"en-us", "How can a clam, cram", "she said \"clam\""}, reader.next());
+        assertArrayEquals(new String[]{"de-de", "Fischers\nFritze", "fischt"}, reader.next());
+        assertNull(reader.next());
+        assertEquals(0, reader.getMalformed());
+        reader.close();
+    }
+
+    @Test
+    public void json_decodesEscapes() throws Exception {
+        TranscriptReader reader = open("{\"language\": \"de-de\", \"score\": 42, \"twister\": \"Fischers \\\"Fritze\\\"\","
+                + " \"hypothesis\": \"a\\\\b \\u00fc\\n\"}\n");
+
+        assertEquals(TranscriptReader.Format.JsonLines, reader.getFormat());
+        assertArrayEquals(new String[]{"de-de", "Fischers \"Fritze\"", "a\\b ü\n"}, reader.next());
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void next_countsAndSkipsMalformedLines() throws Exception {
+        TranscriptReader reader = open("{\"language\":\"en-us\",\"twister\":\"a\",\"hypothesis\":\"b\"}\n"
+                + "{\"language\":\"en-us\",\"twister\":\"a\"}\n"
+                + "{\"language\":\"en-us\",\"twister\":\"a\",\"hypothesis\":\"\\u00f\"}\n"
+                + "not json\n"
+                + "{\"language\":\"en-us\",\"twister\":\"c\",\"hypothesis\":\"d\"}\n");
+
+        assertArrayEquals(new String[]{"en-us", "a", "b"}, reader.next());
+        assertArrayEquals(new String[]{"en-us", "c", "d"}, reader.next());
+        assertNull(reader.next());
+        assertEquals(3, reader.getMalformed());
+        reader.close();
+
+        reader = open("en-us,a,b\nen-us,a\nen-us,a,b,c\n\"en-us,a,b\n");
+        assertArrayEquals(new String[]{"en-us", "a", "b"}, reader.next());
+        assertNull(reader.next());
+        assertEquals(3, reader.getMalformed());
+        reader.close();
+    }
+
+    private TranscriptReader open(String content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return new TranscriptReader(file.toPath());
+    }
+}
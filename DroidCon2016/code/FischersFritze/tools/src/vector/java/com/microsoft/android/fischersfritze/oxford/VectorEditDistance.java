@@ -0,0 +1,96 @@
+package com.microsoft.android.fischersfritze.oxford;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link WeightedEditDistance#distanceByDiagonals} with the cells of each anti-diagonal computed
+ * {@link IntVector#SPECIES_PREFERRED} lanes at a time by the incubating Vector API.
+ * The cells next to the first row and column, and whatever does not fill a whole vector,
+ * are left to the scalar loop.
+ *
+ * Needs JDK 17 or later with {@code --add-modules jdk.incubator.vector}; compiled by
+ * {@code :tools:compileVectorKernel} when one is configured, see tools/build.gradle. Immutable and thread-safe.
+ */
+public final class VectorEditDistance {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int RING = WeightedEditDistance.RING;
+
+    private final WeightedEditDistance costs;
+
+    public VectorEditDistance(WeightedEditDistance costs) {
+        if(costs == null) throw new IllegalArgumentException("costs MUST NOT be NULL");
+
+        this.costs = costs;
+    }
+
+    public WeightedEditDistance getCosts() {
+        return costs;
+    }
+
+    public static int getLanes() {
+        return SPECIES.length();
+    }
+
+    public int distance(CharSequence lhs, CharSequence rhs) {
+        int n = lhs == null ? 0 : lhs.length();
+        int m = rhs == null ? 0 : rhs.length();
+        if (n == 0 || m == 0) return costs.distance(lhs, rhs);
+
+        int[] a = WeightedEditDistance.codes(lhs);
+        int[] rb = WeightedEditDistance.reversedCodes(rhs);
+        int[][] diagonals = new int[RING][n + 1];
+
+        for (int k = 0; k <= n + m; k++) {
+            int[] current = diagonals[k % RING];
+            int[] previous = diagonals[(k + 4) % RING];
+            int[] before = diagonals[(k + 3) % RING];
+            int[] fourBack = diagonals[(k + 1) % RING];
+            costs.edges(current, k, n, m);
+
+            int from = Math.max(1, k - m);
+            int to = Math.min(n, k - 1);
+            // transpositions look two rows and columns back
+            int vectorFrom = costs.hasTransposition() ? Math.max(from, 2) : from;
+            int vectorTo = costs.hasTransposition() ? Math.min(to, k - 2) : to;
+            int lanes = SPECIES.length();
+            int vectorEnd = vectorFrom + Math.max(0, (vectorTo - vectorFrom + 1) / lanes * lanes);
+
+            costs.cells(a, rb, m, k, from, Math.min(to, vectorFrom - 1), current, previous, before, fourBack);
+            vectorCells(a, rb, m - k, vectorFrom, vectorEnd, current, previous, before, fourBack);
+            costs.cells(a, rb, m, k, Math.max(vectorEnd, from), to, current, previous, before, fourBack);
+        }
+
+        return diagonals[(n + m) % RING][n];
+    }
+
+    private void vectorCells(int[] a, int[] rb, int offset, int from, int end,
+                             int[] current, int[] previous, int[] before, int[] fourBack) {
+        IntVector substitution = IntVector.broadcast(SPECIES, costs.getSubstitution());
+        IntVector zero = IntVector.zero(SPECIES);
+        int insertion = costs.getInsertion();
+        int deletion = costs.getDeletion();
+        boolean transpositions = costs.hasTransposition();
+        int transposition = costs.getTransposition();
+
+        for (int i = from; i < end; i += SPECIES.length()) {
+            IntVector ca = IntVector.fromArray(SPECIES, a, i - 1);
+            IntVector cb = IntVector.fromArray(SPECIES, rb, i + offset);
+
+            IntVector best = IntVector.fromArray(SPECIES, before, i - 1)
+                    .add(zero.blend(substitution, ca.compare(VectorOperators.NE, cb)));
+            best = best.min(IntVector.fromArray(SPECIES, previous, i - 1).add(deletion));
+            best = best.min(IntVector.fromArray(SPECIES, previous, i).add(insertion));
+
+            if (transpositions) {
+                VectorMask<Integer> swapped = ca.compare(VectorOperators.EQ, IntVector.fromArray(SPECIES, rb, i + offset + 1))
+                        .and(IntVector.fromArray(SPECIES, a, i - 2).compare(VectorOperators.EQ, cb));
+                best = best.lanewise(VectorOperators.MIN, IntVector.fromArray(SPECIES, fourBack, i - 2).add(transposition), swapped);
+            }
+
+            best.intoArray(current, i);
+        }
+    }
+}
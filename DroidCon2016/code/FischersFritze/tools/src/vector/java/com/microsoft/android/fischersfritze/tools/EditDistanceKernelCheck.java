@@ -0,0 +1,124 @@
+package com.microsoft.android.fischersfritze.tools;
+
+import com.microsoft.android.fischersfritze.oxford.VectorEditDistance;
+import com.microsoft.android.fischersfritze.oxford.WeightedEditDistance;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Checks the edit distance kernels against each other and times them on long texts.
+ *
+ * Usage: EditDistanceKernelCheck [length] [pairs]
+ *
+ * Random dictation-like transcripts of about {@code length} chars are compared with noisy
+ * copies of themselves. Every pair is first scored by the row DP, the scalar anti-diagonal
+ * fill and the vector kernel under a few cost models, and any disagreement aborts the run. Then
+ * each kernel is timed on the optimal string alignment model and the pairs/sec are printed.
+ */
+public class EditDistanceKernelCheck {
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzäöüß     ";
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int pairs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Random random = new Random(42);
+        String[] lhs = new String[pairs];
+        String[] rhs = new String[pairs];
+        for (int p = 0; p < pairs; p++) {
+            lhs[p] = randomText(random, length);
+            rhs[p] = mutate(lhs[p], 0.1, random);
+        }
+
+        WeightedEditDistance[] models = {
+                WeightedEditDistance.LEVENSHTEIN,
+                WeightedEditDistance.OPTIMAL_STRING_ALIGNMENT,
+                new WeightedEditDistance(2, 1, 1, 1),
+                new WeightedEditDistance(3, 2, 1, WeightedEditDistance.NO_TRANSPOSITION)
+        };
+        for (WeightedEditDistance model : models) {
+            VectorEditDistance vector = new VectorEditDistance(model);
+            for (int p = 0; p < pairs; p++) {
+                int expected = model.distance(lhs[p], rhs[p]);
+                int diagonals = model.distanceByDiagonals(lhs[p], rhs[p]);
+                int vectorized = vector.distance(lhs[p], rhs[p]);
+                if (diagonals != expected || vectorized != expected) {
+                    throw new AssertionError("pair " + p + ": rows " + expected + ", diagonals " + diagonals + ", vector " + vectorized);
+                }
+            }
+        }
+        System.out.println("kernels agree on " + pairs + " pairs of " + length + " chars, " + models.length + " cost models, "
+                + VectorEditDistance.getLanes() + " int lanes");
+
+        final WeightedEditDistance model = WeightedEditDistance.OPTIMAL_STRING_ALIGNMENT;
+        final VectorEditDistance vector = new VectorEditDistance(model);
+        double rows = time("rows", lhs, rhs, new Kernel() {
+            @Override
+            public int distance(String a, String b) {
+                return model.distance(a, b);
+            }
+        });
+        double diagonals = time("diagonals", lhs, rhs, new Kernel() {
+            @Override
+            public int distance(String a, String b) {
+                return model.distanceByDiagonals(a, b);
+            }
+        });
+        double vectorized = time("vector", lhs, rhs, new Kernel() {
+            @Override
+            public int distance(String a, String b) {
+                return vector.distance(a, b);
+            }
+        });
+        System.out.println(String.format(Locale.ROOT, "speedup over rows: diagonals %.2fx, vector %.2fx",
+                diagonals / rows, vectorized / rows));
+    }
+
+    private interface Kernel {
+        int distance(String a, String b);
+    }
+
+    // best of a few rounds, the first ones warm up the JIT
+    private static double time(String name, String[] lhs, String[] rhs, Kernel kernel) {
+        double best = 0;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int p = 0; p < lhs.length; p++) {
+                sink += kernel.distance(lhs[p], rhs[p]);
+            }
+            double pairsPerSec = lhs.length / ((System.nanoTime() - start) / 1e9);
+            best = Math.max(best, pairsPerSec);
+        }
+        System.out.println(String.format(Locale.ROOT, "%-10s %10.1f pairs/sec (%d)", name, best, sink));
+        return best;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String mutate(String text, double noise, Random random) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            double roll = random.nextDouble();
+            if (roll < noise / 3) {
+                continue;
+            } else if (roll < noise * 2 / 3) {
+                sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            } else if (roll < noise && i + 1 < text.length()) {
+                sb.append(text.charAt(i + 1)).append(text.charAt(i));
+                i++;
+                continue;
+            }
+            sb.append(text.charAt(i));
+        }
+        return sb.toString();
+    }
+}